@@ -0,0 +1,91 @@
+package com.example.roi.mcs;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.opencsv.exceptions.CsvException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the ways the full-size synthetic dataset (742,140 rows) can be loaded at startup:
+ * the legacy serialized cache ({@link McsCacheConverter#loadFromCache}), the CSV through
+ * opencsv ({@link McsCacheConverter#loadFromCsv}), and mapping the {@link McsBinaryFormat}
+ * cache, both on its own and as the full {@link McsLookupOptimized} constructor.
+ *
+ * Run with: mvn -Pbenchmarks test-compile exec:exec -Djmh.args="McsCacheLoadBenchmark"
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class McsCacheLoadBenchmark {
+
+    private Path directory;
+    private Path csv;
+    private Path serializedCache;
+    private Path binaryCache;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("mcs-benchmark");
+        csv = directory.resolve("mcs.csv");
+        serializedCache = directory.resolve("mcs.ser");
+        binaryCache = directory.resolve("mcs.cache");
+
+        List<McsEntry> entries = SyntheticMcsData.entries();
+        SyntheticMcsData.writeCsv(csv);
+        McsBinaryFormat.write(entries, binaryCache);
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(serializedCache)))) {
+            out.writeObject(new ArrayList<>(entries));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        for (Path file : new Path[] {csv, serializedCache, binaryCache}) {
+            Files.deleteIfExists(file);
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public List<McsEntry> serializedCache() throws IOException, ClassNotFoundException {
+        return new McsCacheConverter().loadFromCache(serializedCache.toString());
+    }
+
+    @Benchmark
+    public List<McsEntry> csv() throws IOException, CsvException {
+        return new McsCacheConverter().loadFromCsv(csv.toString());
+    }
+
+    @Benchmark
+    public McsColumnStore binaryCache() throws IOException {
+        return McsBinaryFormat.open(binaryCache).getColumns();
+    }
+
+    @Benchmark
+    public McsLookupOptimized lookupFromBinaryCache() throws IOException, CsvException {
+        return new McsLookupOptimized(binaryCache.toString(), csv.toString());
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.roi.mcs;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import com.opencsv.exceptions.CsvException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares loading the full-size synthetic CSV (742,140 rows) into columns with the opencsv
+ * loader against {@link McsParallelCsvReader}, on one thread and on the common pool.
+ *
+ * Run with: mvn -Pbenchmarks test-compile exec:exec -Djmh.args="McsCsvIngestBenchmark"
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class McsCsvIngestBenchmark {
+
+    private Path csv;
+    private ForkJoinPool singleThread;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        csv = Files.createTempFile("mcs-benchmark", ".csv");
+        SyntheticMcsData.writeCsv(csv);
+        singleThread = new ForkJoinPool(1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        singleThread.shutdown();
+        Files.deleteIfExists(csv);
+    }
+
+    @Benchmark
+    public McsColumnStore openCsv() throws IOException, CsvException {
+        return McsColumnStore.fromEntries(new McsCacheConverter().loadFromCsv(csv.toString()), true);
+    }
+
+    @Benchmark
+    public McsColumnStore parallelReaderSingleThread() throws IOException {
+        return McsParallelCsvReader.read(csv, true, singleThread);
+    }
+
+    @Benchmark
+    public McsColumnStore parallelReader() throws IOException {
+        return McsParallelCsvReader.read(csv, true);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.roi.mcs;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link McsLookupOptimized#findClosestMatch} served by the grid index against the
+ * linear scan over the full-size synthetic dataset, along with
+ * {@link McsLookupOptimized#lookupInterpolated} and {@link McsLookupOptimized#lookupBatch}.
+ * Batch scores are per query.
+ *
+ * Inputs are either uniformly random over the valid range, or the worst case for the grid
+ * index: points midway between grid values on every axis and away from the edges, so every
+ * lookup scores the full 4x4x4 candidate window and breaks ties on the row number.
+ *
+ * Run with: mvn -Pbenchmarks test-compile exec:exec -Djmh.args="McsLookupBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class McsLookupBenchmark {
+
+    private static final int QUERY_COUNT = 1024;
+
+    /** Batch size for the scan benchmark; a full batch would take seconds per invocation */
+    private static final int SCAN_BATCH_COUNT = 64;
+
+    private McsLookupOptimized indexed;
+    private McsLookupOptimized scanned;
+
+    private final int[] occupancy = new int[QUERY_COUNT];
+    private final double[] consumption = new double[QUERY_COUNT];
+    private final double[] pv = new double[QUERY_COUNT];
+    private final double[] battery = new double[QUERY_COUNT];
+    private final double[] out = new double[QUERY_COUNT];
+    private int[] scanOccupancy;
+    private double[] scanConsumption;
+    private double[] scanPv;
+    private double[] scanBattery;
+    private final double[] scanOut = new double[SCAN_BATCH_COUNT];
+    private int next;
+
+    @Param({"random", "worstCase"})
+    public String inputs;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        McsColumnStore columns = SyntheticMcsData.columns();
+        indexed = new McsLookupOptimized(columns, true);
+        scanned = new McsLookupOptimized(columns, false);
+
+        Random random = new Random(42);
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            occupancy[i] = 1 + random.nextInt(5);
+            if (inputs.equals("worstCase")) {
+                consumption[i] = 2000 + 500 * random.nextInt(35) + 250;
+                pv[i] = 1600 + 100 * random.nextInt(83) + 50;
+                battery[i] = 1 + random.nextInt(18) + 0.5;
+            } else {
+                consumption[i] = random.nextDouble() * 20000;
+                pv[i] = random.nextDouble() * 10000;
+                battery[i] = random.nextDouble() * 50;
+            }
+        }
+        scanOccupancy = Arrays.copyOf(occupancy, SCAN_BATCH_COUNT);
+        scanConsumption = Arrays.copyOf(consumption, SCAN_BATCH_COUNT);
+        scanPv = Arrays.copyOf(pv, SCAN_BATCH_COUNT);
+        scanBattery = Arrays.copyOf(battery, SCAN_BATCH_COUNT);
+    }
+
+    @Benchmark
+    public McsLookupOptimized.MatchResult gridIndex() {
+        int i = next++ & (QUERY_COUNT - 1);
+        return indexed.findClosestMatch(occupancy[i], consumption[i], pv[i], battery[i]);
+    }
+
+    @Benchmark
+    public McsLookupOptimized.MatchResult linearScan() {
+        int i = next++ & (QUERY_COUNT - 1);
+        return scanned.findClosestMatch(occupancy[i], consumption[i], pv[i], battery[i]);
+    }
+
+    @Benchmark
+    public double interpolated() {
+        int i = next++ & (QUERY_COUNT - 1);
+        return indexed.lookupInterpolated(occupancy[i], consumption[i], pv[i], battery[i]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERY_COUNT)
+    public double[] batchGridIndex() {
+        indexed.lookupBatch(occupancy, consumption, pv, battery, out);
+        return out;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SCAN_BATCH_COUNT)
+    public double[] batchLinearScan() {
+        scanned.lookupBatch(scanOccupancy, scanConsumption, scanPv, scanBattery, scanOut);
+        return scanOut;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.roi.mcs;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Builds an in-memory dataset with the same shape and row order as the file written by
+ * {@code generate_synthetic_dataset.py}: occupancy 1-5, consumption 1500-20000 step 500,
+ * PV 1500-20000 step 100 and battery 0-20 step 1 (742,140 rows), sorted by descending
+ * self-consumption percentage. Public so the service benchmarks can build a lookup from it.
+ */
+public final class SyntheticMcsData {
+
+    private SyntheticMcsData() {
+    }
+
+    public static List<McsEntry> entries() {
+        List<McsEntry> entries = new ArrayList<>(742_140);
+        for (int occupancy = 1; occupancy <= 5; occupancy++) {
+            for (int consumption = 1500; consumption <= 20000; consumption += 500) {
+                for (int pv = 1500; pv <= 20000; pv += 100) {
+                    for (int battery = 0; battery <= 20; battery++) {
+                        entries.add(new McsEntry(
+                            occupancy, occupancy / 5.0, consumption, pv, battery,
+                            percentage(occupancy, consumption, pv, battery),
+                            (double) pv / consumption, battery * 365.0 / consumption
+                        ));
+                    }
+                }
+            }
+        }
+        entries.sort(Comparator.comparingDouble((McsEntry e) -> e.predictedSelfConsumptionPercentage).reversed());
+        return entries;
+    }
+
+    static McsColumnStore columns() {
+        return McsColumnStore.fromEntries(entries(), false);
+    }
+
+    /**
+     * Writes the dataset as CSV in the column order {@code generate_synthetic_dataset.py} uses.
+     */
+    public static void writeCsv(Path path) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path)) {
+            writer.write("occupancy_days,occupancy_days_normalized,annual_consumption_kwh,pv_generation_kwh,"
+                + "battery_size_kwh,predicted_self_consumption_percentage,pv_to_consumption_ratio,battery_to_consumption_ratio\n");
+            for (McsEntry entry : entries()) {
+                writer.write(entry.occupancyDays + "," + entry.occupancyDaysNormalized + ","
+                    + entry.annualConsumptionKwh + "," + entry.pvGenerationKwh + "," + entry.batterySizeKwh + ","
+                    + entry.predictedSelfConsumptionPercentage + "," + entry.pvToConsumptionRatio + ","
+                    + entry.batteryToConsumptionRatio + "\n");
+            }
+        }
+    }
+
+    /**
+     * Smooth stand-in for the neural network prediction: self-consumption falls as PV outgrows
+     * consumption and rises with occupancy and battery size.
+     */
+    static double percentage(int occupancy, double consumption, double pv, double battery) {
+        double ratio = pv / consumption;
+        double base = 100.0 / (1.0 + ratio) + occupancy * 2.5;
+        double batteryUplift = (100.0 - base) * (1.0 - Math.exp(-battery * 365.0 / consumption));
+        return Math.max(0.0, Math.min(100.0, base + batteryUplift));
+    }
+}
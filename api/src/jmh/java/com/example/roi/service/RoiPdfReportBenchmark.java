@@ -0,0 +1,72 @@
+package com.example.roi.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.roi.model.RoiCalculationResponse;
+import com.example.roi.model.RoiRequest;
+import com.lowagie.text.DocumentException;
+
+/**
+ * Measures {@link RoiPdfReportService#generateRoiReport} for a typical calculation with the
+ * yearly breakdown included, charts and all. {@code charts} compares drawing the chart as PDF
+ * vector graphics against embedding a PNG snapshot; the resulting file size for each is printed
+ * at the end of the trial.
+ *
+ * Run with: mvn -Pbenchmarks test-compile exec:exec -Djmh.args="RoiPdfReportBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Djava.awt.headless=true"})
+@State(Scope.Benchmark)
+public class RoiPdfReportBenchmark {
+
+    private Path directory;
+    private final RoiPdfReportService reportService = new RoiPdfReportService(new CalculationConstantsService(new DefaultResourceLoader()));
+    private RoiCalculationResponse response;
+
+    @Param({"png", "vector"})
+    private String charts;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("roi-benchmark");
+        RoiRequest request = new RoiRequest();
+        request.setSolarPanelDirection(RoiRequest.CardinalDirection.SOUTH);
+        request.setIncludePdfBreakdown(true);
+        response = RoiServiceBenchmark.createService(directory, false).calculate(request);
+        ReflectionTestUtils.setField(reportService, "vectorCharts", "vector".equals(charts));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, DocumentException {
+        System.out.println("PDF size with " + charts + " charts: " + reportService.generateRoiReport(response).length + " bytes");
+        Files.deleteIfExists(directory.resolve("mcs.cache"));
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public byte[] generateRoiReport() throws IOException, DocumentException {
+        return reportService.generateRoiReport(response);
+    }
+}
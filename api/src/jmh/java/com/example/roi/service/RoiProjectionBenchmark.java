@@ -0,0 +1,97 @@
+package com.example.roi.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.roi.model.RoiCalculationResponse;
+import com.example.roi.model.RoiRequest;
+
+/**
+ * Measures the 15-year projection on its own, the closed-form evaluation that replaces it
+ * in sweeps, and the uncached calculation around them. Run with the GC profiler to see
+ * allocation per operation: the projection should allocate nothing, and {@code calculate}
+ * only the response and its per-year data points.
+ *
+ * Run with: mvn -Pbenchmarks test-compile exec:exec -Djmh.args="RoiProjectionBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class RoiProjectionBenchmark {
+
+    private static final int INPUT_COUNT = 1024;
+
+    private Path directory;
+    private RoiService roiService;
+    private final CalculationConstants constants = CalculationConstants.defaults();
+    private final RoiRequest[] requests = new RoiRequest[INPUT_COUNT];
+    private final double[] batteryCapacities = new double[INPUT_COUNT];
+    private final double[] usages = new double[INPUT_COUNT];
+    private final double[] solarUsed = new double[INPUT_COUNT];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("roi-benchmark");
+        roiService = RoiServiceBenchmark.createService(directory, false);
+
+        Random random = new Random(42);
+        for (int i = 0; i < INPUT_COUNT; i++) {
+            RoiRequest request = new RoiRequest();
+            request.setSolarPanelDirection(RoiRequest.CardinalDirection.SOUTH);
+            request.setUsage(1500 + random.nextDouble() * 18500);
+            request.setSolarSize(1 + random.nextDouble() * 7);
+            request.setBatterySize(random.nextInt(4) == 0 ? 0 : random.nextDouble() * 20);
+            requests[i] = request;
+            batteryCapacities[i] = request.getBatterySize() * 0.9;
+            usages[i] = request.getUsage();
+            solarUsed[i] = request.getSolarSize() * 850 * (0.3 + random.nextDouble() * 0.6);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(directory.resolve("mcs.cache"));
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public double projection() {
+        int i = next++ & (INPUT_COUNT - 1);
+        RoiProjection projection = RoiProjection.scratch().project(
+            constants, 8000, batteryCapacities[i], usages[i], 0.30, 0.075, 0.15, solarUsed[i], 1200);
+        return projection.averageYearlySavings + projection.paybackYear;
+    }
+
+    @Benchmark
+    public double closedForm() {
+        int i = next++ & (INPUT_COUNT - 1);
+        RoiClosedForm.Summary summary = RoiClosedForm.summarise(
+            constants, 8000, batteryCapacities[i], usages[i], 0.30, 0.075, 0.15, solarUsed[i], 1200);
+        return summary.averageYearlySavings() + summary.paybackYear();
+    }
+
+    @Benchmark
+    public RoiCalculationResponse calculate() {
+        return roiService.calculate(requests[next++ & (INPUT_COUNT - 1)]);
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.roi.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.roi.mcs.McsBinaryFormat;
+import com.example.roi.mcs.McsLookupOptimized;
+import com.example.roi.mcs.SyntheticMcsData;
+import com.example.roi.model.RoiCalculationResponse;
+import com.example.roi.model.RoiRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Measures {@link RoiService#calculate} end to end over the full-size synthetic MCS dataset,
+ * from request to response, with the result cache off and (once every request has been seen)
+ * serving hits. {@code calculateAndWriteJson} adds the JSON encoding the controller does.
+ *
+ * Run with: mvn -Pbenchmarks test-compile exec:exec -Djmh.args="RoiServiceBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class RoiServiceBenchmark {
+
+    private static final int REQUEST_COUNT = 1024;
+
+    @Param({"off", "on"})
+    public String resultCache;
+
+    private Path directory;
+    private RoiService roiService;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final RoiRequest[] requests = new RoiRequest[REQUEST_COUNT];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("roi-benchmark");
+        roiService = createService(directory, resultCache.equals("on"));
+
+        Random random = new Random(42);
+        RoiRequest.CardinalDirection[] directions = RoiRequest.CardinalDirection.values();
+        for (int i = 0; i < REQUEST_COUNT; i++) {
+            RoiRequest request = new RoiRequest();
+            request.setSolarPanelDirection(directions[random.nextInt(directions.length)]);
+            request.setHaveOrWillGetEv(random.nextBoolean());
+            request.setHomeOccupancyDuringWorkHours(1 + random.nextInt(5));
+            request.setUsage(1500 + random.nextDouble() * 18500);
+            request.setSolarSize(1 + random.nextDouble() * 7);
+            request.setBatterySize(random.nextInt(4) == 0 ? 0 : random.nextDouble() * 20);
+            requests[i] = request;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(directory.resolve("mcs.cache"));
+        Files.deleteIfExists(directory);
+    }
+
+    /**
+     * Wires a RoiService over the synthetic dataset without starting Spring.
+     */
+    static RoiService createService(Path directory, boolean resultCache) throws Exception {
+        Path cache = directory.resolve("mcs.cache");
+        McsBinaryFormat.write(SyntheticMcsData.entries(), cache);
+        McsLookupOptimized lookup = new McsLookupOptimized(cache.toString(), directory.resolve("missing.csv").toString());
+        McsLookupService mcsLookupService = new McsLookupService(new DefaultResourceLoader(), new SimpleMeterRegistry()) {
+            @Override
+            public McsLookupOptimized getLookup() {
+                return lookup;
+            }
+        };
+
+        RoiService roiService = new RoiService(new TariffService(), mcsLookupService,
+            new CalculationConstantsService(new DefaultResourceLoader()), new ObjectMapper());
+        ReflectionTestUtils.setField(roiService, "usageDecimals", 0);
+        ReflectionTestUtils.setField(roiService, "sizeDecimals", 2);
+        if (resultCache) {
+            CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+            cacheManager.registerCustomCache(RoiService.CALCULATION_CACHE,
+                Caffeine.newBuilder().maximumSize(10_000).build());
+            ReflectionTestUtils.setField(roiService, "cacheManager", cacheManager);
+        }
+        return roiService;
+    }
+
+    @Benchmark
+    public RoiCalculationResponse calculate() {
+        return roiService.calculate(requests[next++ & (REQUEST_COUNT - 1)]);
+    }
+
+    @Benchmark
+    public String calculateAndWriteJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(roiService.calculate(requests[next++ & (REQUEST_COUNT - 1)]));
+    }
+}
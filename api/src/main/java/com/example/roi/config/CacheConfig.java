@@ -0,0 +1,33 @@
+package com.example.roi.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.roi.service.RoiService;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+@Configuration
+public class CacheConfig {
+
+    /**
+     * Registers the bounded ROI calculation cache. Other caches (e.g. tariffs) keep the
+     * default unbounded behaviour and are only cleared by their own eviction.
+     * Statistics are recorded so actuator publishes cache.gets{result=hit|miss}.
+     */
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> roiCalculationCacheCustomizer(
+            @Value("${roi.calculation-cache.maximum-size:10000}") long maximumSize,
+            @Value("${roi.calculation-cache.expire-after-write:PT1H}") Duration expireAfterWrite) {
+        return cacheManager -> cacheManager.registerCustomCache(RoiService.CALCULATION_CACHE,
+                Caffeine.newBuilder()
+                        .maximumSize(maximumSize)
+                        .expireAfterWrite(expireAfterWrite)
+                        .recordStats()
+                        .build());
+    }
+}
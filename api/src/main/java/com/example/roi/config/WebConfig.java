@@ -1,7 +1,12 @@
 package com.example.roi.config;
 
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -22,4 +27,33 @@ public class WebConfig {
             }
         };
     }
+
+    /**
+     * Runs streamed responses (NDJSON batch results, inline PDF reports), the only async
+     * handlers here, on their own pool rather than the shared application task executor,
+     * and without the container's async timeout (about 30 seconds on Tomcat), which would
+     * cut a long scenario sweep off mid-stream. The pool's threads are daemons, like the
+     * batch and report workers, so it needs no shutdown.
+     */
+    @Bean
+    public WebMvcConfigurer streamingConfigurer(
+            @Value("${roi.streaming.workers:8}") int workers,
+            @Value("${roi.streaming.queue-capacity:32}") int queueCapacity,
+            @Value("${roi.streaming.request-timeout:0}") Duration requestTimeout) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("roi-stream-");
+        executor.setDaemon(true);
+        executor.initialize();
+        return new WebMvcConfigurer() {
+            @Override
+            public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+                configurer.setTaskExecutor(executor);
+                // Zero or less means no limit
+                configurer.setDefaultTimeout(requestTimeout.toMillis());
+            }
+        };
+    }
 }
@@ -0,0 +1,136 @@
+package com.example.roi.controller;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Sends files as HTTP responses without copying them through the heap.
+ *
+ * On Tomcat the file is handed to the connector's sendfile support, so the kernel copies it
+ * from the page cache straight to the socket; elsewhere it is written with
+ * {@link FileChannel#transferTo}.
+ *
+ * Responses carry a strong ETag and Last-Modified, and matching conditional requests get a 304.
+ * A single byte range gets a 206 (honouring If-Range) and an unsatisfiable one a 416; requests
+ * for several ranges get the whole file.
+ */
+final class FileDownloads {
+
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private FileDownloads() {
+    }
+
+    /**
+     * Sends a file, or the requested range of it.
+     *
+     * @param file File to send
+     * @param contentType Content type of the file
+     * @param contentDisposition Content-Disposition header value
+     * @param request The request being answered
+     * @param response The response to write to
+     */
+    static void send(Path file, MediaType contentType, String contentDisposition,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        response.setContentType(contentType.toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        long start = 0;
+        long end = length - 1;
+        HttpRange range = requestedRange(request, etag, lastModified);
+        if (range != null) {
+            start = range.getRangeStart(length);
+            end = range.getRangeEnd(length);
+            if (start >= length || start > end) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return;
+            }
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if (count == 0 || "HEAD".equals(request.getMethod())) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            while (count > 0) {
+                long sent = channel.transferTo(start, count, out);
+                if (sent <= 0) {
+                    throw new IOException("File " + file + " shrank while being sent");
+                }
+                start += sent;
+                count -= sent;
+            }
+        }
+    }
+
+    /**
+     * Gets the single range to send, or null to send the whole file: when there is no Range
+     * header, it cannot be parsed, it asks for several ranges, or If-Range no longer matches.
+     */
+    private static HttpRange requestedRange(HttpServletRequest request, String etag, long lastModified) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null) {
+            return null;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(etag)) {
+            try {
+                if (request.getDateHeader(HttpHeaders.IF_RANGE) != lastModified / 1000 * 1000) {
+                    return null;
+                }
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(header);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -1,14 +1,15 @@
 package com.example.roi.controller;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.UUID;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -18,14 +19,26 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.example.roi.model.PdfReportLinkResponse;
+import com.example.roi.model.RoiBatchItemResponse;
 import com.example.roi.model.RoiCalculationResponse;
+import com.example.roi.model.RoiOptimiseRequest;
+import com.example.roi.model.RoiOptimiseResponse;
+import com.example.roi.model.ReportStatusResponse;
 import com.example.roi.model.RoiRequest;
+import com.example.roi.service.RoiBatchService;
+import com.example.roi.service.RoiOptimiserService;
 import com.example.roi.service.RoiPdfReportService;
+import com.example.roi.service.RoiReportQueueService;
+import com.example.roi.service.RoiReportStore;
 import com.example.roi.service.RoiService;
 import com.lowagie.text.DocumentException;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
 /**
  * RESTful API controller for ROI calculations. Provides endpoints for returning
  * ROI metrics for visualization and PDF report generation.
@@ -37,7 +50,15 @@ public class RoiApiController {
     @Autowired
     private RoiService roiService;
     @Autowired
+    private RoiBatchService roiBatchService;
+    @Autowired
+    private RoiOptimiserService roiOptimiserService;
+    @Autowired
     private RoiPdfReportService roiPdfReportService;
+    @Autowired
+    private RoiReportQueueService roiReportQueueService;
+    @Autowired
+    private RoiReportStore roiReportStore;
 
     /**
      * Calculate ROI with aggregated metrics for visualization
@@ -53,19 +74,128 @@ public class RoiApiController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Calculate ROI for many requests in one call. Items are calculated in parallel; an item
+     * that cannot be calculated gets an error entry instead of failing the batch.
+     *
+     * @param requests The requests to calculate
+     * @return One entry per request, in request order, or 413 if the batch is too large
+     */
+    @PostMapping("/calculate/batch")
+    public ResponseEntity<List<RoiBatchItemResponse>> calculateRoiBatch(@RequestBody List<RoiRequest> requests) {
+        if (requests.size() > roiBatchService.getMaxSize()) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        return ResponseEntity.ok(roiBatchService.calculateAll(requests));
+    }
+
+    /**
+     * Find the battery and solar sizes worth considering for one household. Every size
+     * combination in the ranges is calculated, and those that no other combination matches or
+     * beats on cost, payback and ROI at once are returned, cheapest first.
+     *
+     * @param request Household inputs plus battery and solar size ranges
+     * @return The Pareto front, or 400 if a range is invalid or the grid is too large
+     */
+    @PostMapping("/optimise")
+    public ResponseEntity<RoiOptimiseResponse> optimiseRoi(@RequestBody RoiOptimiseRequest request) {
+        try {
+            return ResponseEntity.ok(roiOptimiserService.optimise(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Calculate ROI for a stream of requests of any length, sent as newline-delimited JSON.
+     * Results are streamed back as newline-delimited JSON in the order they finish, each with
+     * the index of its request; reading and writing are flow-controlled so memory stays bounded.
+     *
+     * @param request The HTTP request whose body holds one RoiRequest per line
+     * @return One result or error line per request
+     */
+    @PostMapping(value = "/calculate/stream", consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> calculateRoiStream(HttpServletRequest request) throws IOException {
+        InputStream in = request.getInputStream();
+        StreamingResponseBody body = out -> roiBatchService.calculateStream(in, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
 
     /**
-     * Generate a PDF report from a previously calculated ROI response
+     * Queue a PDF report for a previously calculated ROI response. The report is rendered in
+     * the background; poll the status URL until it is DONE, then download it from the PDF URL.
      *
      * @param response The ROI calculation response to report on
-     * @return PdfReportLinkResponse containing the URL to the generated PDF
+     * @return 202 with the report ID, status URL and eventual PDF URL, or 503 if the queue is full
      */
     @PostMapping("/report")
-    public ResponseEntity<PdfReportLinkResponse> generateReport(@RequestBody RoiCalculationResponse response) throws IOException, DocumentException {
-        String reportId = UUID.randomUUID().toString();
-        roiPdfReportService.generateRoiReportToFile(response, reportId);
-        String pdfUrl = "/api/roi/reports/roi-report-" + reportId + ".pdf";
-        return ResponseEntity.ok(new PdfReportLinkResponse(pdfUrl));
+    public ResponseEntity<PdfReportLinkResponse> generateReport(@RequestBody RoiCalculationResponse response) {
+        RoiReportQueueService.ReportJob job;
+        try {
+            job = roiReportQueueService.submit(response);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .build();
+        }
+        String reportId = job.getReportId();
+        return ResponseEntity.accepted().body(new PdfReportLinkResponse(
+                pdfUrl(reportId), reportId, "/api/roi/reports/" + reportId + "/status"));
+    }
+
+    /**
+     * Progress of a queued PDF report
+     *
+     * @param reportId ID returned when the report was queued
+     * @return The report's status, or 404 if it is unknown or expired
+     */
+    @GetMapping("/reports/{reportId}/status")
+    public ResponseEntity<ReportStatusResponse> getReportStatus(@PathVariable String reportId) {
+        return roiReportQueueService.getJob(reportId)
+                .map(job -> {
+                    RoiReportQueueService.State state = job.getState();
+                    return ResponseEntity.ok(new ReportStatusResponse(
+                            job.getReportId(),
+                            state.name(),
+                            state == RoiReportQueueService.State.QUEUED
+                                    ? Math.max(0, roiReportQueueService.getQueuePosition(job)) : null,
+                            job.getSubmittedAt(),
+                            job.getStartedAt(),
+                            job.getFinishedAt(),
+                            state == RoiReportQueueService.State.DONE ? pdfUrl(reportId) : null,
+                            job.getError()));
+                })
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    private static String pdfUrl(String reportId) {
+        return "/api/roi/reports/" + RoiReportStore.fileName(reportId);
+    }
+
+    /**
+     * Generate a PDF report and stream it back inline, without writing a file or buffering
+     * the whole document in memory
+     *
+     * @param response The ROI calculation response to report on
+     * @return The PDF, written to the response as it is generated
+     */
+    @PostMapping(value = "/report/stream", produces = MediaType.APPLICATION_PDF_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamReport(@RequestBody RoiCalculationResponse response) {
+        StreamingResponseBody body = out -> {
+            try {
+                roiPdfReportService.writeRoiReport(response, out);
+            } catch (DocumentException e) {
+                throw new IOException("Failed to generate PDF report", e);
+            }
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"roi-report.pdf\"")
+                .contentType(MediaType.APPLICATION_PDF)
+                .body(body);
     }
 
     /**
@@ -97,18 +227,17 @@ public class RoiApiController {
     }
 
     /**
-     * Endpoint to serve generated PDF reports from /tmp
+     * Endpoint to serve generated PDF reports from the report store. Supports conditional
+     * requests (ETag/Last-Modified) and byte ranges for resuming downloads.
      */
     @GetMapping("/reports/{filename:.+}")
-    public ResponseEntity<Resource> getReport(@PathVariable String filename) throws IOException {
-        Path file = Paths.get("/tmp").resolve(filename);
-        Resource resource = new UrlResource(file.toUri());
-        if (!resource.exists()) {
-            return ResponseEntity.notFound().build();
+    public void getReport(@PathVariable String filename, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Optional<Path> file = roiReportStore.findByFileName(filename);
+        if (file.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
         }
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + resource.getFilename() + "\"")
-                .contentType(MediaType.APPLICATION_PDF)
-                .body(resource);
+        FileDownloads.send(file.get(), MediaType.APPLICATION_PDF,
+                "attachment; filename=\"" + filename + "\"", request, response);
     }
 }
@@ -0,0 +1,466 @@
+package com.example.roi.mcs;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.CRC32C;
+
+/**
+ * Versioned binary file format for MCS lookup data, designed to be memory-mapped.
+ *
+ * Unlike the Java-serialized cache, nothing is deserialized on load: {@link #open} maps the
+ * file once and lookups read the columns straight from the mapping, so startup cost does not
+ * grow with the dataset and the rows never occupy heap. The format does not depend on the
+ * layout of {@link McsEntry}, so changing that class no longer invalidates caches.
+ *
+ * Layout (all values little-endian, every section 8-byte aligned):
+ * <pre>
+ * Header (128 bytes)
+ *   0  int   magic "MCSB"
+ *   4  int   format version
+ *   8  int   flags (1 = derived columns present, 2 = grid index present)
+ *   12 int   row count
+ *   16 long  CRC32C of everything after the header
+ *   24 long  total file length
+ *   32 int   occupancy / consumption / PV / battery axis lengths (4 ints, 0 if no grid)
+ *   48 int   section offsets, one per section below (0 if absent)
+ * Sections
+ *   occupancy (byte per row), consumption, PV, battery, percentage (double per row),
+ *   occupancy normalised, PV ratio, battery ratio (double per row, optional),
+ *   grid cell-to-row table (int per cell, optional), grid axes (optional)
+ * </pre>
+ */
+public final class McsBinaryFormat {
+
+    /** "MCSB" read as a little-endian int */
+    static final int MAGIC = 0x4253434D;
+    static final int VERSION = 1;
+    /** Header length in bytes; the header holds the checksum and length of the rest of the file */
+    public static final int HEADER_SIZE = 128;
+
+    private static final int FLAG_DERIVED_COLUMNS = 1;
+    private static final int FLAG_GRID = 2;
+
+    private static final int OFFSET_CHECKSUM = 16;
+    private static final int OFFSET_FILE_LENGTH = 24;
+    static final int OFFSET_AXIS_LENGTHS = 32;
+    static final int OFFSET_SECTIONS = 48;
+
+    /** Section numbers, in file order */
+    private static final int SECTION_OCCUPANCY = 0;
+    private static final int SECTION_CONSUMPTION = 1;
+    private static final int SECTION_PV = 2;
+    private static final int SECTION_BATTERY = 3;
+    private static final int SECTION_PERCENTAGE = 4;
+    private static final int SECTION_OCCUPANCY_NORMALIZED = 5;
+    private static final int SECTION_PV_RATIO = 6;
+    private static final int SECTION_BATTERY_RATIO = 7;
+    static final int SECTION_ROW_BY_CELL = 8;
+    private static final int SECTION_OCCUPANCY_AXIS = 9;
+    private static final int SECTION_CONSUMPTION_AXIS = 10;
+    private static final int SECTION_PV_AXIS = 11;
+    private static final int SECTION_BATTERY_AXIS = 12;
+    private static final int SECTION_COUNT = 13;
+
+    private McsBinaryFormat() {
+    }
+
+    /**
+     * A dataset opened from a binary file. The columns and grid index read from the mapping.
+     */
+    public static final class MappedDataset {
+        private final ByteBuffer data;
+        private final McsColumnStore columns;
+        private final McsGridIndex gridIndex;
+
+        private MappedDataset(ByteBuffer data, McsColumnStore columns, McsGridIndex gridIndex) {
+            this.data = data;
+            this.columns = columns;
+            this.gridIndex = gridIndex;
+        }
+
+        public McsColumnStore getColumns() {
+            return columns;
+        }
+
+        /**
+         * Gets the grid index saved with the data, or null if the data is not gridded.
+         */
+        public McsGridIndex getGridIndex() {
+            return gridIndex;
+        }
+
+        /**
+         * Checks the stored CRC32C against the file contents. This reads every page of the
+         * file, so it is not done on every open: caches are checked when they are written, and
+         * McsLookupService checks at startup only if mcs.dataset.verify-checksum is set.
+         *
+         * @return true if the contents match the checksum written with the file
+         */
+        public boolean verifyChecksum() {
+            return data.getLong(OFFSET_CHECKSUM) == checksum(data);
+        }
+    }
+
+    /**
+     * Writes entries to a binary file, including the derived columns and, if the rows form a
+     * regular grid, the grid index. The file is written to a temporary sibling and moved into
+     * place so readers never see a partial file.
+     *
+     * @param entries The entries to write, in their original order
+     * @param path Destination file
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(List<McsEntry> entries, Path path) throws IOException {
+        McsColumnStore columns = McsColumnStore.fromEntries(entries, true);
+        write(columns, McsGridIndex.detect(columns), path);
+    }
+
+    /**
+     * Writes a column store (and optional grid index) to a binary file.
+     *
+     * @param columns The columns to write
+     * @param gridIndex Grid index over the columns, or null
+     * @param path Destination file
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(McsColumnStore columns, McsGridIndex gridIndex, Path path) throws IOException {
+        int rowCount = columns.getRowCount();
+        boolean derived = columns.hasDerivedColumns();
+
+        // Lay out the sections
+        int[] offsets = new int[SECTION_COUNT];
+        long position = HEADER_SIZE;
+        position = place(offsets, SECTION_OCCUPANCY, position, (long) rowCount);
+        position = place(offsets, SECTION_CONSUMPTION, position, (long) rowCount * Double.BYTES);
+        position = place(offsets, SECTION_PV, position, (long) rowCount * Double.BYTES);
+        position = place(offsets, SECTION_BATTERY, position, (long) rowCount * Double.BYTES);
+        position = place(offsets, SECTION_PERCENTAGE, position, (long) rowCount * Double.BYTES);
+        if (derived) {
+            position = place(offsets, SECTION_OCCUPANCY_NORMALIZED, position, (long) rowCount * Double.BYTES);
+            position = place(offsets, SECTION_PV_RATIO, position, (long) rowCount * Double.BYTES);
+            position = place(offsets, SECTION_BATTERY_RATIO, position, (long) rowCount * Double.BYTES);
+        }
+        if (gridIndex != null) {
+            position = place(offsets, SECTION_ROW_BY_CELL, position, (long) gridIndex.getCellCount() * Integer.BYTES);
+            position = place(offsets, SECTION_OCCUPANCY_AXIS, position, (long) gridIndex.occupancyAxis().length * Integer.BYTES);
+            position = place(offsets, SECTION_CONSUMPTION_AXIS, position, (long) gridIndex.consumptionAxis().length * Double.BYTES);
+            position = place(offsets, SECTION_PV_AXIS, position, (long) gridIndex.pvAxis().length * Double.BYTES);
+            position = place(offsets, SECTION_BATTERY_AXIS, position, (long) gridIndex.batteryAxis().length * Double.BYTES);
+        }
+        if (position > Integer.MAX_VALUE) {
+            throw new IOException("MCS dataset too large for the binary format: " + position + " bytes");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) position).order(ByteOrder.LITTLE_ENDIAN);
+
+        // Header
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(8, (derived ? FLAG_DERIVED_COLUMNS : 0) | (gridIndex != null ? FLAG_GRID : 0));
+        buffer.putInt(12, rowCount);
+        buffer.putLong(OFFSET_FILE_LENGTH, position);
+        if (gridIndex != null) {
+            buffer.putInt(OFFSET_AXIS_LENGTHS, gridIndex.occupancyAxis().length);
+            buffer.putInt(OFFSET_AXIS_LENGTHS + 4, gridIndex.consumptionAxis().length);
+            buffer.putInt(OFFSET_AXIS_LENGTHS + 8, gridIndex.pvAxis().length);
+            buffer.putInt(OFFSET_AXIS_LENGTHS + 12, gridIndex.batteryAxis().length);
+        }
+        for (int section = 0; section < SECTION_COUNT; section++) {
+            buffer.putInt(OFFSET_SECTIONS + section * Integer.BYTES, offsets[section]);
+        }
+
+        // Row columns
+        for (int row = 0; row < rowCount; row++) {
+            buffer.put(offsets[SECTION_OCCUPANCY] + row, McsColumnStore.toOccupancyByte(columns.occupancyDays(row)));
+            int rowOffset = row * Double.BYTES;
+            buffer.putDouble(offsets[SECTION_CONSUMPTION] + rowOffset, columns.annualConsumptionKwh(row));
+            buffer.putDouble(offsets[SECTION_PV] + rowOffset, columns.pvGenerationKwh(row));
+            buffer.putDouble(offsets[SECTION_BATTERY] + rowOffset, columns.batterySizeKwh(row));
+            buffer.putDouble(offsets[SECTION_PERCENTAGE] + rowOffset, columns.predictedSelfConsumptionPercentage(row));
+            if (derived) {
+                buffer.putDouble(offsets[SECTION_OCCUPANCY_NORMALIZED] + rowOffset, columns.occupancyDaysNormalized(row));
+                buffer.putDouble(offsets[SECTION_PV_RATIO] + rowOffset, columns.pvToConsumptionRatio(row));
+                buffer.putDouble(offsets[SECTION_BATTERY_RATIO] + rowOffset, columns.batteryToConsumptionRatio(row));
+            }
+        }
+
+        // Grid index
+        if (gridIndex != null) {
+            for (int cell = 0; cell < gridIndex.getCellCount(); cell++) {
+                buffer.putInt(offsets[SECTION_ROW_BY_CELL] + cell * Integer.BYTES, gridIndex.rowOfCell(cell));
+            }
+            int[] occupancyAxis = gridIndex.occupancyAxis();
+            for (int i = 0; i < occupancyAxis.length; i++) {
+                buffer.putInt(offsets[SECTION_OCCUPANCY_AXIS] + i * Integer.BYTES, occupancyAxis[i]);
+            }
+            putDoubles(buffer, offsets[SECTION_CONSUMPTION_AXIS], gridIndex.consumptionAxis());
+            putDoubles(buffer, offsets[SECTION_PV_AXIS], gridIndex.pvAxis());
+            putDoubles(buffer, offsets[SECTION_BATTERY_AXIS], gridIndex.batteryAxis());
+        }
+
+        buffer.putLong(OFFSET_CHECKSUM, checksum(buffer));
+
+        Path absolutePath = path.toAbsolutePath();
+        Path tempFile = Files.createTempFile(absolutePath.getParent(), absolutePath.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                buffer.clear();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(tempFile, absolutePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private static long place(int[] offsets, int section, long position, long length) {
+        offsets[section] = (int) position;
+        return align(position + length);
+    }
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    private static void putDoubles(ByteBuffer buffer, int offset, double[] values) {
+        for (int i = 0; i < values.length; i++) {
+            buffer.putDouble(offset + i * Double.BYTES, values[i]);
+        }
+    }
+
+    private static long checksum(ByteBuffer buffer) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(HEADER_SIZE, buffer.limit() - HEADER_SIZE));
+        return crc.getValue();
+    }
+
+    /**
+     * Returns true if the file exists and starts with the binary format's magic number.
+     */
+    public static boolean isBinaryFile(Path path) {
+        if (!Files.isRegularFile(path)) {
+            return false;
+        }
+        try (InputStream in = Files.newInputStream(path)) {
+            byte[] magic = in.readNBytes(Integer.BYTES);
+            return magic.length == Integer.BYTES
+                && ByteBuffer.wrap(magic).order(ByteOrder.LITTLE_ENDIAN).getInt() == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Memory-maps a binary file. Only the header and the grid index's shape are validated; the
+     * rows, and the grid index's entries, are read and bounds-checked on demand by lookups. Use {@link MappedDataset#verifyChecksum()} to check the
+     * full contents.
+     *
+     * @param path The binary file
+     * @return The mapped dataset
+     * @throws IOException if the file cannot be mapped or is not a valid binary MCS file
+     */
+    public static MappedDataset open(Path path) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a valid MCS binary file (size " + size + "): " + path);
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        ByteBuffer data = mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (data.getInt(0) != MAGIC) {
+            throw new IOException("Not an MCS binary file: " + path);
+        }
+        int version = data.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported MCS binary format version " + version + " (expected " + VERSION + "): " + path);
+        }
+        if (data.getLong(OFFSET_FILE_LENGTH) != data.limit()) {
+            throw new IOException("MCS binary file is truncated or has trailing data: " + path);
+        }
+
+        int flags = data.getInt(8);
+        int rowCount = data.getInt(12);
+        int[] offsets = new int[SECTION_COUNT];
+        for (int section = 0; section < SECTION_COUNT; section++) {
+            offsets[section] = data.getInt(OFFSET_SECTIONS + section * Integer.BYTES);
+        }
+
+        checkSection(data, offsets[SECTION_OCCUPANCY], rowCount, Byte.BYTES, path);
+        for (int section = SECTION_CONSUMPTION; section <= SECTION_PERCENTAGE; section++) {
+            checkSection(data, offsets[section], rowCount, Double.BYTES, path);
+        }
+        boolean derived = (flags & FLAG_DERIVED_COLUMNS) != 0;
+        if (derived) {
+            for (int section = SECTION_OCCUPANCY_NORMALIZED; section <= SECTION_BATTERY_RATIO; section++) {
+                checkSection(data, offsets[section], rowCount, Double.BYTES, path);
+            }
+        }
+
+        McsColumnStore columns = new MappedColumns(data, rowCount, offsets, derived);
+        McsGridIndex gridIndex = (flags & FLAG_GRID) != 0 ? readGridIndex(data, rowCount, offsets, path) : null;
+        return new MappedDataset(data, columns, gridIndex);
+    }
+
+    private static McsGridIndex readGridIndex(ByteBuffer data, int rowCount, int[] offsets, Path path) throws IOException {
+        int occupancyLength = data.getInt(OFFSET_AXIS_LENGTHS);
+        int consumptionLength = data.getInt(OFFSET_AXIS_LENGTHS + 4);
+        int pvLength = data.getInt(OFFSET_AXIS_LENGTHS + 8);
+        int batteryLength = data.getInt(OFFSET_AXIS_LENGTHS + 12);
+        long cellCount = (long) occupancyLength * consumptionLength * pvLength * batteryLength;
+        // An index is only saved for a complete grid, which has exactly one cell per row
+        if (occupancyLength <= 0 || consumptionLength <= 0 || pvLength <= 0 || batteryLength <= 0
+                || cellCount != rowCount) {
+            throw new IOException("Invalid grid dimensions in MCS binary file: " + path);
+        }
+
+        checkSection(data, offsets[SECTION_ROW_BY_CELL], (int) cellCount, Integer.BYTES, path);
+        checkSection(data, offsets[SECTION_OCCUPANCY_AXIS], occupancyLength, Integer.BYTES, path);
+        checkSection(data, offsets[SECTION_CONSUMPTION_AXIS], consumptionLength, Double.BYTES, path);
+        checkSection(data, offsets[SECTION_PV_AXIS], pvLength, Double.BYTES, path);
+        checkSection(data, offsets[SECTION_BATTERY_AXIS], batteryLength, Double.BYTES, path);
+
+        int[] occupancyAxis = new int[occupancyLength];
+        for (int i = 0; i < occupancyLength; i++) {
+            occupancyAxis[i] = data.getInt(offsets[SECTION_OCCUPANCY_AXIS] + i * Integer.BYTES);
+        }
+        IntBuffer rowByCell = data.slice(offsets[SECTION_ROW_BY_CELL], (int) cellCount * Integer.BYTES)
+            .order(ByteOrder.LITTLE_ENDIAN)
+            .asIntBuffer();
+        // Entries are bounds-checked as lookups read them, so opening does not walk the table
+        return McsGridIndex.fromAxes(
+            occupancyAxis,
+            getDoubles(data, offsets[SECTION_CONSUMPTION_AXIS], consumptionLength),
+            getDoubles(data, offsets[SECTION_PV_AXIS], pvLength),
+            getDoubles(data, offsets[SECTION_BATTERY_AXIS], batteryLength),
+            rowByCell
+        );
+    }
+
+    private static double[] getDoubles(ByteBuffer data, int offset, int length) {
+        double[] values = new double[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = data.getDouble(offset + i * Double.BYTES);
+        }
+        return values;
+    }
+
+    private static void checkSection(ByteBuffer data, int offset, int count, int width, Path path) throws IOException {
+        if (offset < HEADER_SIZE || count < 0 || (long) offset + (long) count * width > data.limit()) {
+            throw new IOException("Invalid section layout in MCS binary file: " + path);
+        }
+    }
+
+    /**
+     * Column store that reads each value from the mapped file on demand.
+     */
+    private static final class MappedColumns extends McsColumnStore {
+        private final ByteBuffer data;
+        private final int rowCount;
+        private final int occupancyOffset;
+        private final int consumptionOffset;
+        private final int pvOffset;
+        private final int batteryOffset;
+        private final int percentageOffset;
+        private final boolean derived;
+        private final int occupancyNormalizedOffset;
+        private final int pvRatioOffset;
+        private final int batteryRatioOffset;
+
+        MappedColumns(ByteBuffer data, int rowCount, int[] offsets, boolean derived) {
+            this.data = data;
+            this.rowCount = rowCount;
+            this.occupancyOffset = offsets[SECTION_OCCUPANCY];
+            this.consumptionOffset = offsets[SECTION_CONSUMPTION];
+            this.pvOffset = offsets[SECTION_PV];
+            this.batteryOffset = offsets[SECTION_BATTERY];
+            this.percentageOffset = offsets[SECTION_PERCENTAGE];
+            this.derived = derived;
+            this.occupancyNormalizedOffset = offsets[SECTION_OCCUPANCY_NORMALIZED];
+            this.pvRatioOffset = offsets[SECTION_PV_RATIO];
+            this.batteryRatioOffset = offsets[SECTION_BATTERY_RATIO];
+        }
+
+        private double doubleAt(int sectionOffset, int row) {
+            return data.getDouble(sectionOffset + Objects.checkIndex(row, rowCount) * Double.BYTES);
+        }
+
+        private double derivedAt(int sectionOffset, int row) {
+            if (!derived) {
+                throw derivedColumnsMissing();
+            }
+            return doubleAt(sectionOffset, row);
+        }
+
+        @Override
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        @Override
+        public int occupancyDays(int row) {
+            return data.get(occupancyOffset + Objects.checkIndex(row, rowCount));
+        }
+
+        @Override
+        public double annualConsumptionKwh(int row) {
+            return doubleAt(consumptionOffset, row);
+        }
+
+        @Override
+        public double pvGenerationKwh(int row) {
+            return doubleAt(pvOffset, row);
+        }
+
+        @Override
+        public double batterySizeKwh(int row) {
+            return doubleAt(batteryOffset, row);
+        }
+
+        @Override
+        public double predictedSelfConsumptionPercentage(int row) {
+            return doubleAt(percentageOffset, row);
+        }
+
+        @Override
+        public boolean hasDerivedColumns() {
+            return derived;
+        }
+
+        @Override
+        public double occupancyDaysNormalized(int row) {
+            return derivedAt(occupancyNormalizedOffset, row);
+        }
+
+        @Override
+        public double pvToConsumptionRatio(int row) {
+            return derivedAt(pvRatioOffset, row);
+        }
+
+        @Override
+        public double batteryToConsumptionRatio(int row) {
+            return derivedAt(batteryRatioOffset, row);
+        }
+
+        @Override
+        public long estimatedHeapBytes() {
+            return 0;
+        }
+    }
+}
@@ -1,14 +1,12 @@
 package com.example.roi.mcs;
 
 import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -16,12 +14,12 @@ import com.opencsv.CSVReader;
 import com.opencsv.exceptions.CsvException;
 
 /**
- * Utility class to convert large MCS CSV files into cached serialized objects
+ * Utility class to convert large MCS CSV files into a memory-mappable binary cache
  * for faster loading. This significantly improves application startup time
  * when dealing with large datasets (700K+ rows).
  * 
  * The converter reads the CSV file, parses each row into McsEntry objects,
- * and serializes the entire list to a binary file.
+ * and writes them as columns in the {@link McsBinaryFormat} layout.
  * 
  * Usage:
  * <pre>
@@ -32,7 +30,7 @@ import com.opencsv.exceptions.CsvException;
 public class McsCacheConverter {
     
     /**
-     * Converts a CSV file to a cached binary file containing serialized McsEntry objects.
+     * Converts a CSV file to a binary cache file in the {@link McsBinaryFormat} layout.
      *
      * @param csvPath Path to the input CSV file
      * @param cachePath Path to the output cache file
@@ -50,11 +48,7 @@ public class McsCacheConverter {
         
         System.out.println("Loaded " + entries.size() + " entries from CSV");
         
-        // Serialize the entries to a binary file
-        try (ObjectOutputStream oos = new ObjectOutputStream(
-                new BufferedOutputStream(new FileOutputStream(cachePath)))) {
-            oos.writeObject(entries);
-        }
+        McsBinaryFormat.write(entries, Path.of(cachePath));
         
         long endTime = System.currentTimeMillis();
         long durationMs = endTime - startTime;
@@ -90,9 +84,12 @@ public class McsCacheConverter {
             
             System.out.println("Total records in CSV: " + records.size());
             
-            // Skip header row (first row)
-            for (int i = 1; i < records.size(); i++) {
-                String[] record = records.get(i);
+            // Skip header row (first row). readAll returns a LinkedList, so iterate rather than index
+            int i = -1;
+            for (String[] record : records) {
+                if (++i == 0) {
+                    continue;
+                }
                 
                 if (record.length >= 8) {
                     try {
@@ -143,13 +140,16 @@ public class McsCacheConverter {
     }
     
     /**
-     * Loads cached MCS entries from a serialized binary file.
+     * Loads cached MCS entries from a legacy Java-serialized cache file.
+     * New caches are written in {@link McsBinaryFormat} and opened with {@link McsBinaryFormat#open};
+     * this is only kept so existing serialized caches can still be read.
      *
      * @param cachePath Path to the cache file
      * @return List of McsEntry objects
      * @throws IOException if file I/O operations fail
      * @throws ClassNotFoundException if deserialization fails
      */
+    @Deprecated
     @SuppressWarnings("unchecked")
     public List<McsEntry> loadFromCache(String cachePath) throws IOException, ClassNotFoundException {
         System.out.println("Loading MCS data from cache: " + cachePath);
@@ -211,10 +211,14 @@ public class McsCacheConverter {
             System.out.println("\nConversion successful!");
             System.out.println("You can now use the cache file with McsLookup for faster loading.");
             
-            // Test loading the cache to verify it works
+            // Test mapping the cache and verify its checksum
             System.out.println("\nTesting cache file...");
-            List<McsEntry> testEntries = converter.loadFromCache(cachePath);
-            System.out.println("Cache test successful! Loaded " + testEntries.size() + " entries.");
+            McsBinaryFormat.MappedDataset dataset = McsBinaryFormat.open(Path.of(cachePath));
+            if (!dataset.verifyChecksum()) {
+                throw new IOException("Checksum mismatch in " + cachePath);
+            }
+            System.out.println("Cache test successful! Mapped " + dataset.getColumns().getRowCount() + " entries"
+                + (dataset.getGridIndex() != null ? " with grid index." : "."));
             
         } catch (Exception e) {
             System.err.println("Conversion failed: " + e.getMessage());
@@ -1,55 +1,42 @@
 package com.example.roi.mcs;
 
 import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.util.ArrayList;
+import java.nio.file.Path;
 import java.util.List;
 
-import com.opencsv.CSVReader;
-import com.opencsv.exceptions.CsvValidationException;
-
 /**
- * Memory-optimized version of McsCacheConverter that processes large CSV files
- * in chunks to avoid OutOfMemoryError issues with very large datasets (700K+ rows).
+ * Faster, memory-optimized version of McsCacheConverter for large CSV files (700K+ rows).
  * 
- * This version reads and processes the CSV file incrementally rather than loading
- * all records into memory at once.
+ * The CSV is parsed by {@link McsParallelCsvReader}, which splits the file into byte
+ * ranges and parses them on all cores straight into primitive columns, so no per-row
+ * objects or intermediate record lists are created. The columns are then written in the
+ * {@link McsBinaryFormat} layout together with the grid index.
  */
 public class McsCacheConverterOptimized {
     
-    private static final int CHUNK_SIZE = 10000; // Process 10K rows at a time
-    
     /**
-     * Converts a CSV file to a cached binary file containing serialized McsEntry objects.
-     * Uses memory-efficient streaming approach.
+     * Converts a CSV file to a binary cache file in the {@link McsBinaryFormat} layout.
      *
      * @param csvPath Path to the input CSV file
      * @param cachePath Path to the output cache file
      * @throws IOException if file I/O operations fail
      */
-    public void convertCsvToCache(String csvPath, String cachePath) throws IOException, CsvValidationException {
-        System.out.println("Starting memory-optimized conversion from CSV to cache...");
+    public void convertCsvToCache(String csvPath, String cachePath) throws IOException {
+        System.out.println("Starting parallel conversion from CSV to cache...");
         System.out.println("Input CSV: " + csvPath);
         System.out.println("Output cache: " + cachePath);
         
         long startTime = System.currentTimeMillis();
         
-        List<McsEntry> allEntries = loadFromCsvOptimized(csvPath);
+        McsColumnStore columns = loadColumnsFromCsv(csvPath);
         
-        System.out.println("Loaded " + allEntries.size() + " entries from CSV");
+        System.out.println("Loaded " + columns.getRowCount() + " entries from CSV");
         
-        // Serialize the entries to a binary file
-        try (ObjectOutputStream oos = new ObjectOutputStream(
-                new BufferedOutputStream(new FileOutputStream(cachePath)))) {
-            oos.writeObject(allEntries);
-        }
+        McsBinaryFormat.write(columns, McsGridIndex.detect(columns), Path.of(cachePath));
         
         long endTime = System.currentTimeMillis();
         long durationMs = endTime - startTime;
@@ -68,89 +55,21 @@ public class McsCacheConverterOptimized {
     }
     
     /**
-     * Memory-optimized CSV loading that processes the file in chunks.
+     * Parses a CSV file into columns (including the derived columns) on all available cores.
+     *
+     * @param csvPath Path to the CSV file
+     * @return The populated column store
+     * @throws IOException if the file cannot be read
      */
-    private List<McsEntry> loadFromCsvOptimized(String csvPath) throws IOException, CsvValidationException {
-        List<McsEntry> allEntries = new ArrayList<>();
-        int skipCount = 0;
-        int processedCount = 0;
-        
-        System.out.println("Processing CSV file in chunks of " + CHUNK_SIZE + " rows...");
-        
-        try (CSVReader reader = new CSVReader(new FileReader(csvPath))) {
-            // Skip header row
-            reader.readNext();
-            
-            String[] record;
-            List<McsEntry> chunk = new ArrayList<>(CHUNK_SIZE);
-            
-            while ((record = reader.readNext()) != null) {
-                if (record.length >= 8) {
-                    try {
-                        int occupancyDays = Integer.parseInt(record[0].trim());
-                        double occupancyDaysNormalized = Double.parseDouble(record[1].trim());
-                        double annualConsumptionKwh = Double.parseDouble(record[2].trim());
-                        double pvGenerationKwh = Double.parseDouble(record[3].trim());
-                        double batterySizeKwh = Double.parseDouble(record[4].trim());
-                        double predictedSelfConsumptionPercentage = Double.parseDouble(record[5].trim());
-                        double pvToConsumptionRatio = Double.parseDouble(record[6].trim());
-                        double batteryToConsumptionRatio = Double.parseDouble(record[7].trim());
-                        
-                        chunk.add(new McsEntry(
-                            occupancyDays, occupancyDaysNormalized,
-                            annualConsumptionKwh, pvGenerationKwh,
-                            batterySizeKwh, predictedSelfConsumptionPercentage,
-                            pvToConsumptionRatio, batteryToConsumptionRatio
-                        ));
-                        
-                        processedCount++;
-                        
-                        // When chunk is full, add to main list and clear chunk
-                        if (chunk.size() >= CHUNK_SIZE) {
-                            allEntries.addAll(chunk);
-                            chunk.clear();
-                            
-                            System.out.println("Processed " + processedCount + " entries...");
-                            
-                            // Suggest garbage collection to free memory
-                            if (processedCount % (CHUNK_SIZE * 5) == 0) {
-                                System.gc();
-                            }
-                        }
-                        
-                    } catch (NumberFormatException e) {
-                        skipCount++;
-                        if (skipCount <= 10) { // Only log first 10 errors to avoid spam
-                            System.err.println("Skipping invalid row " + (processedCount + skipCount) + ": " + String.join(",", record));
-                            System.err.println("Error: " + e.getMessage());
-                        }
-                    }
-                } else {
-                    skipCount++;
-                    if (skipCount <= 10) {
-                        System.err.println("Skipping incomplete row " + (processedCount + skipCount) + " (has " + record.length + " columns, expected 8)");
-                    }
-                }
-            }
-            
-            // Add any remaining entries in the last chunk
-            if (!chunk.isEmpty()) {
-                allEntries.addAll(chunk);
-            }
-        }
-        
-        if (skipCount > 0) {
-            System.out.println("Skipped " + skipCount + " invalid/incomplete rows");
-        }
-        
-        System.out.println("Final total: " + allEntries.size() + " entries loaded");
-        
-        return allEntries;
+    public McsColumnStore loadColumnsFromCsv(String csvPath) throws IOException {
+        return McsParallelCsvReader.read(Path.of(csvPath), true);
     }
     
     /**
-     * Loads cached MCS entries from a serialized binary file.
+     * Loads cached MCS entries from a legacy Java-serialized cache file.
+     * New caches are written in {@link McsBinaryFormat} and opened with {@link McsBinaryFormat#open}.
      */
+    @Deprecated
     @SuppressWarnings("unchecked")
     public List<McsEntry> loadFromCache(String cachePath) throws IOException, ClassNotFoundException {
         System.out.println("Loading MCS data from cache: " + cachePath);
@@ -199,10 +118,11 @@ public class McsCacheConverterOptimized {
         System.out.println("MCS Cache Converter (Memory Optimized)");
         System.out.println("=====================================");
         
-        // Print memory info
+        // Print memory and CPU info
         Runtime runtime = Runtime.getRuntime();
         long maxMemory = runtime.maxMemory();
         System.out.println("Max memory available: " + (maxMemory / 1024 / 1024) + " MB");
+        System.out.println("Processors available: " + runtime.availableProcessors());
         
         McsCacheConverterOptimized converter = new McsCacheConverterOptimized();
         
@@ -211,10 +131,13 @@ public class McsCacheConverterOptimized {
             System.out.println("\nConversion successful!");
             System.out.println("You can now use the cache file with McsLookup for faster loading.");
             
-            // Test loading the cache to verify it works
+            // Test mapping the cache and verify its checksum
             System.out.println("\nTesting cache file...");
-            List<McsEntry> testEntries = converter.loadFromCache(cachePath);
-            System.out.println("Cache test successful! Loaded " + testEntries.size() + " entries.");
+            McsBinaryFormat.MappedDataset dataset = McsBinaryFormat.open(Path.of(cachePath));
+            if (!dataset.verifyChecksum()) {
+                throw new IOException("Checksum mismatch in " + cachePath);
+            }
+            System.out.println("Cache test successful! Mapped " + dataset.getColumns().getRowCount() + " entries.");
             
         } catch (Exception e) {
             System.err.println("Conversion failed: " + e.getMessage());
@@ -0,0 +1,222 @@
+package com.example.roi.mcs;
+
+import java.util.List;
+
+/**
+ * Column-oriented storage for MCS lookup data.
+ *
+ * Each column is held on its own rather than as one object per row. Stores built with
+ * {@link #fromEntries} keep each column in a primitive array (occupancy as {@code byte[]},
+ * everything else as {@code double[]}), which takes roughly half the heap of a
+ * {@code List<Entry>} and lets the linear scan walk contiguous memory. Stores opened with
+ * {@link McsBinaryFormat#open} read the same columns straight from a memory-mapped file.
+ *
+ * Only the columns the lookup reads are kept by default. The derived columns
+ * (normalised occupancy and the PV/battery to consumption ratios) are dropped unless
+ * the caller asks for them when the store is built.
+ */
+public abstract class McsColumnStore {
+
+    McsColumnStore() {
+    }
+
+    /**
+     * Builds a heap column store from MCS entries, preserving their order.
+     *
+     * @param entries The entries to copy
+     * @param includeDerivedColumns Whether to keep the columns the lookup does not read
+     * @return The populated column store
+     */
+    public static McsColumnStore fromEntries(List<McsEntry> entries, boolean includeDerivedColumns) {
+        int rowCount = entries.size();
+        byte[] occupancyDays = new byte[rowCount];
+        double[] consumption = new double[rowCount];
+        double[] pv = new double[rowCount];
+        double[] battery = new double[rowCount];
+        double[] percentage = new double[rowCount];
+        double[] occupancyNormalized = includeDerivedColumns ? new double[rowCount] : null;
+        double[] pvRatio = includeDerivedColumns ? new double[rowCount] : null;
+        double[] batteryRatio = includeDerivedColumns ? new double[rowCount] : null;
+
+        for (int row = 0; row < rowCount; row++) {
+            McsEntry entry = entries.get(row);
+            occupancyDays[row] = toOccupancyByte(entry.occupancyDays);
+            consumption[row] = entry.annualConsumptionKwh;
+            pv[row] = entry.pvGenerationKwh;
+            battery[row] = entry.batterySizeKwh;
+            percentage[row] = entry.predictedSelfConsumptionPercentage;
+            if (includeDerivedColumns) {
+                occupancyNormalized[row] = entry.occupancyDaysNormalized;
+                pvRatio[row] = entry.pvToConsumptionRatio;
+                batteryRatio[row] = entry.batteryToConsumptionRatio;
+            }
+        }
+
+        return new HeapColumns(occupancyDays, consumption, pv, battery, percentage,
+            occupancyNormalized, pvRatio, batteryRatio);
+    }
+
+    /**
+     * Wraps already-populated column arrays (used by {@link McsParallelCsvReader}).
+     * The derived columns are either all present or all null.
+     */
+    static McsColumnStore fromColumns(byte[] occupancyDays, double[] annualConsumptionKwh, double[] pvGenerationKwh,
+                                      double[] batterySizeKwh, double[] predictedSelfConsumptionPercentage,
+                                      double[] occupancyDaysNormalized, double[] pvToConsumptionRatio,
+                                      double[] batteryToConsumptionRatio) {
+        return new HeapColumns(occupancyDays, annualConsumptionKwh, pvGenerationKwh, batterySizeKwh,
+            predictedSelfConsumptionPercentage, occupancyDaysNormalized, pvToConsumptionRatio, batteryToConsumptionRatio);
+    }
+
+    /**
+     * Narrows an occupancy value to the byte column, rejecting values that would not round-trip.
+     */
+    static byte toOccupancyByte(int occupancyDays) {
+        if (occupancyDays < Byte.MIN_VALUE || occupancyDays > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Occupancy days out of storable range: " + occupancyDays);
+        }
+        return (byte) occupancyDays;
+    }
+
+    public abstract int getRowCount();
+
+    public abstract int occupancyDays(int row);
+
+    public abstract double annualConsumptionKwh(int row);
+
+    public abstract double pvGenerationKwh(int row);
+
+    public abstract double batterySizeKwh(int row);
+
+    public abstract double predictedSelfConsumptionPercentage(int row);
+
+    /**
+     * Returns true if the derived columns are available.
+     */
+    public abstract boolean hasDerivedColumns();
+
+    public abstract double occupancyDaysNormalized(int row);
+
+    public abstract double pvToConsumptionRatio(int row);
+
+    public abstract double batteryToConsumptionRatio(int row);
+
+    /**
+     * Approximate heap used by the columns, for logging. Memory-mapped stores report 0.
+     */
+    public abstract long estimatedHeapBytes();
+
+    /**
+     * Gets a store sharing these columns without the derived ones, so they can be garbage collected.
+     * Stores that hold nothing on the heap return themselves.
+     */
+    McsColumnStore withoutDerivedColumns() {
+        return this;
+    }
+
+    static IllegalStateException derivedColumnsMissing() {
+        return new IllegalStateException("Derived columns were not loaded; build the store with includeDerivedColumns");
+    }
+
+    /**
+     * Column store backed by primitive arrays on the heap.
+     */
+    private static final class HeapColumns extends McsColumnStore {
+        private final byte[] occupancyDays;
+        private final double[] annualConsumptionKwh;
+        private final double[] pvGenerationKwh;
+        private final double[] batterySizeKwh;
+        private final double[] predictedSelfConsumptionPercentage;
+
+        /** Derived columns, null unless requested */
+        private final double[] occupancyDaysNormalized;
+        private final double[] pvToConsumptionRatio;
+        private final double[] batteryToConsumptionRatio;
+
+        HeapColumns(byte[] occupancyDays, double[] annualConsumptionKwh, double[] pvGenerationKwh,
+                    double[] batterySizeKwh, double[] predictedSelfConsumptionPercentage,
+                    double[] occupancyDaysNormalized, double[] pvToConsumptionRatio,
+                    double[] batteryToConsumptionRatio) {
+            this.occupancyDays = occupancyDays;
+            this.annualConsumptionKwh = annualConsumptionKwh;
+            this.pvGenerationKwh = pvGenerationKwh;
+            this.batterySizeKwh = batterySizeKwh;
+            this.predictedSelfConsumptionPercentage = predictedSelfConsumptionPercentage;
+            this.occupancyDaysNormalized = occupancyDaysNormalized;
+            this.pvToConsumptionRatio = pvToConsumptionRatio;
+            this.batteryToConsumptionRatio = batteryToConsumptionRatio;
+        }
+
+        @Override
+        public int getRowCount() {
+            return occupancyDays.length;
+        }
+
+        @Override
+        public int occupancyDays(int row) {
+            return occupancyDays[row];
+        }
+
+        @Override
+        public double annualConsumptionKwh(int row) {
+            return annualConsumptionKwh[row];
+        }
+
+        @Override
+        public double pvGenerationKwh(int row) {
+            return pvGenerationKwh[row];
+        }
+
+        @Override
+        public double batterySizeKwh(int row) {
+            return batterySizeKwh[row];
+        }
+
+        @Override
+        public double predictedSelfConsumptionPercentage(int row) {
+            return predictedSelfConsumptionPercentage[row];
+        }
+
+        @Override
+        public boolean hasDerivedColumns() {
+            return pvToConsumptionRatio != null;
+        }
+
+        @Override
+        public double occupancyDaysNormalized(int row) {
+            return derivedColumn(occupancyDaysNormalized)[row];
+        }
+
+        @Override
+        public double pvToConsumptionRatio(int row) {
+            return derivedColumn(pvToConsumptionRatio)[row];
+        }
+
+        @Override
+        public double batteryToConsumptionRatio(int row) {
+            return derivedColumn(batteryToConsumptionRatio)[row];
+        }
+
+        @Override
+        McsColumnStore withoutDerivedColumns() {
+            if (!hasDerivedColumns()) {
+                return this;
+            }
+            return new HeapColumns(occupancyDays, annualConsumptionKwh, pvGenerationKwh, batterySizeKwh,
+                predictedSelfConsumptionPercentage, null, null, null);
+        }
+
+        private static double[] derivedColumn(double[] column) {
+            if (column == null) {
+                throw derivedColumnsMissing();
+            }
+            return column;
+        }
+
+        @Override
+        public long estimatedHeapBytes() {
+            int doubleColumns = hasDerivedColumns() ? 7 : 4;
+            return (long) getRowCount() * (Byte.BYTES + doubleColumns * Double.BYTES);
+        }
+    }
+}
@@ -0,0 +1,433 @@
+package com.example.roi.mcs;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Index over an MCS dataset whose rows form a complete, regular grid
+ * (every combination of occupancy, consumption, PV generation and battery size
+ * present exactly once, with evenly spaced numeric axes).
+ *
+ * The synthetic dataset produced by {@code generate_synthetic_dataset.py} has this
+ * shape: occupancy 1-5, consumption step 500, PV step 100 and battery step 1.
+ * For such data the closest match can be found by computing the grid position of
+ * the query and only scoring the handful of neighbouring cells, instead of scanning
+ * every row.
+ *
+ * The result is identical to the linear scan in {@link McsLookupOptimized}: candidates
+ * are scored with the same similarity function, and ties are broken on the original
+ * row number so the earliest row wins, exactly as the scan does. When the index cannot
+ * guarantee that (a dimension where every candidate has zero similarity, or NaN input),
+ * {@link #findBestRow} returns -1 and the caller falls back to the scan.
+ */
+public final class McsGridIndex {
+
+    /** Relative tolerance used when checking that an axis is evenly spaced */
+    private static final double STEP_TOLERANCE = 1e-6;
+
+    private final int[] occupancyAxis;
+    private final Axis consumptionAxis;
+    private final Axis pvAxis;
+    private final Axis batteryAxis;
+
+    /** Original row number for each grid cell, in occupancy/consumption/pv/battery order */
+    private final IntBuffer rowByCell;
+
+    private McsGridIndex(int[] occupancyAxis, Axis consumptionAxis, Axis pvAxis, Axis batteryAxis, IntBuffer rowByCell) {
+        this.occupancyAxis = occupancyAxis;
+        this.consumptionAxis = consumptionAxis;
+        this.pvAxis = pvAxis;
+        this.batteryAxis = batteryAxis;
+        this.rowByCell = rowByCell;
+    }
+
+    /**
+     * One evenly spaced numeric axis of the grid.
+     */
+    private static final class Axis {
+        final double[] values;
+        final double min;
+        final double step;
+
+        Axis(double[] values, double min, double step) {
+            this.values = values;
+            this.min = min;
+            this.step = step;
+        }
+
+        /**
+         * Builds an axis from sorted distinct values, or returns null if they are not evenly spaced.
+         */
+        static Axis of(double[] values) {
+            for (double value : values) {
+                if (!Double.isFinite(value)) {
+                    return null;
+                }
+            }
+            if (values.length == 1) {
+                return new Axis(values, values[0], 0.0);
+            }
+
+            double min = values[0];
+            double step = (values[values.length - 1] - min) / (values.length - 1);
+            for (int i = 0; i < values.length; i++) {
+                if (Math.abs(values[i] - (min + i * step)) > step * STEP_TOLERANCE) {
+                    return null;
+                }
+            }
+            return new Axis(values, min, step);
+        }
+
+        /** First index of the candidate window around {@code value} */
+        int windowStart(double value) {
+            if (values.length == 1) {
+                return 0;
+            }
+            return clamp(position(value) - 1);
+        }
+
+        /** Last index (inclusive) of the candidate window around {@code value} */
+        int windowEnd(double value) {
+            if (values.length == 1) {
+                return 0;
+            }
+            return clamp(position(value) + 2);
+        }
+
+        /** Grid index at or below {@code value}, bounded so the window arithmetic cannot overflow */
+        private int position(double value) {
+            double position = Math.floor((value - min) / step);
+            return (int) Math.max(-1.0, Math.min(values.length, position));
+        }
+
+        private int clamp(int index) {
+            return Math.max(0, Math.min(values.length - 1, index));
+        }
+
+        int indexOf(double value) {
+            return Arrays.binarySearch(values, value);
+        }
+
+        /** Lower index of the interpolation interval containing {@code value}, clamped to the axis */
+        int lowerIndex(double value) {
+            if (values.length == 1) {
+                return 0;
+            }
+            return Math.max(0, Math.min(values.length - 2, position(value)));
+        }
+
+        /** Position of {@code value} between {@code values[lower]} and the next value, clamped to [0, 1] */
+        double fraction(int lower, double value) {
+            if (values.length == 1) {
+                return 0.0;
+            }
+            return Math.max(0.0, Math.min(1.0, (value - values[lower]) / step));
+        }
+    }
+
+    /**
+     * Detects whether the given rows form a complete regular grid and builds an index if so.
+     *
+     * @param columns The loaded columns, in their original (file) order
+     * @return The grid index, or null if the data is not gridded
+     */
+    public static McsGridIndex detect(McsColumnStore columns) {
+        int rowCount = columns.getRowCount();
+        if (rowCount == 0) {
+            return null;
+        }
+
+        byte[] occupancy = new byte[rowCount];
+        double[] consumption = new double[rowCount];
+        double[] pv = new double[rowCount];
+        double[] battery = new double[rowCount];
+        for (int row = 0; row < rowCount; row++) {
+            occupancy[row] = (byte) columns.occupancyDays(row);
+            consumption[row] = columns.annualConsumptionKwh(row);
+            pv[row] = columns.pvGenerationKwh(row);
+            battery[row] = columns.batterySizeKwh(row);
+        }
+
+        int[] occupancyAxis = distinctSorted(occupancy);
+        Axis consumptionAxis = Axis.of(distinctSorted(consumption));
+        Axis pvAxis = Axis.of(distinctSorted(pv));
+        Axis batteryAxis = Axis.of(distinctSorted(battery));
+        if (consumptionAxis == null || pvAxis == null || batteryAxis == null) {
+            return null;
+        }
+
+        long cellCount = (long) occupancyAxis.length * consumptionAxis.values.length
+                * pvAxis.values.length * batteryAxis.values.length;
+        if (cellCount != rowCount) {
+            return null;
+        }
+
+        int[] rowByCell = new int[rowCount];
+        McsGridIndex index = new McsGridIndex(occupancyAxis, consumptionAxis, pvAxis, batteryAxis, IntBuffer.wrap(rowByCell));
+        Arrays.fill(rowByCell, -1);
+        for (int row = 0; row < rowCount; row++) {
+            int cell = index.cellOf(
+                Arrays.binarySearch(occupancyAxis, occupancy[row]),
+                consumptionAxis.indexOf(consumption[row]),
+                pvAxis.indexOf(pv[row]),
+                batteryAxis.indexOf(battery[row])
+            );
+            if (rowByCell[cell] != -1) {
+                return null; // Duplicate combination, so not a complete grid
+            }
+            rowByCell[cell] = row;
+        }
+        return index;
+    }
+
+    /**
+     * Rebuilds an index from axes and a cell-to-row table saved alongside the data
+     * (see {@link McsBinaryFormat}), without re-reading the rows.
+     *
+     * @return The grid index, or null if the axes are not strictly ascending and evenly spaced
+     */
+    static McsGridIndex fromAxes(int[] occupancyAxis, double[] consumptionAxis, double[] pvAxis,
+                                 double[] batteryAxis, IntBuffer rowByCell) {
+        // The window search assumes ascending axes; a saved file cannot be trusted to have them
+        if (!isStrictlyAscending(occupancyAxis)
+                || !isStrictlyAscending(consumptionAxis) || !isStrictlyAscending(pvAxis) || !isStrictlyAscending(batteryAxis)) {
+            return null;
+        }
+        Axis consumption = Axis.of(consumptionAxis);
+        Axis pv = Axis.of(pvAxis);
+        Axis battery = Axis.of(batteryAxis);
+        if (consumption == null || pv == null || battery == null) {
+            return null;
+        }
+        long cellCount = (long) occupancyAxis.length * consumptionAxis.length * pvAxis.length * batteryAxis.length;
+        if (cellCount != rowByCell.limit()) {
+            return null;
+        }
+        return new McsGridIndex(occupancyAxis, consumption, pv, battery, rowByCell);
+    }
+
+    private static boolean isStrictlyAscending(int[] values) {
+        if (values.length == 0) {
+            return false;
+        }
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] <= values[i - 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isStrictlyAscending(double[] values) {
+        if (values.length == 0) {
+            return false;
+        }
+        for (int i = 1; i < values.length; i++) {
+            if (!(values[i] > values[i - 1])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    int[] occupancyAxis() {
+        return occupancyAxis;
+    }
+
+    double[] consumptionAxis() {
+        return consumptionAxis.values;
+    }
+
+    double[] pvAxis() {
+        return pvAxis.values;
+    }
+
+    double[] batteryAxis() {
+        return batteryAxis.values;
+    }
+
+    /**
+     * Gets the original row number stored for a cell, in occupancy/consumption/pv/battery order.
+     */
+    int rowOfCell(int cell) {
+        return rowByCell.get(cell);
+    }
+
+    /**
+     * Reads a cell's row for a lookup. A saved table is not walked when it is opened, so each
+     * entry is checked here instead: a complete grid has one cell per row, so a valid row is
+     * below the cell count.
+     *
+     * @throws IllegalStateException if the entry is not a valid row
+     */
+    private int lookupRow(int cell) {
+        int row = rowByCell.get(cell);
+        if (Integer.compareUnsigned(row, rowByCell.limit()) >= 0) {
+            throw new IllegalStateException("Corrupt MCS grid index: cell " + cell + " has row " + row);
+        }
+        return row;
+    }
+
+    int getCellCount() {
+        return rowByCell.limit();
+    }
+
+    private static int[] distinctSorted(byte[] column) {
+        boolean[] seen = new boolean[256];
+        for (byte value : column) {
+            seen[value - Byte.MIN_VALUE] = true;
+        }
+        int[] values = new int[256];
+        int count = 0;
+        for (int i = 0; i < seen.length; i++) {
+            if (seen[i]) {
+                values[count++] = i + Byte.MIN_VALUE;
+            }
+        }
+        return Arrays.copyOf(values, count);
+    }
+
+    private static double[] distinctSorted(double[] column) {
+        double[] sorted = column.clone();
+        Arrays.sort(sorted);
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (count == 0 || Double.compare(sorted[i], sorted[count - 1]) != 0) {
+                sorted[count++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, count);
+    }
+
+    private int cellOf(int occupancyIndex, int consumptionIndex, int pvIndex, int batteryIndex) {
+        return ((occupancyIndex * consumptionAxis.values.length + consumptionIndex)
+                * pvAxis.values.length + pvIndex)
+                * batteryAxis.values.length + batteryIndex;
+    }
+
+    /**
+     * Finds the row the linear scan would return for the given (already validated) query.
+     *
+     * @return The original row number of the best match, or -1 if the caller must fall back to the scan
+     */
+    public int findBestRow(int occupancyDays, double annualConsumption, double pvGenKwh, double batteryKwh) {
+        if (Double.isNaN(annualConsumption) || Double.isNaN(pvGenKwh) || Double.isNaN(batteryKwh)) {
+            return -1;
+        }
+
+        // An occupancy missing from the grid scores 0 against every row, so all of them are candidates
+        int occupancyIndex = Arrays.binarySearch(occupancyAxis, occupancyDays);
+        int occupancyStart = occupancyIndex >= 0 ? occupancyIndex : 0;
+        int occupancyEnd = occupancyIndex >= 0 ? occupancyIndex : occupancyAxis.length - 1;
+
+        int consumptionStart = consumptionAxis.windowStart(annualConsumption);
+        int consumptionEnd = consumptionAxis.windowEnd(annualConsumption);
+        int pvStart = pvAxis.windowStart(pvGenKwh);
+        int pvEnd = pvAxis.windowEnd(pvGenKwh);
+        int batteryStart = batteryAxis.windowStart(batteryKwh);
+        int batteryEnd = batteryAxis.windowEnd(batteryKwh);
+
+        // If a dimension scores 0 across the whole window, rows outside it tie too and only a scan is exact
+        if (!hasPositiveSimilarity(consumptionAxis, consumptionStart, consumptionEnd, annualConsumption, McsLookupOptimized.MAX_CONSUMPTION)
+                || !hasPositiveSimilarity(pvAxis, pvStart, pvEnd, pvGenKwh, McsLookupOptimized.MAX_PV_GENERATION)
+                || !hasPositiveSimilarity(batteryAxis, batteryStart, batteryEnd, batteryKwh, McsLookupOptimized.MAX_BATTERY_SIZE)) {
+            return -1;
+        }
+
+        double bestSimilarity = -1;
+        int bestRow = -1;
+        for (int o = occupancyStart; o <= occupancyEnd; o++) {
+            for (int c = consumptionStart; c <= consumptionEnd; c++) {
+                for (int p = pvStart; p <= pvEnd; p++) {
+                    for (int b = batteryStart; b <= batteryEnd; b++) {
+                        double similarity = McsLookupOptimized.calculateTotalSimilarity(
+                            occupancyAxis[o], consumptionAxis.values[c], pvAxis.values[p], batteryAxis.values[b],
+                            occupancyDays, annualConsumption, pvGenKwh, batteryKwh
+                        );
+                        int row = lookupRow(cellOf(o, c, p, b));
+                        if (similarity > bestSimilarity || (similarity == bestSimilarity && row < bestRow)) {
+                            bestSimilarity = similarity;
+                            bestRow = row;
+                        }
+                    }
+                }
+            }
+        }
+        return bestRow;
+    }
+
+    /**
+     * Interpolates the self-consumption percentage multilinearly between the 16 grid cells
+     * surrounding the query (two neighbours on each of the four axes). Queries beyond the
+     * edge of an axis are clamped to it; occupancy is interpolated by value like the others,
+     * so an occupancy on the grid reads exactly that slice.
+     *
+     * @param columns The columns the index was built over
+     * @return The interpolated percentage
+     */
+    public double interpolate(McsColumnStore columns, int occupancyDays, double annualConsumption,
+                              double pvGenKwh, double batteryKwh) {
+        int o0;
+        double to;
+        if (occupancyAxis.length == 1) {
+            o0 = 0;
+            to = 0.0;
+        } else {
+            int position = Arrays.binarySearch(occupancyAxis, occupancyDays);
+            o0 = position >= 0 ? position : -position - 2;
+            o0 = Math.max(0, Math.min(occupancyAxis.length - 2, o0));
+            to = Math.max(0.0, Math.min(1.0,
+                (double) (occupancyDays - occupancyAxis[o0]) / (occupancyAxis[o0 + 1] - occupancyAxis[o0])));
+        }
+        int c0 = consumptionAxis.lowerIndex(annualConsumption);
+        double tc = consumptionAxis.fraction(c0, annualConsumption);
+        int p0 = pvAxis.lowerIndex(pvGenKwh);
+        double tp = pvAxis.fraction(p0, pvGenKwh);
+        int b0 = batteryAxis.lowerIndex(batteryKwh);
+        double tb = batteryAxis.fraction(b0, batteryKwh);
+
+        // Single-value axes have no upper neighbour; their weight is 0 so reuse the lower cell
+        int o1 = Math.min(o0 + 1, occupancyAxis.length - 1);
+        int c1 = Math.min(c0 + 1, consumptionAxis.values.length - 1);
+        int p1 = Math.min(p0 + 1, pvAxis.values.length - 1);
+        int b1 = Math.min(b0 + 1, batteryAxis.values.length - 1);
+
+        double result = 0.0;
+        for (int corner = 0; corner < 16; corner++) {
+            boolean upperO = (corner & 8) != 0;
+            boolean upperC = (corner & 4) != 0;
+            boolean upperP = (corner & 2) != 0;
+            boolean upperB = (corner & 1) != 0;
+            double weight = (upperO ? to : 1.0 - to)
+                * (upperC ? tc : 1.0 - tc)
+                * (upperP ? tp : 1.0 - tp)
+                * (upperB ? tb : 1.0 - tb);
+            if (weight == 0.0) {
+                continue;
+            }
+            int row = lookupRow(cellOf(upperO ? o1 : o0, upperC ? c1 : c0, upperP ? p1 : p0, upperB ? b1 : b0));
+            result += weight * columns.predictedSelfConsumptionPercentage(row);
+        }
+        return result;
+    }
+
+    private static boolean hasPositiveSimilarity(Axis axis, int start, int end, double value, double maxDifference) {
+        for (int i = start; i <= end; i++) {
+            if (McsLookupOptimized.calculateNumericSimilarity(axis.values[i], value, maxDifference) > 0.0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets a short description of the detected grid dimensions, for logging.
+     */
+    public String describe() {
+        return String.format("%d occupancy x %d consumption (step %.1f) x %d PV (step %.1f) x %d battery (step %.1f)",
+            occupancyAxis.length,
+            consumptionAxis.values.length, consumptionAxis.step,
+            pvAxis.values.length, pvAxis.step,
+            batteryAxis.values.length, batteryAxis.step);
+    }
+}
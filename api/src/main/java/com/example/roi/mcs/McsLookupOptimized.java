@@ -1,25 +1,43 @@
 package com.example.roi.mcs;
 
 import java.io.IOException;
-import java.util.List;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.opencsv.exceptions.CsvException;
 
 /**
- * Optimized McsLookup that uses cached serialized objects for significantly faster loading.
- * This class automatically tries to use a cached binary file first, falling back to CSV
- * if the cache is not available or invalid.
+ * Optimized McsLookup that uses a memory-mapped binary cache for significantly faster loading.
+ * This class automatically tries to map a {@link McsBinaryFormat} cache file first, then a
+ * legacy serialized cache, falling back to CSV if neither is available or valid. After a
+ * fallback load the binary cache is (re)written for the next start.
  * 
- * Performance improvements:
- * - CSV loading: ~5-10 seconds for 700K+ rows
- * - Cache loading: ~100-500 milliseconds for the same data
+ * Load times for the 742,140-row synthetic dataset (McsCacheLoadBenchmark, single core):
+ * - CSV through opencsv: ~1.9 seconds
+ * - Legacy serialized cache: ~260 milliseconds
+ * - Binary cache: ~1 millisecond including this constructor, independent of row count,
+ *   with no heap used for rows
  * 
  * The lookup algorithm and API remain identical to the original McsLookup class.
+ * When the data forms a complete regular grid (as the synthetic dataset does), a
+ * {@link McsGridIndex} is built at load time so each lookup only scores the cells
+ * around the query instead of scanning every row; results are identical either way.
+ * On gridded data {@link #lookupInterpolated} offers a smooth alternative to the
+ * nearest-row lookup.
  */
 public class McsLookupOptimized {
+
+    private static final Logger logger = LoggerFactory.getLogger(McsLookupOptimized.class);
     
     /**
      * Represents a single entry in the lookup table with all parameters and percentage value.
+     * Loaded data is held in a {@link McsColumnStore}; this class is kept for callers that
+     * work with individual rows.
      */
     public static class Entry {
         public final int occupancyDays;
@@ -87,9 +105,27 @@ public class McsLookupOptimized {
         }
     }
 
-    /** The list of all entries loaded from cache or CSV */
-    private final List<Entry> entries;
+    /** Column store holding all entries loaded from cache or CSV */
+    private final McsColumnStore columns;
+
+    /** Grid index over the entries, or null if the data is not gridded */
+    private final McsGridIndex gridIndex;
     
+    /** Queries per parallel task when the grid index serves a batch */
+    private static final int BATCH_GRID_CHUNK = 1024;
+
+    /** Queries per parallel task when a batch is scanned; each task makes one pass over the rows */
+    private static final int BATCH_SCAN_CHUNK = 64;
+
+    /** Rows scored against every query of a scan task before moving on, sized to stay in cache */
+    private static final int BATCH_SCAN_BLOCK = 2048;
+
+    /**
+     * Rows whose occupancy differs from the query score at most 0.3 + 0.2 + 0.1, so once a query's
+     * best similarity exceeds this (with margin for rounding) they cannot replace it
+     */
+    private static final double OCCUPANCY_MISMATCH_BOUND = 0.6 + 1e-9;
+
     /** Minimum allowed values for parameters */
     private static final int MIN_OCCUPANCY_DAYS = 1;
     private static final double MIN_CONSUMPTION = 0.0;
@@ -98,9 +134,9 @@ public class McsLookupOptimized {
     
     /** Maximum allowed values for parameters */
     private static final int MAX_OCCUPANCY_DAYS = 5;
-    private static final double MAX_CONSUMPTION = 20000.0;  // 20,000 kWh
-    private static final double MAX_PV_GENERATION = 10000.0; // 10,000 kWh
-    private static final double MAX_BATTERY_SIZE = 50.0;    // 50 kWh
+    static final double MAX_CONSUMPTION = 20000.0;  // 20,000 kWh
+    static final double MAX_PV_GENERATION = 10000.0; // 10,000 kWh
+    static final double MAX_BATTERY_SIZE = 50.0;    // 50 kWh
 
     /**
      * Creates a new McsLookupOptimized instance, automatically choosing the fastest loading method.
@@ -111,7 +147,7 @@ public class McsLookupOptimized {
      * @throws CsvException if CSV parsing fails (only when cache is not available)
      */
     public McsLookupOptimized(String basePath) throws IOException, CsvException {
-        this.entries = loadEntries(basePath);
+        this(basePath + ".cache", basePath + ".csv");
     }
     
     /**
@@ -123,69 +159,108 @@ public class McsLookupOptimized {
      * @throws CsvException if CSV parsing fails (only when cache is not available)
      */
     public McsLookupOptimized(String cachePath, String csvPath) throws IOException, CsvException {
-        this.entries = loadEntriesWithExplicitPaths(cachePath, csvPath);
+        this(cachePath, csvPath, false);
     }
 
     /**
-     * Loads entries using the optimal method (cache first, CSV fallback).
+     * Creates a lookup with explicit paths, optionally keeping the derived columns
+     * (normalised occupancy and the PV/battery ratios) that the lookup itself never reads.
+     *
+     * @param cachePath Path to the cache file
+     * @param csvPath Path to the CSV file (fallback)
+     * @param includeDerivedColumns Whether to keep the derived columns in memory
+     * @throws IOException if neither cache nor CSV can be read
+     * @throws CsvException if CSV parsing fails (only when cache is not available)
      */
-    private List<Entry> loadEntries(String basePath) throws IOException, CsvException {
-        String cachePath = basePath + ".cache";
-        String csvPath = basePath + ".csv";
-        
-        return loadEntriesWithExplicitPaths(cachePath, csvPath);
+    public McsLookupOptimized(String cachePath, String csvPath, boolean includeDerivedColumns) throws IOException, CsvException {
+        McsBinaryFormat.MappedDataset mapped = mapBinaryCache(cachePath, includeDerivedColumns);
+        if (mapped != null) {
+            this.columns = mapped.getColumns();
+            this.gridIndex = mapped.getGridIndex();
+        } else {
+            // Load with the derived columns so the binary cache written for next time is complete
+            McsColumnStore loaded = loadColumns(cachePath, csvPath);
+            this.gridIndex = buildGridIndex(loaded);
+            writeBinaryCache(loaded, gridIndex, cachePath);
+            this.columns = includeDerivedColumns ? loaded : loaded.withoutDerivedColumns();
+            logger.info("Holding {} entries in columns ({} MB)",
+                columns.getRowCount(), columns.estimatedHeapBytes() / (1024 * 1024));
+        }
+    }
+
+    /**
+     * Creates a lookup over a column store that is already in memory (used by tests and benchmarks).
+     *
+     * @param columns The loaded columns
+     * @param useGridIndex Whether to build a grid index; false forces the linear scan
+     */
+    McsLookupOptimized(McsColumnStore columns, boolean useGridIndex) {
+        this.columns = columns;
+        this.gridIndex = useGridIndex ? buildGridIndex(columns) : null;
+    }
+
+    /**
+     * Builds the grid index if the entries form a regular grid.
+     */
+    private static McsGridIndex buildGridIndex(McsColumnStore columns) {
+        long startTime = System.currentTimeMillis();
+        McsGridIndex index = McsGridIndex.detect(columns);
+        if (index != null) {
+            logger.info("Detected regular MCS grid ({}) in {}ms, using indexed lookups",
+                index.describe(), System.currentTimeMillis() - startTime);
+        } else {
+            logger.info("MCS data is not a regular grid, using linear scan lookups");
+        }
+        return index;
     }
     
     /**
-     * Loads entries with explicit cache and CSV paths.
+     * Memory-maps the cache if it is in {@link McsBinaryFormat}, reusing the grid index stored with it.
+     *
+     * @return The mapped dataset, or null if the cache is missing, in another format or unusable
      */
-    private List<Entry> loadEntriesWithExplicitPaths(String cachePath, String csvPath) throws IOException, CsvException {
-        McsCacheConverter converter = new McsCacheConverter();
-        
-        // Try to load from cache first
+    private static McsBinaryFormat.MappedDataset mapBinaryCache(String cachePath, boolean includeDerivedColumns) {
+        Path path = Path.of(cachePath);
+        if (!McsBinaryFormat.isBinaryFile(path)) {
+            return null;
+        }
         try {
-            System.out.println("Attempting to load MCS data from cache...");
-            List<McsEntry> mcsEntries = converter.loadFromCache(cachePath);
-            
-            // Convert McsEntry objects to Entry objects
-            List<Entry> entries = new java.util.ArrayList<>();
-            for (McsEntry mcsEntry : mcsEntries) {
-                entries.add(new Entry(mcsEntry));
+            long startTime = System.currentTimeMillis();
+            McsBinaryFormat.MappedDataset mapped = McsBinaryFormat.open(path);
+            if (includeDerivedColumns && !mapped.getColumns().hasDerivedColumns()) {
+                logger.info("Binary cache has no derived columns, reloading from source");
+                return null;
             }
-            
-            System.out.println("Successfully loaded " + entries.size() + " entries from cache");
-            return entries;
+            logger.info("Memory-mapped {} entries from binary cache in {}ms{}",
+                mapped.getColumns().getRowCount(), System.currentTimeMillis() - startTime,
+                mapped.getGridIndex() != null ? ", using stored grid index (" + mapped.getGridIndex().describe() + ")" : "");
+            return mapped;
+        } catch (IOException e) {
+            logger.warn("Binary cache could not be mapped: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Loads all columns, including the derived ones, from a legacy serialized cache or the CSV.
+     */
+    @SuppressWarnings("deprecation")
+    private static McsColumnStore loadColumns(String cachePath, String csvPath) throws IOException {
+        // Try to load from a legacy serialized cache first
+        try {
+            logger.info("Attempting to load MCS data from cache...");
+            McsColumnStore store = McsColumnStore.fromEntries(new McsCacheConverter().loadFromCache(cachePath), true);
+            logger.info("Successfully loaded {} entries from cache", store.getRowCount());
+            return store;
             
         } catch (Exception e) {
-            System.out.println("Cache loading failed: " + e.getMessage());
-            System.out.println("Falling back to CSV loading...");
+            logger.info("Cache loading failed ({}), falling back to CSV loading...", e.getMessage());
             
             // Fall back to CSV loading
             try {
-                // Use the original CSV loading logic but convert to our Entry format
-                McsLookup originalLookup = new McsLookup(csvPath);
-                List<Entry> entries = new java.util.ArrayList<>();
-                
-                // We need to access the original entries - we'll need to modify this
-                // For now, we'll create a new converter and load from CSV
-                List<McsEntry> mcsEntries = converter.loadFromCsv(csvPath);
-                
-                for (McsEntry mcsEntry : mcsEntries) {
-                    entries.add(new Entry(mcsEntry));
-                }
-                
-                System.out.println("Successfully loaded " + entries.size() + " entries from CSV");
-                
-                // Optionally create a cache file for next time
-                try {
-                    System.out.println("Creating cache file for faster future loading...");
-                    converter.convertCsvToCache(csvPath, cachePath);
-                    System.out.println("Cache file created successfully");
-                } catch (Exception cacheError) {
-                    System.err.println("Warning: Could not create cache file: " + cacheError.getMessage());
-                }
-                
-                return entries;
+                McsColumnStore store = McsParallelCsvReader.read(Path.of(csvPath), true);
+                logger.info("Successfully loaded {} entries from CSV", store.getRowCount());
+                return store;
                 
             } catch (Exception csvError) {
                 throw new IOException("Failed to load data from both cache and CSV. Cache error: " + 
@@ -194,6 +269,42 @@ public class McsLookupOptimized {
         }
     }
 
+    /**
+     * Writes a binary cache file so the next start can map it instead of parsing.
+     */
+    private static void writeBinaryCache(McsColumnStore store, McsGridIndex index, String cachePath) {
+        try {
+            logger.info("Creating binary cache file for faster future loading...");
+            Path path = Path.of(cachePath);
+            McsBinaryFormat.write(store, index, path);
+            // Checked once here so later starts can map it without reading every page
+            if (!McsBinaryFormat.open(path).verifyChecksum()) {
+                Files.delete(path);
+                logger.warn("Cache file failed its checksum after writing and was deleted");
+                return;
+            }
+            logger.info("Cache file created successfully");
+        } catch (Exception cacheError) {
+            logger.warn("Could not create cache file: {}", cacheError.getMessage());
+        }
+    }
+
+    /**
+     * Checks whether a query is within the allowed ranges, for callers that filter queries
+     * before a {@link #lookupBatch}, which rejects the whole batch if one query is out of range.
+     *
+     * @return true if every parameter is a number within its allowed range
+     */
+    public static boolean isInRange(int occupancyDays,
+                                    double annualConsumption,
+                                    double pvGenKwh,
+                                    double batteryKwh) {
+        return occupancyDays >= MIN_OCCUPANCY_DAYS && occupancyDays <= MAX_OCCUPANCY_DAYS
+            && annualConsumption >= MIN_CONSUMPTION && annualConsumption <= MAX_CONSUMPTION
+            && pvGenKwh >= MIN_PV_GENERATION && pvGenKwh <= MAX_PV_GENERATION
+            && batteryKwh >= MIN_BATTERY_SIZE && batteryKwh <= MAX_BATTERY_SIZE;
+    }
+
     /**
      * Validates input parameters against allowed ranges.
      */
@@ -233,11 +344,41 @@ public class McsLookupOptimized {
     /**
      * Calculates similarity between two numeric values.
      */
-    private double calculateNumericSimilarity(double value1, double value2, double maxDifference) {
+    static double calculateNumericSimilarity(double value1, double value2, double maxDifference) {
         double difference = Math.abs(value1 - value2);
         return Math.max(0.0, 1.0 - (difference / maxDifference));
     }
 
+    /**
+     * Calculates the weighted similarity between a data point and the requested values.
+     * Shared by the linear scan and {@link McsGridIndex} so both produce identical scores.
+     */
+    static double calculateTotalSimilarity(int entryOccupancyDays, double entryConsumption,
+                                           double entryPvGeneration, double entryBatterySize,
+                                           int occupancyDays, double annualConsumption,
+                                           double pvGenKwh, double batteryKwh) {
+        double occupancySimilarity = (entryOccupancyDays == occupancyDays) ? 1.0 : 0.0;
+        
+        double consumptionSimilarity = calculateNumericSimilarity(
+            entryConsumption, annualConsumption, MAX_CONSUMPTION
+        );
+        
+        double pvSimilarity = calculateNumericSimilarity(
+            entryPvGeneration, pvGenKwh, MAX_PV_GENERATION
+        );
+        
+        double batterySimilarity = calculateNumericSimilarity(
+            entryBatterySize, batteryKwh, MAX_BATTERY_SIZE
+        );
+        
+        return (
+            occupancySimilarity * 0.4 +      // 40% weight for occupancy
+            consumptionSimilarity * 0.3 +    // 30% weight for consumption
+            pvSimilarity * 0.2 +             // 20% weight for PV generation
+            batterySimilarity * 0.1          // 10% weight for battery size
+        );
+    }
+
     /**
      * Finds the closest matching data point based on multiple criteria.
      * Uses the same algorithm as the original McsLookup class.
@@ -248,53 +389,64 @@ public class McsLookupOptimized {
                                       double batteryKwh) {
         validateInputParameters(occupancyDays, annualConsumption, pvGenKwh, batteryKwh);
 
-        if (entries.isEmpty()) {
+        if (columns.getRowCount() == 0) {
             throw new IllegalArgumentException("No data loaded");
         }
 
+        int bestRow = (gridIndex != null)
+            ? gridIndex.findBestRow(occupancyDays, annualConsumption, pvGenKwh, batteryKwh)
+            : -1;
+        if (bestRow < 0) {
+            bestRow = scanBestRow(occupancyDays, annualConsumption, pvGenKwh, batteryKwh);
+        }
+
+        if (bestRow < 0) {
+            throw new IllegalArgumentException("No valid matches found in the data");
+        }
+
+        return new MatchResult(
+            columns.occupancyDays(bestRow),
+            columns.annualConsumptionKwh(bestRow),
+            columns.pvGenerationKwh(bestRow),
+            columns.batterySizeKwh(bestRow),
+            columns.predictedSelfConsumptionPercentage(bestRow),
+            calculateTotalSimilarity(
+                columns.occupancyDays(bestRow), columns.annualConsumptionKwh(bestRow),
+                columns.pvGenerationKwh(bestRow), columns.batterySizeKwh(bestRow),
+                occupancyDays, annualConsumption, pvGenKwh, batteryKwh
+            )
+        );
+    }
+
+    /**
+     * Finds the closest row by scoring every row. Used when the data is not gridded.
+     *
+     * @return The first row with the highest similarity, or -1 if no row scored (NaN input)
+     */
+    private int scanBestRow(int occupancyDays,
+                            double annualConsumption,
+                            double pvGenKwh,
+                            double batteryKwh) {
+        McsColumnStore store = columns;
+        int rowCount = store.getRowCount();
+
         double bestSimilarity = -1;
-        Entry bestMatch = null;
+        int bestRow = -1;
 
-        for (Entry entry : entries) {
-            double occupancySimilarity = (entry.occupancyDays == occupancyDays) ? 1.0 : 0.0;
-            
-            double consumptionSimilarity = calculateNumericSimilarity(
-                entry.annualConsumptionKwh, annualConsumption, MAX_CONSUMPTION
-            );
-            
-            double pvSimilarity = calculateNumericSimilarity(
-                entry.pvGenerationKwh, pvGenKwh, MAX_PV_GENERATION
-            );
-            
-            double batterySimilarity = calculateNumericSimilarity(
-                entry.batterySizeKwh, batteryKwh, MAX_BATTERY_SIZE
-            );
-            
-            double totalSimilarity = (
-                occupancySimilarity * 0.4 +      // 40% weight for occupancy
-                consumptionSimilarity * 0.3 +    // 30% weight for consumption
-                pvSimilarity * 0.2 +             // 20% weight for PV generation
-                batterySimilarity * 0.1          // 10% weight for battery size
+        for (int row = 0; row < rowCount; row++) {
+            double totalSimilarity = calculateTotalSimilarity(
+                store.occupancyDays(row), store.annualConsumptionKwh(row),
+                store.pvGenerationKwh(row), store.batterySizeKwh(row),
+                occupancyDays, annualConsumption, pvGenKwh, batteryKwh
             );
             
             if (totalSimilarity > bestSimilarity) {
                 bestSimilarity = totalSimilarity;
-                bestMatch = entry;
+                bestRow = row;
             }
         }
 
-        if (bestMatch == null) {
-            throw new IllegalArgumentException("No valid matches found in the data");
-        }
-
-        return new MatchResult(
-            bestMatch.occupancyDays,
-            bestMatch.annualConsumptionKwh,
-            bestMatch.pvGenerationKwh,
-            bestMatch.batterySizeKwh,
-            bestMatch.predictedSelfConsumptionPercentage,
-            bestSimilarity
-        );
+        return bestRow;
     }
 
     /**
@@ -308,6 +460,162 @@ public class McsLookupOptimized {
         return result.percentage;
     }
 
+    /**
+     * Looks up the self-consumption percentage for a batch of queries, giving the same result
+     * for each as {@link #lookup}. Query {@code i} is
+     * {@code (occupancy[i], consumption[i], pv[i], battery[i])} and its result is written to
+     * {@code out[i]}.
+     *
+     * Queries the grid index can answer are looked up directly. The rest are scored together
+     * in one pass over the rows per group of queries, in cache-sized blocks of rows, instead of
+     * one full scan each. Large batches are split across cores. Apart from a few arrays per
+     * batch, nothing is allocated per query.
+     *
+     * @throws IllegalArgumentException if the arrays differ in length
+     * @throws InvalidParameterException if any query is out of range; no results are written
+     */
+    public void lookupBatch(int[] occupancy, double[] consumption, double[] pv, double[] battery, double[] out) {
+        int count = occupancy.length;
+        if (consumption.length != count || pv.length != count || battery.length != count || out.length != count) {
+            throw new IllegalArgumentException("Batch arrays must all have the same length");
+        }
+        for (int i = 0; i < count; i++) {
+            validateInputParameters(occupancy[i], consumption[i], pv[i], battery[i]);
+        }
+        if (count == 0) {
+            return;
+        }
+        if (columns.getRowCount() == 0) {
+            throw new IllegalArgumentException("No data loaded");
+        }
+
+        int[] rows = new int[count];
+        if (gridIndex != null) {
+            forEachChunk(count, BATCH_GRID_CHUNK, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    rows[i] = gridIndex.findBestRow(occupancy[i], consumption[i], pv[i], battery[i]);
+                }
+            });
+        } else {
+            Arrays.fill(rows, -1);
+        }
+
+        // Queries the index could not answer are scanned together
+        int pendingCount = 0;
+        for (int row : rows) {
+            if (row < 0) {
+                pendingCount++;
+            }
+        }
+        if (pendingCount > 0) {
+            int[] pending = new int[pendingCount];
+            for (int i = 0, next = 0; i < count; i++) {
+                if (rows[i] < 0) {
+                    pending[next++] = i;
+                }
+            }
+            forEachChunk(pendingCount, BATCH_SCAN_CHUNK,
+                (from, to) -> scanBestRows(pending, from, to, occupancy, consumption, pv, battery, rows));
+        }
+
+        for (int i = 0; i < count; i++) {
+            if (rows[i] < 0) {
+                throw new IllegalArgumentException("No valid matches found in the data for query " + i);
+            }
+            out[i] = columns.predictedSelfConsumptionPercentage(rows[i]);
+        }
+    }
+
+    /**
+     * A half-open range {@code [from, to)} of a batch.
+     */
+    @FunctionalInterface
+    private interface ChunkAction {
+        void run(int from, int to);
+    }
+
+    /**
+     * Runs an action over {@code [0, count)} in chunks, in parallel on the common pool when there is more than one.
+     */
+    private static void forEachChunk(int count, int chunkSize, ChunkAction action) {
+        int chunks = (count + chunkSize - 1) / chunkSize;
+        if (chunks == 1) {
+            action.run(0, count);
+            return;
+        }
+        IntStream.range(0, chunks).parallel()
+            .forEach(chunk -> action.run(chunk * chunkSize, Math.min(count, (chunk + 1) * chunkSize)));
+    }
+
+    /**
+     * Scores every row against the queries {@code pending[from..to)}, a block of rows at a time,
+     * and stores each query's best row (first row on ties, as in {@link #scanBestRow}).
+     */
+    private void scanBestRows(int[] pending, int from, int to,
+                              int[] occupancy, double[] consumption, double[] pv, double[] battery,
+                              int[] rows) {
+        McsColumnStore store = columns;
+        int rowCount = store.getRowCount();
+        int queryCount = to - from;
+        double[] bestSimilarity = new double[queryCount];
+        int[] bestRow = new int[queryCount];
+        Arrays.fill(bestSimilarity, -1);
+        Arrays.fill(bestRow, -1);
+
+        for (int blockStart = 0; blockStart < rowCount; blockStart += BATCH_SCAN_BLOCK) {
+            int blockEnd = Math.min(rowCount, blockStart + BATCH_SCAN_BLOCK);
+            for (int q = 0; q < queryCount; q++) {
+                int query = pending[from + q];
+                int queryOccupancy = occupancy[query];
+                double queryConsumption = consumption[query];
+                double queryPv = pv[query];
+                double queryBattery = battery[query];
+                double best = bestSimilarity[q];
+                int bestAt = bestRow[q];
+                for (int row = blockStart; row < blockEnd; row++) {
+                    if (best > OCCUPANCY_MISMATCH_BOUND && store.occupancyDays(row) != queryOccupancy) {
+                        continue;
+                    }
+                    double totalSimilarity = calculateTotalSimilarity(
+                        store.occupancyDays(row), store.annualConsumptionKwh(row),
+                        store.pvGenerationKwh(row), store.batterySizeKwh(row),
+                        queryOccupancy, queryConsumption, queryPv, queryBattery
+                    );
+                    if (totalSimilarity > best) {
+                        best = totalSimilarity;
+                        bestAt = row;
+                    }
+                }
+                bestSimilarity[q] = best;
+                bestRow[q] = bestAt;
+            }
+        }
+
+        for (int q = 0; q < queryCount; q++) {
+            rows[pending[from + q]] = bestRow[q];
+        }
+    }
+
+    /**
+     * Lookup self-consumption percentage by multilinear interpolation between the grid cells
+     * around the query, rather than taking the single closest row. Unlike {@link #lookup},
+     * the result changes smoothly as any input changes. Input bounds are the same as for
+     * {@link #lookup}; values between the bounds and the edge of the grid are clamped to the edge.
+     *
+     * When the data is not a regular grid this falls back to {@link #lookup}.
+     */
+    public double lookupInterpolated(int occupancyDays,
+                                     double annualConsumption,
+                                     double pvGenKwh,
+                                     double batteryKwh) {
+        validateInputParameters(occupancyDays, annualConsumption, pvGenKwh, batteryKwh);
+
+        if (gridIndex == null || Double.isNaN(annualConsumption) || Double.isNaN(pvGenKwh) || Double.isNaN(batteryKwh)) {
+            return lookup(occupancyDays, annualConsumption, pvGenKwh, batteryKwh);
+        }
+        return gridIndex.interpolate(columns, occupancyDays, annualConsumption, pvGenKwh, batteryKwh);
+    }
+
     /**
      * Legacy method for backward compatibility.
      */
@@ -352,6 +660,20 @@ public class McsLookupOptimized {
      * Gets the total number of entries loaded.
      */
     public int getEntryCount() {
-        return entries.size();
+        return columns.getRowCount();
+    }
+
+    /**
+     * Gets the underlying column store, e.g. to read derived columns when they were requested.
+     */
+    public McsColumnStore getColumns() {
+        return columns;
+    }
+
+    /**
+     * Returns true if lookups are served from a grid index rather than a linear scan.
+     */
+    public boolean isGridIndexed() {
+        return gridIndex != null;
     }
 } 
\ No newline at end of file
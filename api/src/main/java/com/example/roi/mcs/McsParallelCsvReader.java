@@ -0,0 +1,457 @@
+package com.example.roi.mcs;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Parses an MCS CSV file on several cores straight into a {@link McsColumnStore}.
+ *
+ * The file is memory-mapped and cut into byte ranges, each moved forward to the next line
+ * boundary, and the ranges are parsed as separate tasks on a fork-join pool. Each task
+ * fills its own primitive column arrays; the results are then copied into the final
+ * columns in file order, so the row order is the same as a sequential read.
+ *
+ * Numbers are parsed directly from the mapped bytes without creating a String per field.
+ * Values with at most 15 significant digits and a small exponent (everything the dataset
+ * generator writes) are converted with a single exact multiply or divide, which gives the
+ * same double as {@link Double#parseDouble}; anything else falls back to it.
+ *
+ * The first line is treated as the header. Rows are validated the same way as
+ * {@link McsCacheConverter#loadFromCsv}: rows with fewer than 8 columns or an unparseable
+ * value are skipped. Only plain numeric CSV is supported; quoted fields may not contain
+ * separators or line breaks.
+ */
+public final class McsParallelCsvReader {
+
+    private static final Logger logger = LoggerFactory.getLogger(McsParallelCsvReader.class);
+
+    /** Ranges per worker thread, so a slow range does not leave other threads idle */
+    private static final int RANGES_PER_THREAD = 4;
+
+    /** Ranges are not split below this size */
+    private static final int MIN_RANGE_BYTES = 64 * 1024;
+
+    /** Only the first few skipped rows are logged */
+    private static final int MAX_LOGGED_SKIPS = 10;
+
+    private static final int COLUMN_COUNT = 8;
+
+    /** Exact powers of ten; every value up to 1e22 is representable as a double */
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /** Largest mantissa that is exactly representable as a double */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private McsParallelCsvReader() {
+    }
+
+    /**
+     * Reads a CSV file into columns using the common fork-join pool.
+     *
+     * @param csvPath Path to the CSV file
+     * @param includeDerivedColumns Whether to keep the derived columns
+     * @return The populated column store
+     * @throws IOException if the file cannot be read
+     */
+    public static McsColumnStore read(Path csvPath, boolean includeDerivedColumns) throws IOException {
+        return read(csvPath, includeDerivedColumns, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Reads a CSV file into columns using the given fork-join pool.
+     *
+     * @param csvPath Path to the CSV file
+     * @param includeDerivedColumns Whether to keep the derived columns
+     * @param pool Pool to parse the ranges on
+     * @return The populated column store
+     * @throws IOException if the file cannot be read
+     */
+    public static McsColumnStore read(Path csvPath, boolean includeDerivedColumns, ForkJoinPool pool) throws IOException {
+        long startTime = System.currentTimeMillis();
+
+        ByteBuffer data;
+        try (FileChannel channel = FileChannel.open(csvPath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("CSV file too large to map: " + size + " bytes");
+            }
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        int limit = data.limit();
+        int dataStart = nextLineStart(data, 0, limit); // Skip header row
+        int[] boundaries = splitRanges(data, dataStart, limit, pool.getParallelism());
+
+        List<RangeParser> tasks = new ArrayList<>(boundaries.length - 1);
+        for (int i = 0; i < boundaries.length - 1; i++) {
+            tasks.add(new RangeParser(data, boundaries[i], boundaries[i + 1], includeDerivedColumns));
+        }
+        List<ParsedRange> ranges = pool.invoke(new RecursiveTask<List<ParsedRange>>() {
+            @Override
+            protected List<ParsedRange> compute() {
+                List<ParsedRange> results = new ArrayList<>(tasks.size());
+                for (RangeParser task : ForkJoinTask.invokeAll(tasks)) {
+                    results.add(task.join());
+                }
+                return results;
+            }
+        });
+
+        McsColumnStore store = merge(ranges, includeDerivedColumns);
+
+        int skipCount = 0;
+        for (ParsedRange range : ranges) {
+            for (String message : range.skipMessages) {
+                if (skipCount++ < MAX_LOGGED_SKIPS) {
+                    logger.warn("{}", message);
+                }
+            }
+            skipCount += range.skipCount - range.skipMessages.size();
+        }
+        if (skipCount > 0) {
+            logger.warn("Skipped {} invalid/incomplete rows", skipCount);
+        }
+        logger.info("Parsed {} entries from CSV in {}ms ({} ranges, parallelism {})",
+            store.getRowCount(), System.currentTimeMillis() - startTime, ranges.size(), pool.getParallelism());
+        return store;
+    }
+
+    /**
+     * Cuts {@code [start, limit)} into roughly equal ranges whose boundaries fall on line starts.
+     */
+    private static int[] splitRanges(ByteBuffer data, int start, int limit, int parallelism) {
+        int length = limit - start;
+        int rangeCount = (int) Math.max(1, Math.min((long) parallelism * RANGES_PER_THREAD, length / MIN_RANGE_BYTES));
+        int[] boundaries = new int[rangeCount + 1];
+        boundaries[0] = start;
+        for (int i = 1; i < rangeCount; i++) {
+            int target = start + (int) ((long) length * i / rangeCount);
+            boundaries[i] = Math.max(boundaries[i - 1], nextLineStart(data, target, limit));
+        }
+        boundaries[rangeCount] = limit;
+        return boundaries;
+    }
+
+    /**
+     * Gets the position just after the next line break at or after {@code position}.
+     */
+    private static int nextLineStart(ByteBuffer data, int position, int limit) {
+        while (position < limit) {
+            if (data.get(position++) == '\n') {
+                return position;
+            }
+        }
+        return limit;
+    }
+
+    private static McsColumnStore merge(List<ParsedRange> ranges, boolean includeDerivedColumns) {
+        int rowCount = 0;
+        for (ParsedRange range : ranges) {
+            rowCount += range.rowCount;
+        }
+
+        byte[] occupancyDays = new byte[rowCount];
+        double[][] columns = new double[includeDerivedColumns ? COLUMN_COUNT - 1 : 4][rowCount];
+        int offset = 0;
+        for (ParsedRange range : ranges) {
+            System.arraycopy(range.occupancyDays, 0, occupancyDays, offset, range.rowCount);
+            for (int column = 0; column < columns.length; column++) {
+                System.arraycopy(range.columns[column], 0, columns[column], offset, range.rowCount);
+            }
+            offset += range.rowCount;
+        }
+
+        return McsColumnStore.fromColumns(occupancyDays, columns[0], columns[1], columns[2], columns[3],
+            includeDerivedColumns ? columns[4] : null,
+            includeDerivedColumns ? columns[5] : null,
+            includeDerivedColumns ? columns[6] : null);
+    }
+
+    /**
+     * Rows parsed from one byte range, in file order.
+     */
+    private static final class ParsedRange {
+        int rowCount;
+        byte[] occupancyDays;
+        /** consumption, PV, battery, percentage, then the derived columns if kept */
+        double[][] columns;
+        int skipCount;
+        final List<String> skipMessages = new ArrayList<>();
+
+        ParsedRange(int capacity, boolean includeDerivedColumns) {
+            occupancyDays = new byte[capacity];
+            columns = new double[includeDerivedColumns ? COLUMN_COUNT - 1 : 4][capacity];
+        }
+
+        void ensureCapacity() {
+            if (rowCount == occupancyDays.length) {
+                int capacity = occupancyDays.length + (occupancyDays.length >> 1) + 16;
+                occupancyDays = Arrays.copyOf(occupancyDays, capacity);
+                for (int column = 0; column < columns.length; column++) {
+                    columns[column] = Arrays.copyOf(columns[column], capacity);
+                }
+            }
+        }
+    }
+
+    /**
+     * Parses the lines in one byte range.
+     */
+    private static final class RangeParser extends RecursiveTask<ParsedRange> {
+        private final ByteBuffer data;
+        private final int start;
+        private final int end;
+        private final boolean includeDerivedColumns;
+
+        RangeParser(ByteBuffer data, int start, int end, boolean includeDerivedColumns) {
+            this.data = data;
+            this.start = start;
+            this.end = end;
+            this.includeDerivedColumns = includeDerivedColumns;
+        }
+
+        @Override
+        protected ParsedRange compute() {
+            // Synthetic rows are ~60 bytes, so this rarely needs to grow
+            ParsedRange range = new ParsedRange((end - start) / 48 + 16, includeDerivedColumns);
+            int[] fieldStarts = new int[COLUMN_COUNT];
+            int[] fieldEnds = new int[COLUMN_COUNT];
+            double[] values = new double[COLUMN_COUNT];
+
+            int lineStart = start;
+            while (lineStart < end) {
+                int lineEnd = lineStart;
+                while (lineEnd < end && data.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                int nextLine = lineEnd + 1;
+                if (lineEnd > lineStart && data.get(lineEnd - 1) == '\r') {
+                    lineEnd--;
+                }
+                if (lineEnd > lineStart) {
+                    parseLine(range, lineStart, lineEnd, fieldStarts, fieldEnds, values);
+                }
+                lineStart = nextLine;
+            }
+            return range;
+        }
+
+        private void parseLine(ParsedRange range, int lineStart, int lineEnd,
+                               int[] fieldStarts, int[] fieldEnds, double[] values) {
+            int fieldCount = 0;
+            int fieldStart = lineStart;
+            for (int position = lineStart; position <= lineEnd && fieldCount < COLUMN_COUNT; position++) {
+                if (position == lineEnd || data.get(position) == ',') {
+                    fieldStarts[fieldCount] = fieldStart;
+                    fieldEnds[fieldCount] = position;
+                    fieldCount++;
+                    fieldStart = position + 1;
+                }
+            }
+            if (fieldCount < COLUMN_COUNT) {
+                skip(range, "Skipping incomplete row at byte " + lineStart + " (has " + countFields(lineStart, lineEnd)
+                    + " columns, expected 8)");
+                return;
+            }
+            for (int field = 0; field < COLUMN_COUNT; field++) {
+                trim(field, fieldStarts, fieldEnds);
+            }
+
+            int occupancyDays;
+            try {
+                occupancyDays = parseInt(data, fieldStarts[0], fieldEnds[0]);
+                for (int field = 1; field < COLUMN_COUNT; field++) {
+                    values[field] = parseDouble(data, fieldStarts[field], fieldEnds[field]);
+                }
+            } catch (NumberFormatException e) {
+                skip(range, "Skipping invalid row at byte " + lineStart + ": " + text(data, lineStart, lineEnd)
+                    + System.lineSeparator() + "Error: " + e.getMessage());
+                return;
+            }
+            if (occupancyDays < Byte.MIN_VALUE || occupancyDays > Byte.MAX_VALUE) {
+                skip(range, "Skipping row at byte " + lineStart + " with out of range occupancy: " + occupancyDays);
+                return;
+            }
+
+            range.ensureCapacity();
+            int row = range.rowCount++;
+            double[][] columns = range.columns;
+            range.occupancyDays[row] = (byte) occupancyDays;
+            columns[0][row] = values[2]; // annual consumption
+            columns[1][row] = values[3]; // PV generation
+            columns[2][row] = values[4]; // battery size
+            columns[3][row] = values[5]; // self-consumption percentage
+            if (includeDerivedColumns) {
+                columns[4][row] = values[1]; // occupancy normalised
+                columns[5][row] = values[6]; // PV to consumption ratio
+                columns[6][row] = values[7]; // battery to consumption ratio
+            }
+        }
+
+        /**
+         * Narrows a field to exclude surrounding whitespace and one pair of quotes, like
+         * opencsv's unquoting followed by {@link String#trim()}.
+         */
+        private void trim(int field, int[] fieldStarts, int[] fieldEnds) {
+            int start = fieldStarts[field];
+            int end = fieldEnds[field];
+            while (start < end && data.get(start) <= ' ') {
+                start++;
+            }
+            while (end > start && data.get(end - 1) <= ' ') {
+                end--;
+            }
+            if (end - start >= 2 && data.get(start) == '"' && data.get(end - 1) == '"') {
+                start++;
+                end--;
+                while (start < end && data.get(start) <= ' ') {
+                    start++;
+                }
+                while (end > start && data.get(end - 1) <= ' ') {
+                    end--;
+                }
+            }
+            fieldStarts[field] = start;
+            fieldEnds[field] = end;
+        }
+
+        private int countFields(int lineStart, int lineEnd) {
+            int count = 1;
+            for (int position = lineStart; position < lineEnd; position++) {
+                if (data.get(position) == ',') {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        private static void skip(ParsedRange range, String message) {
+            if (range.skipCount++ < MAX_LOGGED_SKIPS) {
+                range.skipMessages.add(message);
+            }
+        }
+    }
+
+    /**
+     * Parses a trimmed int field with the same rules as {@link Integer#parseInt(String)}.
+     */
+    static int parseInt(ByteBuffer data, int start, int end) {
+        int position = start;
+        boolean negative = false;
+        if (position < end && (data.get(position) == '-' || data.get(position) == '+')) {
+            negative = data.get(position) == '-';
+            position++;
+        }
+        // Up to 9 digits cannot overflow an int
+        if (position == end || end - position > 9) {
+            return Integer.parseInt(text(data, start, end));
+        }
+        int value = 0;
+        for (; position < end; position++) {
+            int digit = data.get(position) - '0';
+            if (digit < 0 || digit > 9) {
+                return Integer.parseInt(text(data, start, end));
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses a trimmed double field with the same result as {@link Double#parseDouble(String)}.
+     */
+    static double parseDouble(ByteBuffer data, int start, int end) {
+        int position = start;
+        boolean negative = false;
+        if (position < end && (data.get(position) == '-' || data.get(position) == '+')) {
+            negative = data.get(position) == '-';
+            position++;
+        }
+
+        long mantissa = 0;
+        int significantDigits = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean seenPoint = false;
+        for (; position < end; position++) {
+            byte c = data.get(position);
+            if (c >= '0' && c <= '9') {
+                digits++;
+                if (mantissa != 0 || c != '0') {
+                    if (++significantDigits > 15) {
+                        return Double.parseDouble(text(data, start, end));
+                    }
+                    mantissa = mantissa * 10 + (c - '0');
+                }
+                if (seenPoint) {
+                    scale--;
+                }
+            } else if (c == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) {
+            return Double.parseDouble(text(data, start, end));
+        }
+
+        if (position < end) {
+            byte c = data.get(position);
+            if (c != 'e' && c != 'E') {
+                return Double.parseDouble(text(data, start, end));
+            }
+            position++;
+            boolean negativeExponent = false;
+            if (position < end && (data.get(position) == '-' || data.get(position) == '+')) {
+                negativeExponent = data.get(position) == '-';
+                position++;
+            }
+            if (position == end || end - position > 3) {
+                return Double.parseDouble(text(data, start, end));
+            }
+            int exponent = 0;
+            for (; position < end; position++) {
+                int digit = data.get(position) - '0';
+                if (digit < 0 || digit > 9) {
+                    return Double.parseDouble(text(data, start, end));
+                }
+                exponent = exponent * 10 + digit;
+            }
+            scale += negativeExponent ? -exponent : exponent;
+        }
+
+        // Both operands are exact, so a single IEEE operation rounds correctly
+        double value;
+        if (mantissa == 0) {
+            value = 0.0;
+        } else if (mantissa <= MAX_EXACT_MANTISSA && scale >= -22 && scale <= 22) {
+            value = scale < 0 ? mantissa / POWERS_OF_TEN[-scale] : mantissa * POWERS_OF_TEN[scale];
+        } else {
+            return Double.parseDouble(text(data, start, end));
+        }
+        return negative ? -value : value;
+    }
+
+    private static String text(ByteBuffer data, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        data.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
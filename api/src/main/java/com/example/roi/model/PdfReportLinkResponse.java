@@ -2,12 +2,28 @@ package com.example.roi.model;
 
 public class PdfReportLinkResponse {
     private final String pdfUrl;
+    private final String reportId;
+    private final String statusUrl;
 
     public PdfReportLinkResponse(String pdfUrl) {
+        this(pdfUrl, null, null);
+    }
+
+    public PdfReportLinkResponse(String pdfUrl, String reportId, String statusUrl) {
         this.pdfUrl = pdfUrl;
+        this.reportId = reportId;
+        this.statusUrl = statusUrl;
     }
 
     public String getPdfUrl() {
         return pdfUrl;
     }
-} 
\ No newline at end of file
+
+    public String getReportId() {
+        return reportId;
+    }
+
+    public String getStatusUrl() {
+        return statusUrl;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.roi.model;
+
+import java.time.Instant;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ReportStatusResponse {
+    private final String reportId;
+    private final String status;
+    private final Integer queuePosition;
+    private final Instant submittedAt;
+    private final Instant startedAt;
+    private final Instant finishedAt;
+    private final String pdfUrl;
+    private final String error;
+
+    public ReportStatusResponse(String reportId, String status, Integer queuePosition, Instant submittedAt,
+            Instant startedAt, Instant finishedAt, String pdfUrl, String error) {
+        this.reportId = reportId;
+        this.status = status;
+        this.queuePosition = queuePosition;
+        this.submittedAt = submittedAt;
+        this.startedAt = startedAt;
+        this.finishedAt = finishedAt;
+        this.pdfUrl = pdfUrl;
+        this.error = error;
+    }
+
+    public String getReportId() {
+        return reportId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    /** Reports ahead of this one, while it is queued */
+    public Integer getQueuePosition() {
+        return queuePosition;
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    /** Where to download the PDF, once it is done */
+    public String getPdfUrl() {
+        return pdfUrl;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
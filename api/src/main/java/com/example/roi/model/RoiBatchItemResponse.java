@@ -0,0 +1,40 @@
+package com.example.roi.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One entry of a batch calculation: the result for the request at the same index, or the
+ * reason it could not be calculated.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RoiBatchItemResponse {
+    private final int index;
+    private final RoiCalculationResponse result;
+    private final String error;
+
+    private RoiBatchItemResponse(int index, RoiCalculationResponse result, String error) {
+        this.index = index;
+        this.result = result;
+        this.error = error;
+    }
+
+    public static RoiBatchItemResponse success(int index, RoiCalculationResponse result) {
+        return new RoiBatchItemResponse(index, result, null);
+    }
+
+    public static RoiBatchItemResponse failure(int index, String error) {
+        return new RoiBatchItemResponse(index, null, error);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public RoiCalculationResponse getResult() {
+        return result;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
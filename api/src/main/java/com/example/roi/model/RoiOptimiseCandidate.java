@@ -0,0 +1,51 @@
+package com.example.roi.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One battery and solar size combination and how it performs.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RoiOptimiseCandidate {
+    private final double batterySize;
+    private final double solarSize;
+    private final double totalCost;
+    private final Integer paybackYears;
+    private final double roiPercentage;
+    private final double yearlySavings;
+
+    public RoiOptimiseCandidate(double batterySize, double solarSize, double totalCost, Integer paybackYears,
+            double roiPercentage, double yearlySavings) {
+        this.batterySize = batterySize;
+        this.solarSize = solarSize;
+        this.totalCost = totalCost;
+        this.paybackYears = paybackYears;
+        this.roiPercentage = roiPercentage;
+        this.yearlySavings = yearlySavings;
+    }
+
+    public double getBatterySize() {
+        return batterySize;
+    }
+
+    public double getSolarSize() {
+        return solarSize;
+    }
+
+    public double getTotalCost() {
+        return totalCost;
+    }
+
+    /** Year the system pays for itself, or absent if it does not within the period tracked */
+    public Integer getPaybackYears() {
+        return paybackYears;
+    }
+
+    public double getRoiPercentage() {
+        return roiPercentage;
+    }
+
+    public double getYearlySavings() {
+        return yearlySavings;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.roi.model;
+
+/**
+ * Household inputs plus the battery and solar sizes to search over. The sizes in the
+ * household request are ignored.
+ */
+public class RoiOptimiseRequest {
+
+    private RoiRequest household;
+    private SizeRange batterySize;
+    private SizeRange solarSize;
+
+    public RoiOptimiseRequest() {}
+
+    public RoiOptimiseRequest(RoiRequest household, SizeRange batterySize, SizeRange solarSize) {
+        this.household = household;
+        this.batterySize = batterySize;
+        this.solarSize = solarSize;
+    }
+
+    public RoiRequest getHousehold() {
+        return household;
+    }
+
+    public void setHousehold(RoiRequest household) {
+        this.household = household;
+    }
+
+    public SizeRange getBatterySize() {
+        return batterySize;
+    }
+
+    public void setBatterySize(SizeRange batterySize) {
+        this.batterySize = batterySize;
+    }
+
+    public SizeRange getSolarSize() {
+        return solarSize;
+    }
+
+    public void setSolarSize(SizeRange solarSize) {
+        this.solarSize = solarSize;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.roi.model;
+
+import java.util.List;
+
+/**
+ * The size combinations worth considering: those no other combination beats on cost, payback
+ * and ROI at once, cheapest first.
+ */
+public class RoiOptimiseResponse {
+    private final int evaluated;
+    private final List<RoiOptimiseCandidate> paretoFront;
+
+    public RoiOptimiseResponse(int evaluated, List<RoiOptimiseCandidate> paretoFront) {
+        this.evaluated = evaluated;
+        this.paretoFront = paretoFront;
+    }
+
+    /** Number of size combinations calculated */
+    public int getEvaluated() {
+        return evaluated;
+    }
+
+    public List<RoiOptimiseCandidate> getParetoFront() {
+        return paretoFront;
+    }
+}
@@ -31,6 +31,7 @@ public class RoiRequest {
     private double usage = 4000;
     private double solarSize = 4.0;
     private boolean includePdfBreakdown = false;
+    private boolean audit = false;
 
     public RoiRequest() {
         // Empty constructor
@@ -107,6 +108,15 @@ public class RoiRequest {
         this.includePdfBreakdown = includePdfBreakdown;
     }
 
+    @JsonProperty("audit")
+    public boolean isAudit() {
+        return audit;
+    }
+
+    public void setAudit(boolean audit) {
+        this.audit = audit;
+    }
+
     @Override
     public String toString() {
         return "RoiRequest{" +
@@ -117,7 +127,8 @@ public class RoiRequest {
                 ", solarSize=" + getSolarSize() +
                 ", batterySize=" + getBatterySize() +
                 ", usage=" + getUsage() +
-                ", includePdfBreakdown=" + isIncludePdfBreakdown();
+                ", includePdfBreakdown=" + isIncludePdfBreakdown() +
+                ", audit=" + isAudit();
     }
 
 }
@@ -0,0 +1,43 @@
+package com.example.roi.model;
+
+/**
+ * Inclusive range of system sizes to try, from min to max in steps.
+ */
+public class SizeRange {
+
+    private double min;
+    private double max;
+    private double step;
+
+    public SizeRange() {}
+
+    public SizeRange(double min, double max, double step) {
+        this.min = min;
+        this.max = max;
+        this.step = step;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public void setMin(double min) {
+        this.min = min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public void setMax(double max) {
+        this.max = max;
+    }
+
+    public double getStep() {
+        return step;
+    }
+
+    public void setStep(double step) {
+        this.step = step;
+    }
+}
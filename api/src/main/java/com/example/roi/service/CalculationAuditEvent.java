@@ -0,0 +1,62 @@
+package com.example.roi.service;
+
+import java.util.List;
+
+import com.example.roi.model.RoiRequest;
+
+/**
+ * Structured trace of a single ROI calculation, emitted as one JSON line on the
+ * {@code roi.audit} logger when a request is audited (see {@link RoiService#calculate}).
+ *
+ * @param timestamp            When the calculation ran (ISO-8601)
+ * @param trigger              "request" if the caller asked for the audit, "sampled" otherwise
+ * @param request              The request as calculated (after rounding)
+ * @param tariff               Name of the tariff used
+ * @param initialCost          Initial system cost (£)
+ * @param solarGeneration      Solar generation (kWh/year)
+ * @param solarUsed            Solar energy used on-site (kWh/year)
+ * @param solarExport          Solar energy exported (kWh/year)
+ * @param years                Year-by-year breakdown
+ * @param paybackYear          First year with positive cumulative savings, or -1
+ * @param averageYearlySavings Average of the positive yearly savings (£)
+ * @param roiPercentage        ROI over the tracked period (%)
+ */
+public record CalculationAuditEvent(
+    String timestamp,
+    String trigger,
+    RoiRequest request,
+    String tariff,
+    double initialCost,
+    double solarGeneration,
+    double solarUsed,
+    double solarExport,
+    List<Year> years,
+    int paybackYear,
+    double averageYearlySavings,
+    double roiPercentage
+) {
+
+    /**
+     * One year of the calculation.
+     *
+     * @param year                Year number (1-indexed)
+     * @param degradationFactor   Battery degradation factor (0-1)
+     * @param shiftable           Energy shifted by the battery (kWh)
+     * @param batterySavings      Battery savings (£)
+     * @param solarSavingsSelfUse Solar savings from self-use (£)
+     * @param solarSavingsExport  Solar savings from export (£)
+     * @param totalSavings        Total savings for the year (£)
+     * @param cumulativeSavings   Cumulative savings net of the initial cost (£)
+     */
+    public record Year(
+        int year,
+        double degradationFactor,
+        double shiftable,
+        double batterySavings,
+        double solarSavingsSelfUse,
+        double solarSavingsExport,
+        double totalSavings,
+        double cumulativeSavings
+    ) {
+    }
+}
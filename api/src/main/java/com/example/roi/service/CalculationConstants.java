@@ -0,0 +1,235 @@
+package com.example.roi.service;
+
+import java.util.Arrays;
+import java.util.Properties;
+
+import com.example.roi.model.RoiRequest;
+
+/**
+ * The physical assumptions behind a calculation, with the per-year and per-direction values
+ * precomputed into tables so the yearly loop only indexes arrays.
+ *
+ * Instances are immutable and swapped whole by {@link CalculationConstantsService}, so a
+ * calculation that read one instance sees a consistent set of values throughout.
+ */
+public final class CalculationConstants {
+
+    /** Degradation factors are tabulated for year 0 (installation) up to this year */
+    static final int TABLE_YEARS = 15;
+
+    private static final RoiRequest.CardinalDirection[] DIRECTIONS = RoiRequest.CardinalDirection.values();
+
+    private final long version;
+    private final int kneeYear;
+    private final double kneeCapacity;
+    private final int endOfLifeYears;
+    private final double batteryEfficiency;
+    private final double[] degradation;
+    private final double[] degradationSums;
+    private final int degradingYears;
+    private final double[] directionMultipliers;
+
+    /**
+     * Builds the tables.
+     *
+     * @param version Increases with every set of constants loaded
+     * @param kneeYear Year the battery's linear decline ends
+     * @param kneeCapacity Battery capacity at the knee year, as a fraction of new (0-1)
+     * @param endOfLifeYears Year the battery reaches zero capacity, after the knee year
+     * @param batteryEfficiency Battery round-trip efficiency (0-1)
+     * @param directionMultipliers Panel output relative to south-facing, indexed by
+     *        {@link RoiRequest.CardinalDirection#ordinal()}
+     * @throws IllegalArgumentException if a value is out of range
+     */
+    CalculationConstants(long version, int kneeYear, double kneeCapacity, int endOfLifeYears,
+            double batteryEfficiency, double[] directionMultipliers) {
+        if (kneeYear <= 0 || endOfLifeYears <= kneeYear) {
+            throw new IllegalArgumentException("Degradation needs 0 < knee year < end-of-life year");
+        }
+        if (!(kneeCapacity >= 0 && kneeCapacity <= 1) || !(batteryEfficiency > 0 && batteryEfficiency <= 1)) {
+            throw new IllegalArgumentException("Knee capacity and battery efficiency must be fractions");
+        }
+        if (directionMultipliers.length != DIRECTIONS.length
+                || Arrays.stream(directionMultipliers).anyMatch(multiplier -> !(multiplier >= 0))) {
+            throw new IllegalArgumentException("Every panel direction needs a multiplier of at least 0");
+        }
+        this.version = version;
+        this.kneeYear = kneeYear;
+        this.kneeCapacity = kneeCapacity;
+        this.endOfLifeYears = endOfLifeYears;
+        this.batteryEfficiency = batteryEfficiency;
+        this.directionMultipliers = directionMultipliers.clone();
+        this.degradation = new double[TABLE_YEARS + 1];
+        this.degradationSums = new double[TABLE_YEARS + 1];
+        int years = 0;
+        for (int year = 0; year <= TABLE_YEARS; year++) {
+            degradation[year] = degradationCurve(year);
+            if (year > 0) {
+                degradationSums[year] = degradationSums[year - 1] + degradation[year];
+                if (degradation[year] > 0) {
+                    years++;
+                }
+            }
+        }
+        this.degradingYears = years;
+    }
+
+    /**
+     * The built-in constants: 70% capacity at year 10, end of life at year 15, 85% efficiency.
+     */
+    static CalculationConstants defaults() {
+        return fromProperties(0, new Properties());
+    }
+
+    /**
+     * Builds constants from properties, using the built-in value for any key not present.
+     * Keys are {@code battery.degradation.knee-year}, {@code battery.degradation.knee-capacity},
+     * {@code battery.degradation.end-of-life-years}, {@code battery.efficiency} and
+     * {@code direction.<name>} for each panel direction (e.g. {@code direction.south-east}).
+     *
+     * @param version Version to give the constants
+     * @param properties Values to use
+     * @return The constants
+     * @throws IllegalArgumentException if a value is not a number or is out of range
+     */
+    static CalculationConstants fromProperties(long version, Properties properties) {
+        double[] multipliers = new double[DIRECTIONS.length];
+        for (RoiRequest.CardinalDirection direction : DIRECTIONS) {
+            multipliers[direction.ordinal()] = number(properties, "direction." + directionKey(direction),
+                defaultDirectionMultiplier(direction));
+        }
+        return new CalculationConstants(version,
+            integer(properties, "battery.degradation.knee-year", 10),
+            number(properties, "battery.degradation.knee-capacity", 0.70),
+            integer(properties, "battery.degradation.end-of-life-years", 15),
+            number(properties, "battery.efficiency", 0.85),
+            multipliers);
+    }
+
+    private static double number(Properties properties, String key, double defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + " is not a number: " + value);
+        }
+    }
+
+    private static int integer(Properties properties, String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + " is not a whole number: " + value);
+        }
+    }
+
+    /**
+     * Gets the property key for a direction, e.g. {@code south-east} for SOUTH_EAST.
+     */
+    static String directionKey(RoiRequest.CardinalDirection direction) {
+        return direction.name().toLowerCase().replace('_', '-');
+    }
+
+    private static double defaultDirectionMultiplier(RoiRequest.CardinalDirection direction) {
+        return switch (direction) {
+            case SOUTH ->
+                1.0;
+            case SOUTH_EAST, SOUTH_WEST ->
+                0.97;
+            case EAST, WEST ->
+                0.83;
+            case NORTH_EAST, NORTH_WEST ->
+                0.73;
+            case NORTH ->
+                0.63;
+        };
+    }
+
+    /**
+     * Battery capacity for a year: a linear decline to the knee capacity by the knee year,
+     * then a faster linear decline to nothing at end of life.
+     */
+    private double degradationCurve(int year) {
+        if (year <= 0) {
+            return 1.0; // No degradation at installation/year 0
+        }
+
+        if (year > endOfLifeYears) {
+            return 0.0; // No capacity after max years
+        }
+
+        if (year <= kneeYear) {
+            return 1.0 - ((1.0 - kneeCapacity) * year / (double) kneeYear);
+        } else {
+            double remainingYears = endOfLifeYears - kneeYear;
+            double yearsPastKnee = year - kneeYear;
+
+            return kneeCapacity - (kneeCapacity * yearsPastKnee / remainingYears);
+        }
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int getKneeYear() {
+        return kneeYear;
+    }
+
+    public double getKneeCapacity() {
+        return kneeCapacity;
+    }
+
+    public int getEndOfLifeYears() {
+        return endOfLifeYears;
+    }
+
+    public double getBatteryEfficiency() {
+        return batteryEfficiency;
+    }
+
+    /**
+     * Gets the battery degradation factor for a year.
+     *
+     * @param year Year since installation, 0 to {@value #TABLE_YEARS}
+     * @return Capacity as a fraction of new (0-1)
+     */
+    public double degradationFactor(int year) {
+        return degradation[year];
+    }
+
+    /**
+     * Gets the sum of the battery degradation factors for the first years after installation.
+     *
+     * @param years Number of years, 0 to {@value #TABLE_YEARS}
+     * @return Sum of the factors for years 1 to {@code years}
+     */
+    public double degradationSum(int years) {
+        return degradationSums[years];
+    }
+
+    /**
+     * Gets the number of tabulated years (after installation) in which the battery still has
+     * some capacity. The curve never rises, so these are the first years.
+     */
+    public int getDegradingYears() {
+        return degradingYears;
+    }
+
+    /**
+     * Gets the typical output multiplier for a panel direction, relative to south-facing.
+     *
+     * @param direction The direction the panels face, or null for south
+     * @return Output multiplier (e.g. 1.0 for south, 0.83 for east)
+     */
+    public double directionMultiplier(RoiRequest.CardinalDirection direction) {
+        return direction != null ? directionMultipliers[direction.ordinal()] : 1.0;
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.roi.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Holds the current {@link CalculationConstants}, loaded from a properties file so the
+ * degradation model and panel direction multipliers can change without a redeploy.
+ *
+ * The file (roi.constants.location, a Spring resource string) is read at startup, where an
+ * invalid file stops the application, and checked for changes every minute after that. A
+ * changed file is loaded into a new constants object, which replaces the old one in a single
+ * write; a changed file that fails to load is logged and the current constants are kept. With
+ * no location set the built-in constants are used.
+ *
+ * Each load gets a new version, which is part of the calculation cache key, so cached results
+ * are never served from old constants.
+ */
+@Service
+public class CalculationConstantsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CalculationConstantsService.class);
+
+    private final ResourceLoader resourceLoader;
+
+    @Value("${roi.constants.location:}")
+    private String location = "";
+
+    private final AtomicLong versions = new AtomicLong();
+    private volatile CalculationConstants constants = CalculationConstants.defaults();
+    private volatile long loadedModified = -1;
+
+    public CalculationConstantsService(ResourceLoader resourceLoader) {
+        this.resourceLoader = resourceLoader;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (location.isEmpty()) {
+            return;
+        }
+        try {
+            reload();
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalStateException("Failed to load calculation constants from " + location, e);
+        }
+    }
+
+    /**
+     * Gets the current constants. Callers should read this once per calculation.
+     */
+    public CalculationConstants getConstants() {
+        return constants;
+    }
+
+    /**
+     * Loads the constants file again if it has changed since it was last loaded.
+     */
+    @Scheduled(fixedDelayString = "${roi.constants.check-interval-ms:60000}")
+    public void reloadIfChanged() {
+        if (location.isEmpty()) {
+            return;
+        }
+        try {
+            if (resourceLoader.getResource(location).lastModified() != loadedModified) {
+                reload();
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            logger.warn("Keeping calculation constants version {}: {}", constants.getVersion(), e.getMessage());
+        }
+    }
+
+    /**
+     * Loads the constants file and makes it current.
+     *
+     * @return The loaded constants
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if a value in the file is invalid
+     */
+    public synchronized CalculationConstants reload() throws IOException {
+        Resource resource = resourceLoader.getResource(location);
+        long modified = resource.lastModified();
+        Properties properties = new Properties();
+        try (InputStream in = resource.getInputStream()) {
+            properties.load(in);
+        }
+        CalculationConstants loaded = CalculationConstants.fromProperties(versions.incrementAndGet(), properties);
+        constants = loaded;
+        loadedModified = modified;
+        logger.info("Loaded calculation constants version {} from {}", loaded.getVersion(), location);
+        return loaded;
+    }
+}
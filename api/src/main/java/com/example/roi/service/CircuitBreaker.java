@@ -0,0 +1,84 @@
+package com.example.roi.service;
+
+import java.time.Duration;
+
+/**
+ * Stops calling an upstream that keeps failing.
+ *
+ * After a run of consecutive failures the breaker opens and refuses calls for a while, so a
+ * dead or overloaded upstream is not hit again on every refresh. Once that time has passed
+ * one trial call is let through (half open): success closes the breaker, failure opens it
+ * again for another full period.
+ */
+final class CircuitBreaker {
+
+    /** Breaker states, in the order reported by the state gauge (0, 1, 2) */
+    enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+
+    /**
+     * @param failureThreshold Consecutive failures that open the breaker
+     * @param openDuration How long the breaker refuses calls before allowing a trial
+     */
+    CircuitBreaker(int failureThreshold, Duration openDuration) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("Failure threshold must be at least 1");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+    }
+
+    /**
+     * Asks to make a call. A caller that is allowed must report the outcome with
+     * {@link #onSuccess} or {@link #onFailure}.
+     *
+     * @return Whether the call may go ahead
+     */
+    synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.nanoTime() - openedAt < openNanos) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                return true;
+            default:
+                // A trial call is already in progress
+                return false;
+        }
+    }
+
+    /**
+     * Whether {@link #tryAcquire} would allow a call now, without claiming it.
+     */
+    synchronized boolean isCallPermitted() {
+        return state == State.CLOSED || (state == State.OPEN && System.nanoTime() - openedAt >= openNanos);
+    }
+
+    synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+    }
+
+    synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+}
@@ -1,38 +1,153 @@
 package com.example.roi.service;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 
 /**
  * Service for fetching current UK interest rates for personal loans and green energy financing.
  * Provides multiple data sources including Bank of England base rate and market rates.
+ *
+ * Rates are held in one immutable snapshot that readers take without locking. Fetching is
+ * done on a single background thread: once at startup, and again whenever a read finds the
+ * snapshot older than {@code finance.rates.refresh-after}. Only one fetch runs at a time, so
+ * concurrent reads of stale rates start at most one, and reads never wait for the network;
+ * they get the current snapshot, which until the first fetch completes holds the researched
+ * market rates and a typical base rate.
+ *
+ * Calls to the Bank of England have connect and read timeouts and are retried with jittered
+ * exponential backoff. A circuit breaker stops calling after repeated failures and lets one
+ * trial call through once it has been open for a while; its state is the
+ * {@code finance.rates.breaker.state} gauge (0 closed, 1 half open, 2 open). While the
+ * upstream is failing the last good rates keep being served.
+ *
+ * Every fetched snapshot is also written to {@code finance.rates.snapshot-file}, and read back
+ * at startup, so a restarted instance serves the last good rates straight away (and with no
+ * network at all) while the first fetch revalidates them in the background.
  */
 @Service
 public class InterestRateService {
 
     private static final Logger logger = LoggerFactory.getLogger(InterestRateService.class);
 
-    private final RestTemplate restTemplate = new RestTemplate();
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Typical current base rate (as of 2024), used until the Bank of England has answered
+    private static final double DEFAULT_BASE_RATE = 0.0525;
 
-    // Cached rates to avoid too many API calls
-    private Map<String, Double> cachedRates = new HashMap<>();
-    private LocalDateTime lastUpdate = null;
-    private static final int CACHE_DURATION_HOURS = 24;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
 
     @Value("${finance.default.annual.rate:0.055}")
     private double fallbackRate;
 
+    @Value("${finance.rates.base-rate-url:https://www.bankofengland.co.uk/boeapps/database/_iadb-fromshowcolumns.asp?csv.x=yes&Datefrom=01/Jan/2024&Dateto=now&SeriesCodes=IUDBEDR&CSVF=TN&UsingCodes=Y&VPD=Y&VFD=N}")
+    private String baseRateUrl;
+
+    @Value("${finance.rates.refresh-after:PT20H}")
+    private Duration refreshAfter;
+
+    @Value("${finance.rates.connect-timeout:PT2S}")
+    private Duration connectTimeout = Duration.ofSeconds(2);
+
+    @Value("${finance.rates.read-timeout:PT5S}")
+    private Duration readTimeout = Duration.ofSeconds(5);
+
+    @Value("${finance.rates.max-attempts:3}")
+    private int maxAttempts = 3;
+
+    @Value("${finance.rates.retry-backoff:PT0.5S}")
+    private Duration retryBackoff = Duration.ofMillis(500);
+
+    @Value("${finance.rates.breaker.failure-threshold:5}")
+    private int breakerFailureThreshold = 5;
+
+    @Value("${finance.rates.breaker.open-duration:PT5M}")
+    private Duration breakerOpenDuration = Duration.ofMinutes(5);
+
+    @Value("${finance.rates.retry-after-failure:PT1M}")
+    private Duration retryAfterFailure = Duration.ofMinutes(1);
+
+    // Empty to keep rates in memory only
+    @Value("${finance.rates.snapshot-file:}")
+    private String snapshotFile = "";
+
+    private RestTemplate restTemplate;
+    private CircuitBreaker breaker;
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    // The fetch in progress, if any; completed with the snapshot it installed
+    private final AtomicReference<CompletableFuture<InterestRateData>> refreshing = new AtomicReference<>();
+    private ExecutorService executor;
+
+    /**
+     * Rates, when they were fetched, and the earliest time a read may try to refresh them
+     * again after a failed fetch.
+     */
+    private record Snapshot(InterestRateData data, Instant fetchedAt, Instant retryAt) {
+        Snapshot(InterestRateData data, Instant fetchedAt) {
+            this(data, fetchedAt, Instant.EPOCH);
+        }
+
+        /**
+         * Whether the rates are at least this old and no failed fetch asked to wait.
+         */
+        boolean isDue(Duration age) {
+            Instant now = Instant.now();
+            return !fetchedAt.plus(age).isAfter(now) && !retryAt.isAfter(now);
+        }
+    }
+
+    /**
+     * A snapshot as stored in the snapshot file.
+     */
+    private record StoredSnapshot(double baseRate, double personalLoanRate3Years, double personalLoanRate5Years,
+            double personalLoanRate7Years, double greenEnergyLoanRate, String source, LocalDateTime lastUpdated,
+            Instant fetchedAt) {
+
+        static StoredSnapshot of(Snapshot snapshot) {
+            InterestRateData data = snapshot.data();
+            return new StoredSnapshot(data.getBaseRate(), data.getPersonalLoanRate3Years(),
+                data.getPersonalLoanRate5Years(), data.getPersonalLoanRate7Years(), data.getGreenEnergyLoanRate(),
+                data.getSource(), data.getLastUpdated(), snapshot.fetchedAt());
+        }
+
+        Snapshot toSnapshot() {
+            return new Snapshot(new InterestRateData(baseRate, personalLoanRate3Years, personalLoanRate5Years,
+                personalLoanRate7Years, greenEnergyLoanRate, source, lastUpdated), fetchedAt);
+        }
+    }
+
     /**
      * Represents current market interest rates for different loan types and durations.
      */
@@ -76,38 +191,190 @@ public class InterestRateService {
         }
     }
 
+    public InterestRateService(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     /**
-     * Get current interest rates, using cache if available and recent.
+     * Installs the stored rates, or the researched ones if there are none, and starts the
+     * first fetch in the background.
+     */
+    @PostConstruct
+    public void start() {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout((int) connectTimeout.toMillis());
+        requestFactory.setReadTimeout((int) readTimeout.toMillis());
+        restTemplate = new RestTemplate(requestFactory);
+        breaker = new CircuitBreaker(breakerFailureThreshold, breakerOpenDuration);
+        Gauge.builder("finance.rates.breaker.state", breaker, b -> b.getState().ordinal())
+            .description("Bank of England rate circuit breaker: 0 closed, 1 half open, 2 open")
+            .register(meterRegistry);
+
+        Snapshot stored = readSnapshot();
+        if (stored != null) {
+            // Keeps the time it was fetched, so a stale one is refreshed as usual
+            snapshot.set(stored);
+            logger.info("Loaded stored interest rates: {}", stored.data());
+        } else {
+            Map<String, Double> rates = new HashMap<>(fetchMarketRates());
+            rates.put("base_rate", DEFAULT_BASE_RATE);
+            // Stale from the start, so reads before the first fetch completes do not start another
+            snapshot.set(new Snapshot(buildInterestRateData(rates, LocalDateTime.now()), Instant.EPOCH));
+        }
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "interest-rate-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refreshInBackground(null);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Get current interest rates without waiting. Rates older than the refresh interval are
+     * returned as they are and refreshed in the background, unless the circuit breaker is
+     * refusing calls.
      */
     public InterestRateData getCurrentRates() {
-        if (shouldRefreshCache()) {
-            refreshRates();
+        Snapshot current = snapshot.get();
+        if (current.isDue(refreshAfter) && breaker.isCallPermitted()) {
+            refreshInBackground(current);
         }
-        return buildInterestRateData();
+        return current.data();
     }
 
     /**
-     * Force refresh of interest rates from external sources.
+     * Force refresh of interest rates from external sources, waiting for the result. Joins
+     * the refresh already in progress if there is one.
      */
     public InterestRateData refreshRates() {
+        return refreshInBackground(null).join();
+    }
+
+    /**
+     * Starts a fetch unless one is already running, or one has finished since the caller
+     * looked at the snapshot.
+     *
+     * @param seen The snapshot the caller found stale, or null to fetch regardless
+     * @return The running fetch, completed with the new rates
+     */
+    private CompletableFuture<InterestRateData> refreshInBackground(Snapshot seen) {
+        while (true) {
+            CompletableFuture<InterestRateData> running = refreshing.get();
+            if (running != null) {
+                return running;
+            }
+            CompletableFuture<InterestRateData> refresh = new CompletableFuture<>();
+            if (!refreshing.compareAndSet(null, refresh)) {
+                continue;
+            }
+            Snapshot current = snapshot.get();
+            if (seen != null && current != seen) {
+                // A fetch installed new rates between the caller's read and now
+                refreshing.set(null);
+                refresh.complete(current.data());
+                return refresh;
+            }
+            try {
+                executor.execute(() -> {
+                    try {
+                        InterestRateData data = fetchRates();
+                        refreshing.set(null);
+                        refresh.complete(data);
+                    } catch (Throwable e) {
+                        logger.warn("Failed to refresh interest rates: {}", e.getMessage());
+                        refreshing.set(null);
+                        refresh.completeExceptionally(e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                refreshing.set(null);
+                refresh.completeExceptionally(e);
+            }
+            return refresh;
+        }
+    }
+
+    /**
+     * Fetches rates from external sources and installs them as the current snapshot. If the
+     * base rate cannot be fetched the current rates are kept and returned, and reads wait
+     * {@code finance.rates.retry-after-failure} before trying again.
+     */
+    private InterestRateData fetchRates() {
         logger.info("Refreshing interest rates from external sources");
-        
+
         // Try multiple sources in order of preference
-        double baseRate = fetchBankOfEnglandBaseRate();
-        Map<String, Double> marketRates = fetchMarketRates();
-        
-        // Update cache
-        cachedRates.clear();
-        cachedRates.put("base_rate", baseRate);
-        cachedRates.putAll(marketRates);
-        lastUpdate = LocalDateTime.now();
-        
-        InterestRateData data = buildInterestRateData();
+        OptionalDouble baseRate = fetchBankOfEnglandBaseRate();
+        if (baseRate.isEmpty()) {
+            Snapshot lastGood = snapshot.get();
+            snapshot.set(new Snapshot(lastGood.data(), lastGood.fetchedAt(), Instant.now().plus(retryAfterFailure)));
+            logger.warn("Keeping interest rates from {}", lastGood.data().getLastUpdated());
+            return lastGood.data();
+        }
+        Map<String, Double> rates = new HashMap<>(fetchMarketRates());
+        rates.put("base_rate", baseRate.getAsDouble());
+
+        InterestRateData data = buildInterestRateData(rates, LocalDateTime.now());
+        Snapshot fetched = new Snapshot(data, Instant.now());
+        snapshot.set(fetched);
         logger.info("Updated interest rates: {}", data);
-        
+        writeSnapshot(fetched);
+
         return data;
     }
 
+    /**
+     * Reads the snapshot file.
+     *
+     * @return The stored snapshot, or null if there is no usable one
+     */
+    private Snapshot readSnapshot() {
+        if (snapshotFile.isEmpty()) {
+            return null;
+        }
+        Path path = Path.of(snapshotFile);
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try {
+            StoredSnapshot stored = objectMapper.readValue(path.toFile(), StoredSnapshot.class);
+            if (stored.lastUpdated() == null || stored.fetchedAt() == null) {
+                throw new IOException("missing timestamps");
+            }
+            return stored.toSnapshot();
+        } catch (IOException e) {
+            logger.warn("Ignoring stored interest rates in {}: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Replaces the snapshot file, so a restart can start from these rates. A failure to write
+     * only costs the warm start.
+     */
+    private void writeSnapshot(Snapshot fetched) {
+        if (snapshotFile.isEmpty()) {
+            return;
+        }
+        Path path = Path.of(snapshotFile).toAbsolutePath();
+        try {
+            Files.createDirectories(path.getParent());
+            Path temp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+            try {
+                objectMapper.writeValue(temp.toFile(), StoredSnapshot.of(fetched));
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to store interest rates in {}: {}", path, e.getMessage());
+        }
+    }
+
     /**
      * Get the best available rate for a specific loan term and amount.
      */
@@ -143,33 +410,71 @@ public class InterestRateService {
     }
 
     /**
-     * Fetch Bank of England base rate from their API.
+     * Fetch Bank of England base rate from their API, retrying failures while the circuit
+     * breaker allows.
+     *
+     * @return The base rate, or empty if it could not be fetched
      */
-    private double fetchBankOfEnglandBaseRate() {
-        try {
-            // Bank of England API for current base rate
-            String url = "https://www.bankofengland.co.uk/boeapps/database/_iadb-fromshowcolumns.asp?csv.x=yes&Datefrom=01/Jan/2024&Dateto=now&SeriesCodes=IUDBEDR&CSVF=TN&UsingCodes=Y&VPD=Y&VFD=N";
-            
-            ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
-            
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                // Parse CSV response to get latest rate
-                String[] lines = response.getBody().split("\n");
-                if (lines.length > 1) {
-                    String[] parts = lines[lines.length - 1].split(",");
-                    if (parts.length >= 2) {
-                        double rate = Double.parseDouble(parts[1].trim()) / 100.0; // Convert percentage to decimal
-                        logger.info("Fetched BoE base rate: {}%", rate * 100);
-                        return rate;
-                    }
+    private OptionalDouble fetchBankOfEnglandBaseRate() {
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            if (!breaker.tryAcquire()) {
+                logger.warn("Not fetching Bank of England base rate: circuit breaker is {}", breaker.getState());
+                return OptionalDouble.empty();
+            }
+            try {
+                double rate = requestBankOfEnglandBaseRate();
+                breaker.onSuccess();
+                logger.info("Fetched BoE base rate: {}%", rate * 100);
+                return OptionalDouble.of(rate);
+            } catch (Exception e) {
+                breaker.onFailure();
+                logger.warn("Failed to fetch Bank of England base rate (attempt {} of {}): {}",
+                    attempt, maxAttempts, e.getMessage());
+            }
+            if (attempt < maxAttempts && !backOff(attempt)) {
+                break;
+            }
+        }
+        return OptionalDouble.empty();
+    }
+
+    /**
+     * Makes one call for the base rate.
+     *
+     * @throws IllegalStateException if the response holds no rate
+     */
+    private double requestBankOfEnglandBaseRate() {
+        // Bank of England API for current base rate
+        ResponseEntity<String> response = restTemplate.getForEntity(baseRateUrl, String.class);
+
+        if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
+            // Parse CSV response to get latest rate
+            String[] lines = response.getBody().split("\n");
+            if (lines.length > 1) {
+                String[] parts = lines[lines.length - 1].split(",");
+                if (parts.length >= 2) {
+                    return Double.parseDouble(parts[1].trim()) / 100.0; // Convert percentage to decimal
                 }
             }
-        } catch (Exception e) {
-            logger.warn("Failed to fetch Bank of England base rate: {}", e.getMessage());
         }
-        
-        // Fallback to typical current base rate (as of 2024)
-        return 0.0525; // 5.25% - typical current rate
+        throw new IllegalStateException("No base rate in response (status " + response.getStatusCode() + ")");
+    }
+
+    /**
+     * Waits before another attempt: a random time up to the backoff doubled for each attempt
+     * so far ("full jitter"), so retries from several instances do not arrive together.
+     *
+     * @return false if interrupted, i.e. the service is shutting down
+     */
+    private boolean backOff(int attempt) {
+        long maxMillis = retryBackoff.toMillis() << Math.min(attempt - 1, 16);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(maxMillis + 1));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
     }
 
     /**
@@ -206,28 +511,19 @@ public class InterestRateService {
     }
 
     /**
-     * Check if cache should be refreshed.
-     */
-    private boolean shouldRefreshCache() {
-        return lastUpdate == null || 
-               lastUpdate.isBefore(LocalDateTime.now().minusHours(CACHE_DURATION_HOURS)) ||
-               cachedRates.isEmpty();
-    }
-
-    /**
-     * Build InterestRateData from cached rates.
+     * Build InterestRateData from fetched rates.
      */
-    private InterestRateData buildInterestRateData() {
-        double baseRate = cachedRates.getOrDefault("base_rate", 0.0525);
-        double rate3yr = cachedRates.getOrDefault("personal_loan_3yr", fallbackRate);
-        double rate5yr = cachedRates.getOrDefault("personal_loan_5yr", fallbackRate);
-        double rate7yr = cachedRates.getOrDefault("personal_loan_7yr", fallbackRate);
-        double greenRate = cachedRates.getOrDefault("green_energy_rate", fallbackRate * 0.8); // 20% discount for green
+    private InterestRateData buildInterestRateData(Map<String, Double> rates, LocalDateTime lastUpdate) {
+        double baseRate = rates.getOrDefault("base_rate", DEFAULT_BASE_RATE);
+        double rate3yr = rates.getOrDefault("personal_loan_3yr", fallbackRate);
+        double rate5yr = rates.getOrDefault("personal_loan_5yr", fallbackRate);
+        double rate7yr = rates.getOrDefault("personal_loan_7yr", fallbackRate);
+        double greenRate = rates.getOrDefault("green_energy_rate", fallbackRate * 0.8); // 20% discount for green
         
         return new InterestRateData(
             baseRate, rate3yr, rate5yr, rate7yr, greenRate,
             "UK Market Data + BoE", 
-            lastUpdate != null ? lastUpdate : LocalDateTime.now()
+            lastUpdate
         );
     }
 
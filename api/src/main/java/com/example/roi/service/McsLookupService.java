@@ -0,0 +1,273 @@
+package com.example.roi.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+
+import com.example.roi.mcs.McsBinaryFormat;
+import com.example.roi.mcs.McsLookupOptimized;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Owns the shared MCS self-consumption lookup table.
+ *
+ * The dataset is loaded on a background thread as soon as the bean is created, so it
+ * overlaps with the rest of application startup, and is then warmed up with a few
+ * thousand synthetic lookups so the JIT has compiled the lookup paths before real
+ * traffic arrives. Until both steps finish this bean reports OUT_OF_SERVICE as a health
+ * indicator; it is part of the readiness group, so {@code /actuator/health/readiness}
+ * keeps load balancers away until the table is hot.
+ *
+ * The dataset locations are Spring resource strings, so they work from the classpath
+ * inside a packaged jar as well as from the file system. Resources that are not plain
+ * files (e.g. jar entries) are copied to a working directory first, because the lookup
+ * memory-maps its cache and writes a new one when it has to fall back to the CSV.
+ *
+ * Opening the binary cache takes the same time whatever the dataset size, so its checksum
+ * is not checked on every start (caches are checked when written). Setting
+ * {@code mcs.dataset.verify-checksum} adds a full check on the loader thread, before the
+ * table is served, and a damaged cache is rebuilt from the CSV.
+ *
+ * Load and warm-up durations are recorded as the {@code mcs.lookup.load} and
+ * {@code mcs.lookup.warmup} timers.
+ */
+@Service
+public class McsLookupService implements HealthIndicator {
+
+    private static final Logger logger = LoggerFactory.getLogger(McsLookupService.class);
+
+    private final ResourceLoader resourceLoader;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${mcs.dataset.cache-location:classpath:mcs/mcs_synthetic_dataset.cache}")
+    private String cacheLocation;
+
+    @Value("${mcs.dataset.csv-location:classpath:mcs/mcs_synthetic_dataset.csv}")
+    private String csvLocation;
+
+    @Value("${mcs.dataset.work-dir:${java.io.tmpdir}/roi-calculator-mcs}")
+    private String workDir;
+
+    @Value("${mcs.lookup.warmup-lookups:5000}")
+    private int warmupLookups;
+
+    @Value("${mcs.lookup.await-timeout-seconds:30}")
+    private long awaitTimeoutSeconds;
+
+    // Reads the whole cache at startup, so it is off unless the cache's storage is suspect
+    @Value("${mcs.dataset.verify-checksum:false}")
+    private boolean verifyChecksum;
+
+    private final CompletableFuture<McsLookupOptimized> lookup = new CompletableFuture<>();
+
+    // Timings for the health details, -1 until known
+    private volatile long loadMillis = -1;
+    private volatile long warmupMillis = -1;
+
+    public McsLookupService(ResourceLoader resourceLoader, MeterRegistry meterRegistry) {
+        this.resourceLoader = resourceLoader;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Starts loading the dataset on a background thread.
+     */
+    @PostConstruct
+    public void startLoading() {
+        Thread loader = new Thread(this::loadAndWarmUp, "mcs-lookup-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    private void loadAndWarmUp() {
+        try {
+            long startTime = System.nanoTime();
+            Path cachePath = resolve(cacheLocation, false);
+            boolean cacheUsable = verifyChecksum ? isIntactBinaryCache(cachePath) : McsBinaryFormat.isBinaryFile(cachePath);
+            Path csvPath = resolve(csvLocation, cacheUsable);
+            McsLookupOptimized loaded = new McsLookupOptimized(cachePath.toString(), csvPath.toString());
+            long loadNanos = System.nanoTime() - startTime;
+            loadMillis = TimeUnit.NANOSECONDS.toMillis(loadNanos);
+            Timer.builder("mcs.lookup.load")
+                .description("Time to load the MCS self-consumption table")
+                .register(meterRegistry)
+                .record(loadNanos, TimeUnit.NANOSECONDS);
+            Gauge.builder("mcs.lookup.rows", loaded, McsLookupOptimized::getEntryCount)
+                .description("Rows in the MCS self-consumption table")
+                .register(meterRegistry);
+            logger.info("Loaded MCS lookup with {} entries in {}ms (grid indexed: {})",
+                loaded.getEntryCount(), loadMillis, loaded.isGridIndexed());
+
+            startTime = System.nanoTime();
+            warmUp(loaded, warmupLookups);
+            long warmupNanos = System.nanoTime() - startTime;
+            warmupMillis = TimeUnit.NANOSECONDS.toMillis(warmupNanos);
+            Timer.builder("mcs.lookup.warmup")
+                .description("Time to warm up MCS lookups after loading")
+                .register(meterRegistry)
+                .record(warmupNanos, TimeUnit.NANOSECONDS);
+            logger.info("Warmed up MCS lookup with {} lookups in {}ms", warmupLookups, warmupMillis);
+
+            lookup.complete(loaded);
+        } catch (Throwable e) {
+            logger.warn("Failed to load MCS lookup data: {}", e.getMessage());
+            lookup.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Checks a binary cache against its stored checksum before it is served. This reads the
+     * whole file; a damaged cache is deleted here and the lookup rebuilds it from the CSV.
+     *
+     * @param cachePath The cache file
+     * @return true if the cache is a binary file whose contents match its checksum
+     */
+    static boolean isIntactBinaryCache(Path cachePath) throws IOException {
+        if (!McsBinaryFormat.isBinaryFile(cachePath)) {
+            return false;
+        }
+        String problem;
+        try {
+            if (McsBinaryFormat.open(cachePath).verifyChecksum()) {
+                return true;
+            }
+            problem = "checksum mismatch";
+        } catch (IOException e) {
+            problem = e.getMessage();
+        }
+        logger.warn("Discarding MCS binary cache {} ({}), rebuilding from CSV", cachePath, problem);
+        Files.delete(cachePath);
+        return false;
+    }
+
+    /**
+     * Runs synthetic lookups across the valid input range so the lookup paths are compiled.
+     */
+    static void warmUp(McsLookupOptimized lookup, int lookups) {
+        Random random = new Random(42);
+        double sink = 0;
+        for (int i = 0; i < lookups; i++) {
+            int occupancyDays = 1 + random.nextInt(5);
+            double consumption = random.nextDouble() * 20000;
+            double pvGeneration = random.nextDouble() * 10000;
+            double battery = random.nextDouble() * 50;
+            sink += lookup.lookup(occupancyDays, consumption, pvGeneration, battery);
+            sink += lookup.lookupInterpolated(occupancyDays, consumption, pvGeneration, battery);
+        }
+        logger.debug("Warm-up checksum {}", sink);
+    }
+
+    /**
+     * Resolves a resource location to a file path the lookup can map and write next to.
+     *
+     * @param location Spring resource location
+     * @param skipCopy Whether a non-file resource is not needed and need not be copied
+     * @return The file path; it may not exist if the resource does not
+     */
+    private Path resolve(String location, boolean skipCopy) throws IOException {
+        Resource resource = resourceLoader.getResource(location);
+        if (resource.isFile()) {
+            return resource.getFile().toPath();
+        }
+
+        Path directory = Path.of(workDir);
+        Files.createDirectories(directory);
+        String fileName = resource.getFilename() != null ? resource.getFilename() : "mcs_dataset";
+        Path target = directory.resolve(fileName);
+        if (resource.exists() && !skipCopy && !isCopyOf(resource, target)) {
+            logger.info("Copying MCS resource {} to {}", location, target);
+            Path temp = Files.createTempFile(directory, fileName, ".tmp");
+            try (InputStream in = resource.getInputStream()) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Checks whether a working copy already matches its resource, so a restart does not copy
+     * the whole dataset again. The copy must have the same length and the same first
+     * {@link McsBinaryFormat#HEADER_SIZE} bytes; for a binary cache those hold the checksum of
+     * everything after them.
+     */
+    private static boolean isCopyOf(Resource resource, Path target) throws IOException {
+        if (!Files.isRegularFile(target) || Files.size(target) != resource.contentLength()) {
+            return false;
+        }
+        try (InputStream in = resource.getInputStream(); InputStream existing = Files.newInputStream(target)) {
+            return Arrays.equals(in.readNBytes(McsBinaryFormat.HEADER_SIZE), existing.readNBytes(McsBinaryFormat.HEADER_SIZE));
+        }
+    }
+
+    /**
+     * Returns true once the table is loaded and warmed up.
+     */
+    public boolean isReady() {
+        return lookup.isDone() && !lookup.isCompletedExceptionally();
+    }
+
+    /**
+     * Gets the lookup, waiting for it to finish loading if a request arrives early.
+     *
+     * @return The loaded lookup
+     * @throws IllegalStateException if loading failed or did not finish in time
+     */
+    public McsLookupOptimized getLookup() {
+        try {
+            return lookup.get(awaitTimeoutSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for MCS lookup data", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("MCS lookup data is not available: " + e.getCause().getMessage(), e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("MCS lookup data is still loading");
+        }
+    }
+
+    @Override
+    public Health health() {
+        if (!lookup.isDone()) {
+            return Health.outOfService()
+                .withDetail("state", loadMillis < 0 ? "loading" : "warming up")
+                .build();
+        }
+        if (lookup.isCompletedExceptionally()) {
+            return Health.down()
+                .withDetail("state", "failed")
+                .withException(lookup.handle((value, error) -> error).join())
+                .build();
+        }
+        McsLookupOptimized loaded = lookup.join();
+        return Health.up()
+            .withDetail("entries", loaded.getEntryCount())
+            .withDetail("gridIndexed", loaded.isGridIndexed())
+            .withDetail("loadMillis", loadMillis)
+            .withDetail("warmupMillis", warmupMillis)
+            .build();
+    }
+}
@@ -0,0 +1,327 @@
+package com.example.roi.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.roi.mcs.McsLookupOptimized;
+import com.example.roi.model.RoiBatchItemResponse;
+import com.example.roi.model.RoiRequest;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Calculates many ROI requests at once, for comparison tools that would otherwise send one
+ * request per scenario.
+ *
+ * Items are calculated in parallel on a fixed pool of workers. When its queue is full the
+ * submitting thread calculates the item itself, so large batches slow down rather than pile
+ * up. The MCS lookup table is fetched once per batch and the batch's distinct
+ * self-consumption lookups are made together in one {@link McsLookupOptimized#lookupBatch}
+ * call before fan-out; identical items are coalesced by the calculation cache. A failing
+ * item gets an error entry; the rest of the batch is unaffected. Items still queued when the
+ * service shuts down, or not finished within the batch timeout, get an error entry too, so
+ * callers are never left waiting.
+ *
+ * {@link #calculateStream} handles batches too large to hold in memory, reading requests and
+ * writing results as newline-delimited JSON. Its items arrive one at a time, so each makes its
+ * own self-consumption lookup.
+ */
+@Service
+public class RoiBatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoiBatchService.class);
+
+    private static final String SHUTTING_DOWN = "Batch calculations are shutting down";
+
+    private final RoiService roiService;
+    private final McsLookupService mcsLookupService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${roi.batch.workers:4}")
+    private int workers;
+
+    @Value("${roi.batch.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${roi.batch.max-size:1000}")
+    private int maxSize;
+
+    @Value("${roi.batch.max-in-flight:64}")
+    private int maxInFlight;
+
+    // Longest a caller waits for a batch's results (or, when streaming, for the next result)
+    @Value("${roi.batch.timeout:PT1M}")
+    private Duration timeout = Duration.ofMinutes(1);
+
+    private ThreadPoolExecutor executor;
+
+    public RoiBatchService(RoiService roiService, McsLookupService mcsLookupService, ObjectMapper objectMapper) {
+        this.roiService = roiService;
+        this.mcsLookupService = mcsLookupService;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "roi-batch-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            (runnable, pool) -> {
+                // Queue full: the caller calculates the item itself. Once shut down nothing runs.
+                if (pool.isShutdown()) {
+                    throw new RejectedExecutionException(SHUTTING_DOWN);
+                }
+                runnable.run();
+            });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Runnable dropped : executor.shutdownNow()) {
+            if (dropped instanceof BatchTask task) {
+                task.onShutdown().run();
+            }
+        }
+    }
+
+    /**
+     * A queued item, with what to do instead of calculating it if the service shuts down first.
+     */
+    private record BatchTask(Runnable calculation, Runnable onShutdown) implements Runnable {
+        @Override
+        public void run() {
+            calculation.run();
+        }
+    }
+
+    /**
+     * Queues an item, or runs its shutdown action if the service has already shut down.
+     */
+    private void execute(Runnable calculation, Runnable onShutdown) {
+        try {
+            executor.execute(new BatchTask(calculation, onShutdown));
+        } catch (RejectedExecutionException e) {
+            onShutdown.run();
+        }
+    }
+
+    /**
+     * Gets the largest batch {@link #calculateAll} accepts.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Calculates every request in a batch.
+     *
+     * @param requests Requests to calculate; null entries get an error entry
+     * @return One entry per request, in the same order
+     * @throws IllegalArgumentException if the batch is larger than {@link #getMaxSize}
+     */
+    public List<RoiBatchItemResponse> calculateAll(List<RoiRequest> requests) {
+        if (requests.size() > maxSize) {
+            throw new IllegalArgumentException("Batch of " + requests.size() + " exceeds the maximum of " + maxSize);
+        }
+        McsLookupOptimized mcsLookup;
+        try {
+            mcsLookup = mcsLookupService.getLookup();
+        } catch (IllegalStateException e) {
+            List<RoiBatchItemResponse> failures = new ArrayList<>(requests.size());
+            for (int i = 0; i < requests.size(); i++) {
+                failures.add(RoiBatchItemResponse.failure(i, e.getMessage()));
+            }
+            return failures;
+        }
+        Map<RoiService.McsQuery, Double> selfConsumption = roiService.lookupSelfConsumption(requests, mcsLookup);
+
+        List<CompletableFuture<RoiBatchItemResponse>> futures = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            int index = i;
+            RoiRequest request = requests.get(i);
+            CompletableFuture<RoiBatchItemResponse> future = new CompletableFuture<>();
+            execute(() -> future.complete(calculateItem(index, request, mcsLookup, selfConsumption)),
+                () -> future.complete(RoiBatchItemResponse.failure(index, SHUTTING_DOWN)));
+            futures.add(future);
+        }
+        long deadline = System.nanoTime() + timeout.toNanos();
+        List<RoiBatchItemResponse> results = new ArrayList<>(requests.size());
+        for (int i = 0; i < futures.size(); i++) {
+            results.add(await(i, futures.get(i), deadline));
+        }
+        return results;
+    }
+
+    private static RoiBatchItemResponse await(int index, CompletableFuture<RoiBatchItemResponse> future, long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            return RoiBatchItemResponse.failure(index, "Calculation timed out");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return RoiBatchItemResponse.failure(index, "Calculation interrupted");
+        } catch (ExecutionException e) {
+            logger.warn("Batch item {} failed", index, e.getCause());
+            return RoiBatchItemResponse.failure(index, "Calculation failed");
+        }
+    }
+
+    /**
+     * Calculates a stream of requests, one JSON object per line, writing one
+     * {@link RoiBatchItemResponse} line per request as each finishes, so results may be out of
+     * order and carry their request's index.
+     *
+     * Memory stays bounded whatever the length of the stream: requests are parsed one at a time,
+     * and once the maximum number of results are in flight (calculating or waiting to be written)
+     * no more input is read until one has been written. A slow client therefore slows reading,
+     * which in turn pushes back on the sender.
+     *
+     * A request that is valid JSON but not a valid request gets an error line. Malformed JSON
+     * gets an error line and ends the stream, as the rest of the input cannot be trusted.
+     *
+     * @param in Newline-delimited JSON requests
+     * @param out Stream to write newline-delimited JSON results to; flushed but not closed
+     */
+    public void calculateStream(InputStream in, OutputStream out) throws IOException {
+        McsLookupOptimized mcsLookup = null;
+        String unavailable = null;
+        try {
+            mcsLookup = mcsLookupService.getLookup();
+        } catch (IllegalStateException e) {
+            unavailable = e.getMessage();
+        }
+
+        JsonFactory factory = objectMapper.getFactory();
+        ObjectWriter writer = objectMapper.writerFor(RoiBatchItemResponse.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        BlockingQueue<RoiBatchItemResponse> completed = new LinkedBlockingQueue<>();
+        int inFlight = 0;
+        int index = 0;
+        try (JsonParser parser = factory.createParser(in).disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+             JsonGenerator generator = factory.createGenerator(out).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            generator.setRootValueSeparator(null);
+            while (true) {
+                JsonNode node;
+                try {
+                    if (parser.nextToken() == null) {
+                        break;
+                    }
+                    node = parser.readValueAsTree();
+                } catch (JsonProcessingException e) {
+                    completed.add(RoiBatchItemResponse.failure(index, "Malformed JSON: " + e.getOriginalMessage()));
+                    inFlight++;
+                    break;
+                }
+                int itemIndex = index++;
+                inFlight++;
+                if (unavailable != null) {
+                    completed.add(RoiBatchItemResponse.failure(itemIndex, unavailable));
+                } else {
+                    submit(itemIndex, node, mcsLookup, completed);
+                }
+
+                // Write whatever has finished, waiting for results while too many are in flight
+                boolean wrote = false;
+                RoiBatchItemResponse result;
+                while ((result = inFlight >= maxInFlight ? take(completed, generator) : completed.poll()) != null) {
+                    writeLine(generator, writer, result);
+                    inFlight--;
+                    wrote = true;
+                }
+                if (wrote) {
+                    generator.flush();
+                }
+            }
+            while (inFlight > 0) {
+                writeLine(generator, writer, take(completed, generator));
+                inFlight--;
+            }
+            generator.flush();
+        }
+    }
+
+    private void submit(int index, JsonNode node, McsLookupOptimized mcsLookup, BlockingQueue<RoiBatchItemResponse> completed) {
+        RoiRequest request;
+        try {
+            request = objectMapper.treeToValue(node, RoiRequest.class);
+        } catch (JsonProcessingException e) {
+            completed.add(RoiBatchItemResponse.failure(index, "Invalid request: " + e.getOriginalMessage()));
+            return;
+        }
+        execute(() -> completed.add(calculateItem(index, request, mcsLookup, null)),
+            () -> completed.add(RoiBatchItemResponse.failure(index, SHUTTING_DOWN)));
+    }
+
+    /**
+     * Waits up to the batch timeout for the next result, flushing first so the client is not kept waiting for results
+     * that are already written.
+     */
+    private RoiBatchItemResponse take(BlockingQueue<RoiBatchItemResponse> completed, JsonGenerator generator) throws IOException {
+        generator.flush();
+        try {
+            RoiBatchItemResponse result = completed.poll(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            if (result == null) {
+                throw new IOException("Timed out waiting for batch results");
+            }
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for batch results");
+        }
+    }
+
+    private static void writeLine(JsonGenerator generator, ObjectWriter writer, RoiBatchItemResponse result) throws IOException {
+        writer.writeValue(generator, result);
+        generator.writeRaw('\n');
+    }
+
+    RoiBatchItemResponse calculateItem(int index, RoiRequest request, McsLookupOptimized mcsLookup,
+            Map<RoiService.McsQuery, Double> selfConsumption) {
+        if (request == null) {
+            return RoiBatchItemResponse.failure(index, "Missing request");
+        }
+        try {
+            return RoiBatchItemResponse.success(index, roiService.calculate(request, mcsLookup, selfConsumption));
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return RoiBatchItemResponse.failure(index, e.getMessage());
+        } catch (RuntimeException e) {
+            logger.warn("Batch item {} failed", index, e);
+            return RoiBatchItemResponse.failure(index, "Calculation failed");
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.roi.service;
+
+/**
+ * Evaluates a system's 15-year outcome without stepping through the years, for sweeps that
+ * only need the headline figures.
+ *
+ * Solar savings are the same every year, so only battery savings vary, with the degradation
+ * factor. A battery shifts the whole of the household's usage while its degraded capacity
+ * covers it, and its degraded capacity after that. The curve never rises, so the capped years
+ * come first, and battery savings to year n are
+ * {@code rate * (min(n, k) * usage + capacity * 365 * (D(n) - D(min(n, k))))}, where k is the
+ * number of capped years and D the running sum of degradation factors from
+ * {@link CalculationConstants#degradationSum}. Cumulative savings then never fall, so the
+ * payback year is found by binary search.
+ *
+ * This relies on no year's savings being negative. Inputs where they could be (a peak rate
+ * below the off-peak rate, negative usage or negative solar savings) are evaluated by
+ * {@link RoiProjection} instead.
+ */
+final class RoiClosedForm {
+
+    /**
+     * Headline figures for one system.
+     *
+     * @param totalCost Initial cost of the system (£)
+     * @param paybackYear First year cumulative savings are positive, or 0 if they never are
+     * @param averageYearlySavings Mean of the years with positive savings, or 0 if there are none (£)
+     * @param cumulativeSavings Savings over all years tracked less the initial cost (£)
+     * @param roiPercentage Savings over all years tracked as a percentage of the initial cost
+     */
+    record Summary(double totalCost, int paybackYear, double averageYearlySavings, double cumulativeSavings,
+            double roiPercentage) {
+    }
+
+    private RoiClosedForm() {
+    }
+
+    /**
+     * Evaluates one system. Takes the same inputs as {@link RoiProjection#project}.
+     *
+     * @return The system's headline figures
+     */
+    static Summary summarise(CalculationConstants constants, double initialCost, double usableBatteryCapacity,
+            double usage, double peakRate, double offpeakRate, double exportRate, double solarUsed, double solarExport) {
+        double solarSavingsSelfUse = solarUsed * peakRate;
+        double solarSavingsExport = solarExport * exportRate;
+        double arbitrageRate = peakRate - offpeakRate;
+        if (!(arbitrageRate >= 0 && usage >= 0 && solarSavingsSelfUse >= 0 && solarSavingsExport >= 0)) {
+            RoiProjection projection = RoiProjection.scratch().project(constants, initialCost, usableBatteryCapacity,
+                usage, peakRate, offpeakRate, exportRate, solarUsed, solarExport);
+            return summary(initialCost, projection.paybackYear, projection.averageYearlySavings,
+                projection.cumulativeSavings[RoiProjection.YEARS - 1]);
+        }
+
+        double solarSavings = solarSavingsSelfUse + solarSavingsExport;
+        Battery battery = new Battery(constants, usableBatteryCapacity, usage, arbitrageRate);
+        int years = RoiProjection.YEARS;
+        double batterySavings = battery.savingsTo(years);
+        double cumulativeSavings = -initialCost + years * solarSavings + batterySavings;
+
+        // Every year has positive savings when there is solar; otherwise only the years the battery still works
+        int positiveYears = solarSavings > 0 ? years
+            : battery.saves() ? Math.min(constants.getDegradingYears(), years) : 0;
+        double averageYearlySavings = positiveYears > 0 ? (years * solarSavings + batterySavings) / positiveYears : 0.0;
+
+        int paybackYear = 0;
+        if (cumulativeSavings > 0) {
+            int low = 1;
+            int high = years;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (-initialCost + middle * solarSavings + battery.savingsTo(middle) > 0) {
+                    high = middle;
+                } else {
+                    low = middle + 1;
+                }
+            }
+            paybackYear = low;
+        }
+        return summary(initialCost, paybackYear, averageYearlySavings, cumulativeSavings);
+    }
+
+    private static Summary summary(double initialCost, int paybackYear, double averageYearlySavings,
+            double cumulativeSavings) {
+        double totalSavings = cumulativeSavings + initialCost;
+        double roiPercentage = (initialCost > 0) ? (totalSavings / initialCost) * 100 : 0;
+        return new Summary(initialCost, paybackYear, averageYearlySavings, cumulativeSavings, roiPercentage);
+    }
+
+    /**
+     * Battery arbitrage savings over the first years.
+     */
+    private static final class Battery {
+        private final CalculationConstants constants;
+        private final double dailyShift;
+        private final double usage;
+        private final double rate;
+        private final int cappedYears;
+
+        Battery(CalculationConstants constants, double usableBatteryCapacity, double usage, double arbitrageRate) {
+            this.constants = constants;
+            this.dailyShift = usableBatteryCapacity > 0 ? usableBatteryCapacity : 0.0;
+            this.usage = usage;
+            this.rate = arbitrageRate * constants.getBatteryEfficiency();
+            this.cappedYears = cappedYears(constants, dailyShift, usage);
+        }
+
+        /**
+         * Counts the first years in which the battery could shift more than the household uses,
+         * comparing exactly as {@link RoiProjection} does.
+         */
+        private static int cappedYears(CalculationConstants constants, double dailyShift, double usage) {
+            int low = 0;
+            int high = RoiProjection.YEARS;
+            while (low < high) {
+                int middle = (low + high + 1) >>> 1;
+                if (dailyShift * constants.degradationFactor(middle) * 365 >= usage) {
+                    low = middle;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return low;
+        }
+
+        boolean saves() {
+            return dailyShift > 0 && usage > 0 && rate > 0;
+        }
+
+        double savingsTo(int year) {
+            if (dailyShift == 0) {
+                return 0.0;
+            }
+            int capped = Math.min(year, cappedYears);
+            double shifted = capped * usage
+                + dailyShift * 365 * (constants.degradationSum(year) - constants.degradationSum(capped));
+            return shifted * rate;
+        }
+    }
+}
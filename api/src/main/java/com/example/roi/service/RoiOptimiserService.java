@@ -0,0 +1,195 @@
+package com.example.roi.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.roi.model.RoiOptimiseCandidate;
+import com.example.roi.model.RoiOptimiseRequest;
+import com.example.roi.model.RoiOptimiseResponse;
+import com.example.roi.model.RoiRequest;
+import com.example.roi.model.SizeRange;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Searches battery and solar sizes for one household to find the combinations worth buying.
+ *
+ * Every combination in the requested grid is calculated in parallel, on a pool with one
+ * thread per core kept apart from the common pool. The household's tariff, panel output and
+ * MCS lookup table are worked out once for the whole grid, and each combination is evaluated
+ * in closed form ({@link RoiClosedForm}) rather than year by year. The result is the Pareto front:
+ * combinations that no other combination matches or beats on cost, payback and ROI at once.
+ */
+@Service
+public class RoiOptimiserService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoiOptimiserService.class);
+
+    /** Orders candidates so none can be dominated by one after it */
+    private static final Comparator<RoiOptimiseCandidate> FRONT_ORDER =
+        Comparator.comparingDouble(RoiOptimiseCandidate::getTotalCost)
+            .thenComparingDouble(RoiOptimiserService::paybackOf)
+            .thenComparing(Comparator.comparingDouble(RoiOptimiseCandidate::getRoiPercentage).reversed());
+
+    private final RoiService roiService;
+
+    @Value("${roi.optimise.max-cells:10000}")
+    private int maxCells;
+
+    @Value("${roi.optimise.parallelism:0}")
+    private int parallelism;
+
+    private ForkJoinPool pool;
+
+    public RoiOptimiserService(RoiService roiService) {
+        this.roiService = roiService;
+    }
+
+    @PostConstruct
+    public void start() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(threads, forkJoinPool -> {
+            var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("roi-optimise-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Calculates every battery and solar size combination and keeps the Pareto front.
+     *
+     * @param request Household inputs and the size ranges to search
+     * @return Number of combinations calculated and the front, cheapest first
+     * @throws IllegalArgumentException if a range is missing or invalid, or the grid is too large
+     */
+    public RoiOptimiseResponse optimise(RoiOptimiseRequest request) {
+        if (request.getHousehold() == null) {
+            throw new IllegalArgumentException("Household is required");
+        }
+        // Sized before anything is allocated, so a huge range is refused without building it
+        double batteryCount = count("batterySize", request.getBatterySize());
+        double solarCount = count("solarSize", request.getSolarSize());
+        double cells = batteryCount * solarCount;
+        if (batteryCount > maxCells || solarCount > maxCells || cells > maxCells) {
+            throw new IllegalArgumentException("Grid of " + (long) cells + " sizes exceeds the maximum of " + maxCells);
+        }
+        double[] batterySizes = sizes(request.getBatterySize(), (int) batteryCount);
+        double[] solarSizes = sizes(request.getSolarSize(), (int) solarCount);
+
+        RoiRequest base = request.getHousehold();
+        RoiService.Household household = roiService.household(base, null);
+        List<RoiOptimiseCandidate> candidates;
+        try {
+            candidates = pool.submit(() -> IntStream.range(0, batterySizes.length * solarSizes.length).parallel()
+                .mapToObj(cell -> evaluate(base, household,
+                    batterySizes[cell / solarSizes.length], solarSizes[cell % solarSizes.length]))
+                .filter(Objects::nonNull)
+                .toList()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Optimisation was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Optimisation failed", e.getCause());
+        }
+        return new RoiOptimiseResponse(candidates.size(), paretoFront(candidates));
+    }
+
+    /**
+     * Validates a range and counts the sizes in it.
+     */
+    private static double count(String name, SizeRange range) {
+        if (range == null) {
+            throw new IllegalArgumentException(name + " range is required");
+        }
+        if (!(range.getStep() > 0) || !(range.getMin() >= 0) || !(range.getMin() <= range.getMax())
+                || !Double.isFinite(range.getMax())) {
+            throw new IllegalArgumentException(name + " range needs 0 <= min <= max and step > 0");
+        }
+        return Math.floor((range.getMax() - range.getMin()) / range.getStep() + 1e-9) + 1;
+    }
+
+    /**
+     * Lists the sizes in a range, rounded to the nearest watt-hour so steps like 0.1 do not
+     * accumulate floating point error.
+     */
+    private static double[] sizes(SizeRange range, int count) {
+        double[] sizes = new double[count];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = Math.round((range.getMin() + i * range.getStep()) * 1000) / 1000.0;
+        }
+        return sizes;
+    }
+
+    /**
+     * Calculates one combination, or gives null when there is nothing to buy or the
+     * calculation rejects the sizes.
+     */
+    private RoiOptimiseCandidate evaluate(RoiRequest base, RoiService.Household household,
+            double batterySize, double solarSize) {
+        if (batterySize == 0 && solarSize == 0) {
+            return null;
+        }
+        RoiRequest request = new RoiRequest();
+        request.setSolarPanelDirection(base.getSolarPanelDirection());
+        request.setHaveOrWillGetEv(base.isHaveOrWillGetEv());
+        request.setHomeOccupancyDuringWorkHours(base.getHomeOccupancyDuringWorkHours());
+        request.setNeedFinance(base.isNeedFinance());
+        request.setUsage(base.getUsage());
+        request.setBatterySize(batterySize);
+        request.setSolarSize(solarSize);
+        try {
+            RoiClosedForm.Summary summary = roiService.summariseForHousehold(request, household);
+            return new RoiOptimiseCandidate(batterySize, solarSize, summary.totalCost(),
+                summary.paybackYear() > 0 ? summary.paybackYear() : null, summary.roiPercentage(),
+                summary.averageYearlySavings());
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            logger.debug("Skipping battery {} kWh, solar {} kW: {}", batterySize, solarSize, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Keeps the candidates no other candidate matches or beats on all of cost, payback and ROI.
+     * After sorting, a candidate can only be dominated by one before it, and anything dominating
+     * a dropped candidate is dominated in turn by a kept one, so checking the front so far is enough.
+     */
+    static List<RoiOptimiseCandidate> paretoFront(List<RoiOptimiseCandidate> candidates) {
+        List<RoiOptimiseCandidate> sorted = new ArrayList<>(candidates);
+        sorted.sort(FRONT_ORDER);
+        List<RoiOptimiseCandidate> front = new ArrayList<>();
+        for (RoiOptimiseCandidate candidate : sorted) {
+            if (front.stream().noneMatch(kept -> dominates(kept, candidate))) {
+                front.add(candidate);
+            }
+        }
+        return front;
+    }
+
+    /** Whether a is at least as good as b on every objective */
+    static boolean dominates(RoiOptimiseCandidate a, RoiOptimiseCandidate b) {
+        return a.getTotalCost() <= b.getTotalCost()
+            && paybackOf(a) <= paybackOf(b)
+            && a.getRoiPercentage() >= b.getRoiPercentage();
+    }
+
+    private static double paybackOf(RoiOptimiseCandidate candidate) {
+        return candidate.getPaybackYears() != null ? candidate.getPaybackYears() : Double.POSITIVE_INFINITY;
+    }
+}
@@ -1,12 +1,20 @@
 package com.example.roi.service;
 
 import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.StringJoiner;
+import java.util.function.Function;
 
 import javax.imageio.ImageIO;
 
@@ -14,10 +22,12 @@ import org.jfree.chart.ChartFactory;
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.plot.PlotOrientation;
 import org.jfree.data.category.DefaultCategoryDataset;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.example.roi.model.RoiCalculationResponse;
 import com.example.roi.model.RoiChartDataPoint;
+import com.example.roi.model.RoiRequest;
 import com.lowagie.text.Document;
 import com.lowagie.text.DocumentException;
 import com.lowagie.text.Element;
@@ -25,31 +35,116 @@ import com.lowagie.text.Font;
 import com.lowagie.text.Image;
 import com.lowagie.text.PageSize;
 import com.lowagie.text.Paragraph;
+import com.lowagie.text.Rectangle;
+import com.lowagie.text.pdf.ColumnText;
+import com.lowagie.text.pdf.PdfContentByte;
 import com.lowagie.text.pdf.PdfPCell;
 import com.lowagie.text.pdf.PdfPTable;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.PdfTemplate;
 import com.lowagie.text.pdf.PdfWriter;
 
 @Service
 public class RoiPdfReportService {
 
+    private static final int CHART_WIDTH = 600;
+    private static final int CHART_HEIGHT = 300;
+    private static final float MARGIN = 50;
+    private static final float BODY_WIDTH = PageSize.A4.getWidth() - 2 * MARGIN;
+    private static final float BODY_HEIGHT = PageSize.A4.getHeight() - 2 * MARGIN;
+
+    // Fonts and colours are shared by every report rather than created per paragraph
+    private static final Color BRAND_GREEN = new Color(34, 139, 34);
+    private static final Color HEADER_BACKGROUND = new Color(220, 255, 220);
+    private static final Font TITLE_FONT = new Font(Font.HELVETICA, 24, Font.BOLD, BRAND_GREEN);
+    private static final Font SECTION_FONT = new Font(Font.HELVETICA, 16, Font.BOLD, BRAND_GREEN);
+    private static final Font SUBSECTION_FONT = new Font(Font.HELVETICA, 14, Font.BOLD, BRAND_GREEN);
+    private static final Font HEADER_CELL_FONT = new Font(Font.HELVETICA, 10, Font.BOLD, BRAND_GREEN);
+    private static final Font CELL_FONT = new Font(Font.HELVETICA, 9);
+    private static final Font NOTE_FONT = new Font(Font.HELVETICA, 7, Font.ITALIC, Color.DARK_GRAY);
+    private static final Font YEAR_FONT = new Font(Font.HELVETICA, 14, Font.BOLD);
+    private static final Font LABEL_FONT = new Font(Font.HELVETICA, 12, Font.BOLD);
+    private static final Font BODY_FONT = new Font(Font.HELVETICA, 12);
+    private static final Font SMALL_FONT = new Font(Font.HELVETICA, 10);
+
+    /**
+     * Sections that are the same in every report made with the same calculation constants.
+     * They are laid out once per constants version into {@link StaticSections}, one page per
+     * section in this order, and imported into each report rather than laid out again.
+     */
+    private enum StaticSection {
+        COVER_TITLE(constants -> coverTitle()),
+        ASSUMPTIONS(RoiPdfReportService::assumptionsSection),
+        FORMULAS(constants -> formulasSection()),
+        NOTES(constants -> notesSection());
+
+        private final Function<CalculationConstants, List<Element>> elements;
+
+        StaticSection(Function<CalculationConstants, List<Element>> elements) {
+            this.elements = elements;
+        }
+    }
+
+    /**
+     * The static sections as laid out for one version of the constants.
+     */
+    private record StaticSections(long constantsVersion, byte[] pdf) {
+    }
+
+    private final CalculationConstantsService calculationConstantsService;
+
+    // Rendered on first use, and again after the constants are reloaded
+    private volatile StaticSections staticSections;
+
+    /**
+     * Draw charts as PDF vector graphics rather than embedding a PNG snapshot. Vector charts
+     * skip rasterisation and PNG encoding, stay sharp at any zoom and make smaller files.
+     */
+    @Value("${roi.reports.vector-charts:true}")
+    private boolean vectorCharts = true;
+
+    public RoiPdfReportService(CalculationConstantsService calculationConstantsService) {
+        this.calculationConstantsService = calculationConstantsService;
+    }
+
     /**
      * Generates a professional PDF ROI report for The Big Green Energy Company.
      * Includes branding, green theme, charts, formulas, and all calculation details.
      *
+     * Prefer {@link #writeRoiReport} where the report is going straight to a stream or file;
+     * this holds the whole document in memory.
+     *
      * @param response The ROI calculation response to report on
      * @return PDF as a byte array (for download or email attachment)
      */
     public byte[] generateRoiReport(RoiCalculationResponse response) throws IOException, DocumentException {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        Document document = new Document(PageSize.A4, 50, 50, 50, 50);
-        PdfWriter writer = PdfWriter.getInstance(document, baos);
+        writeRoiReport(response, baos);
+        return baos.toByteArray();
+    }
+
+    /**
+     * Writes the PDF ROI report directly to an output stream (e.g. the HTTP response or a file).
+     * OpenPDF writes each page out as it is completed, so only the page being laid out and the
+     * cross-reference table are held in memory, whatever the size of the report.
+     *
+     * The stream is flushed but not closed; that is left to the caller.
+     *
+     * @param response The ROI calculation response to report on
+     * @param out Stream to write the PDF to
+     */
+    public void writeRoiReport(RoiCalculationResponse response, OutputStream out) throws IOException, DocumentException {
+        Document document = new Document(PageSize.A4, MARGIN, MARGIN, MARGIN, MARGIN);
+        PdfWriter writer = PdfWriter.getInstance(document, out);
+        writer.setCloseStream(false);
         document.open();
+        PdfReader staticSections = new PdfReader(staticSections(calculationConstantsService.getConstants()));
 
         // Cover Page
-        addCoverPage(document);
+        addCoverPage(document, writer, staticSections);
 
         // Assumptions & Constants
-        addAssumptionsSection(document);
+        addStaticSection(document, writer, staticSections, StaticSection.ASSUMPTIONS);
 
         // Installation Cost Section
         addInstallationCostSection(document, response);
@@ -64,63 +159,130 @@ public class RoiPdfReportService {
         addWorkedExampleSection(document, response);
 
         // Charts
-        addCharts(document, response);
+        addCharts(document, writer, response);
 
         // Summary Table
         addSummarySection(document, response);
 
         // Formulas
-        addFormulasSection(document);
+        addStaticSection(document, writer, staticSections, StaticSection.FORMULAS);
 
         // Explanatory Notes
-        addNotesSection(document);
+        addStaticSection(document, writer, staticSections, StaticSection.NOTES);
 
         document.close();
         writer.close();
-        return baos.toByteArray();
+        staticSections.close();
+        out.flush();
+    }
+
+    private static List<Element> coverTitle() {
+        Paragraph title = new Paragraph("The Big Green Energy Company\nROI Calculation Report", TITLE_FONT);
+        title.setAlignment(Element.ALIGN_CENTER);
+        return List.of(title);
+    }
+
+    private void addCoverPage(Document document, PdfWriter writer, PdfReader staticSections) throws DocumentException {
+        addStaticSection(document, writer, staticSections, StaticSection.COVER_TITLE);
+        document.add(new Paragraph("Date: " + LocalDate.now(), BODY_FONT));
+        document.add(new Paragraph(" "));
     }
 
-    public String generateRoiReportToFile(RoiCalculationResponse response, String reportId) throws IOException, DocumentException {
-        String dirPath = "./pdf";
-        File dir = new File(dirPath);
-        if (!dir.exists()) {
-            dir.mkdirs();
+    private static List<Element> assumptionsSection(CalculationConstants constants) {
+        List<Element> elements = new ArrayList<>();
+        elements.add(new Paragraph("Assumptions & Constants", SECTION_FONT));
+        elements.add(new Paragraph(" "));
+        elements.add(new Paragraph("- Battery efficiency: " + percent(constants.getBatteryEfficiency())
+            + " (round-trip efficiency for battery storage)"));
+        elements.add(new Paragraph("- Usable battery percentage: 90% (portion of battery capacity that is usable)"));
+        elements.add(new Paragraph("- Battery degradation: " + percent(constants.getKneeCapacity()) + " capacity after "
+            + constants.getKneeYear() + " years, linear decline to 0% at " + constants.getEndOfLifeYears() + " years"));
+        elements.add(new Paragraph("- Maximum battery lifespan: " + constants.getEndOfLifeYears() + " years"));
+        StringJoiner directions = new StringJoiner(", ");
+        for (RoiRequest.CardinalDirection direction : RoiRequest.CardinalDirection.values()) {
+            directions.add(CalculationConstants.directionKey(direction) + " "
+                + percent(constants.directionMultiplier(direction)));
         }
-        String filePath = dirPath + "/roi-report-" + reportId + ".pdf";
-        try (FileOutputStream fos = new FileOutputStream(filePath)) {
-            byte[] pdfBytes = generateRoiReport(response);
-            fos.write(pdfBytes);
+        elements.add(new Paragraph("- Solar output by panel direction: " + directions));
+        elements.add(new Paragraph("- Solar generation factor: 850 kWh/kW/year (typical UK value)"));
+        elements.add(new Paragraph("- Solar self-use percentage: 50% (if not home during day), 70% (if home during day)"));
+        elements.add(new Paragraph("- Solar export percentage: 50% (if not home during day), 30% (if home during day)"));
+        elements.add(new Paragraph("- Battery cost per kWh: £500.00"));
+        elements.add(new Paragraph("- Solar cost per kW: £1,500.00"));
+        elements.add(new Paragraph("- Tariff rates: User-selected or typical market rates for peak, off-peak, and export"));
+        elements.add(new Paragraph("- All calculations are based on the above constants and user-provided inputs."));
+        elements.add(new Paragraph(" "));
+        return elements;
+    }
+
+    private static String percent(double fraction) {
+        return new DecimalFormat("0.#", DecimalFormatSymbols.getInstance(Locale.UK)).format(fraction * 100) + "%";
+    }
+
+    /**
+     * Gets the static sections laid out for these constants, laying them out if the constants
+     * have changed since the last report. Concurrent reports after a change may each lay them
+     * out; they produce the same result.
+     */
+    private byte[] staticSections(CalculationConstants constants) {
+        StaticSections current = staticSections;
+        if (current == null || current.constantsVersion() != constants.getVersion()) {
+            current = new StaticSections(constants.getVersion(), renderStaticSections(constants));
+            staticSections = current;
         }
-        return filePath;
+        return current.pdf();
     }
 
-    private void addCoverPage(Document document) throws DocumentException {
-        Paragraph title = new Paragraph("The Big Green Energy Company\nROI Calculation Report", new Font(Font.HELVETICA, 24, Font.BOLD, new Color(34, 139, 34)));
-        title.setAlignment(Element.ALIGN_CENTER);
-        document.add(title);
-        document.add(new Paragraph("Date: " + LocalDate.now(), new Font(Font.HELVETICA, 12)));
-        document.add(new Paragraph(" "));
+    /**
+     * Places a pre-rendered section in the flow as a form XObject; it moves to the next page
+     * whole if it does not fit on the current one.
+     */
+    private void addStaticSection(Document document, PdfWriter writer, PdfReader staticSections, StaticSection section) throws DocumentException {
+        document.add(Image.getInstance(writer.getImportedPage(staticSections, section.ordinal() + 1)));
     }
 
-    private void addAssumptionsSection(Document document) throws DocumentException {
-        document.add(new Paragraph("Assumptions & Constants", new Font(Font.HELVETICA, 16, Font.BOLD, new Color(34, 139, 34))));
-        document.add(new Paragraph(" "));
-        document.add(new Paragraph("- Battery efficiency: 85% (round-trip efficiency for battery storage)"));
-        document.add(new Paragraph("- Usable battery percentage: 90% (portion of battery capacity that is usable)"));
-        document.add(new Paragraph("- Battery degradation: 70% capacity after 10 years, linear decline to 0% at 15 years"));
-        document.add(new Paragraph("- Maximum battery lifespan: 15 years"));
-        document.add(new Paragraph("- Solar generation factor: 850 kWh/kW/year (typical UK value)"));
-        document.add(new Paragraph("- Solar self-use percentage: 50% (if not home during day), 70% (if home during day)"));
-        document.add(new Paragraph("- Solar export percentage: 50% (if not home during day), 30% (if home during day)"));
-        document.add(new Paragraph("- Battery cost per kWh: £500.00"));
-        document.add(new Paragraph("- Solar cost per kW: £1,500.00"));
-        document.add(new Paragraph("- Tariff rates: User-selected or typical market rates for peak, off-peak, and export"));
-        document.add(new Paragraph("- All calculations are based on the above constants and user-provided inputs."));
-        document.add(new Paragraph(" "));
+    /**
+     * Lays the static sections out once, each on its own page cropped to the section's height
+     * and as wide as the report body.
+     */
+    private static byte[] renderStaticSections(CalculationConstants constants) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            Document document = new Document();
+            PdfWriter writer = PdfWriter.getInstance(document, out);
+            for (StaticSection section : StaticSection.values()) {
+                ColumnText measure = layOut(section, constants, null, BODY_HEIGHT);
+                if ((measure.go(true) & ColumnText.NO_MORE_TEXT) == 0) {
+                    throw new IllegalStateException(section + " does not fit on one page");
+                }
+                float height = BODY_HEIGHT - measure.getYLine();
+                document.setPageSize(new Rectangle(BODY_WIDTH, height));
+                if (document.isOpen()) {
+                    document.newPage();
+                } else {
+                    document.open();
+                }
+                layOut(section, constants, writer.getDirectContent(), height).go();
+            }
+            document.close();
+            return out.toByteArray();
+        } catch (DocumentException e) {
+            throw new IllegalStateException("Failed to render static report sections", e);
+        }
+    }
+
+    private static ColumnText layOut(StaticSection section, CalculationConstants constants, PdfContentByte canvas,
+            float height) {
+        ColumnText column = new ColumnText(canvas);
+        column.setSimpleColumn(0, 0, BODY_WIDTH, height);
+        for (Element element : section.elements.apply(constants)) {
+            column.addElement(element);
+        }
+        return column;
     }
 
     private void addInstallationCostSection(Document document, RoiCalculationResponse response) throws DocumentException {
-        document.add(new Paragraph("Installation Cost Assumptions", new Font(Font.HELVETICA, 14, Font.BOLD, new Color(34, 139, 34))));
+        document.add(new Paragraph("Installation Cost Assumptions", SUBSECTION_FONT));
         if (response.getTotalCost() != null) {
             document.add(new Paragraph(String.format("- Assumed total installation cost: £%.2f %s",
                 response.getTotalCost().getAmount(),
@@ -133,13 +295,13 @@ public class RoiPdfReportService {
     }
 
     private void addInputSummary(Document document, RoiCalculationResponse response) throws DocumentException {
-        document.add(new Paragraph("Input Summary", new Font(Font.HELVETICA, 16, Font.BOLD, new Color(34, 139, 34))));
+        document.add(new Paragraph("Input Summary", SECTION_FONT));
         // TODO: Add a table or list of all input values from response
         document.add(new Paragraph(" "));
     }
 
     private void addCalculationBreakdown(Document document, RoiCalculationResponse response) throws DocumentException {
-        document.add(new Paragraph("Calculation Breakdown (Yearly Table)", new Font(Font.HELVETICA, 16, Font.BOLD, new Color(34, 139, 34))));
+        document.add(new Paragraph("Calculation Breakdown (Yearly Table)", SECTION_FONT));
         document.add(new Paragraph(" "));
         if (response.getYearlyBreakdown() != null && !response.getYearlyBreakdown().isEmpty()) {
             PdfPTable table = new PdfPTable(10);
@@ -148,31 +310,29 @@ public class RoiPdfReportService {
                 "Year", "Usable Battery (kWh)", "Degradation", "Shiftable (kWh)", "Battery Savings (£)",
                 "Solar Used (kWh)", "Solar Export (kWh)", "Solar Savings (£)", "Yearly Total (£)", "Costs Outstanding (£)"
             };
-            Font headerFont = new Font(Font.HELVETICA, 10, Font.BOLD, new Color(34, 139, 34));
-            Font cellFont = new Font(Font.HELVETICA, 9);
             for (String header : headers) {
-                PdfPCell cell = new PdfPCell(new Paragraph(header, headerFont));
+                PdfPCell cell = new PdfPCell(new Paragraph(header, HEADER_CELL_FONT));
                 cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-                cell.setBackgroundColor(new Color(220, 255, 220));
+                cell.setBackgroundColor(HEADER_BACKGROUND);
                 table.addCell(cell);
             }
             for (var yb : response.getYearlyBreakdown()) {
-                table.addCell(new Paragraph(String.valueOf(yb.getYear()), cellFont));
-                table.addCell(new Paragraph(String.format("%.2f", yb.getUsableBatteryMaxCapacity()), cellFont));
-                table.addCell(new Paragraph(String.format("%.2f", yb.getDegradationFactor()), cellFont));
-                table.addCell(new Paragraph(String.format("%.2f", yb.getShiftable()), cellFont));
-                table.addCell(new Paragraph(String.format("£%d", Math.round(yb.getBatterySavings())), cellFont));
-                table.addCell(new Paragraph(String.format("%.2f", yb.getSolarUsed()), cellFont));
-                table.addCell(new Paragraph(String.format("%.2f", yb.getSolarExport()), cellFont));
+                table.addCell(new Paragraph(String.valueOf(yb.getYear()), CELL_FONT));
+                table.addCell(new Paragraph(String.format("%.2f", yb.getUsableBatteryMaxCapacity()), CELL_FONT));
+                table.addCell(new Paragraph(String.format("%.2f", yb.getDegradationFactor()), CELL_FONT));
+                table.addCell(new Paragraph(String.format("%.2f", yb.getShiftable()), CELL_FONT));
+                table.addCell(new Paragraph(String.format("£%d", Math.round(yb.getBatterySavings())), CELL_FONT));
+                table.addCell(new Paragraph(String.format("%.2f", yb.getSolarUsed()), CELL_FONT));
+                table.addCell(new Paragraph(String.format("%.2f", yb.getSolarExport()), CELL_FONT));
                 double solarTotal = yb.getSolarUsed() + yb.getSolarExport();
                 int usedPct = solarTotal > 0 ? (int)Math.round(100.0 * yb.getSolarUsed() / solarTotal) : 0;
                 int exportPct = solarTotal > 0 ? (int)Math.round(100.0 * yb.getSolarExport() / solarTotal) : 0;
-                table.addCell(new Paragraph(String.format("£%d", Math.round(yb.getSolarSavingsSelfUse() + yb.getSolarSavingsExport())), cellFont));
-                table.addCell(new Paragraph(String.format("£%d", Math.round(yb.getYearlyTotalSavings())), cellFont));
-                table.addCell(new Paragraph(String.format("£%d", Math.round(yb.getCumulativeSavings())), cellFont));
+                table.addCell(new Paragraph(String.format("£%d", Math.round(yb.getSolarSavingsSelfUse() + yb.getSolarSavingsExport())), CELL_FONT));
+                table.addCell(new Paragraph(String.format("£%d", Math.round(yb.getYearlyTotalSavings())), CELL_FONT));
+                table.addCell(new Paragraph(String.format("£%d", Math.round(yb.getCumulativeSavings())), CELL_FONT));
             }
             document.add(table);
-            document.add(new Paragraph("Note: All cost values in this table are rounded to the nearest pound.", new Font(Font.HELVETICA, 7, Font.ITALIC, Color.DARK_GRAY)));
+            document.add(new Paragraph("Note: All cost values in this table are rounded to the nearest pound.", NOTE_FONT));
         } else {
             document.add(new Paragraph("No yearly breakdown data available."));
         }
@@ -180,7 +340,7 @@ public class RoiPdfReportService {
     }
 
     private void addWorkedExampleSection(Document document, RoiCalculationResponse response) throws DocumentException {
-        document.add(new Paragraph("Worked Example: Year 1 ... Year 15", new Font(Font.HELVETICA, 16, Font.BOLD, new Color(34, 139, 34))));
+        document.add(new Paragraph("Worked Example: Year 1 ... Year 15", SECTION_FONT));
         document.add(new Paragraph(" "));
         // For demonstration, we use the first and last data points from the chart data
         if (response.getRoiChartData() != null && response.getRoiChartData().getDataPoints() != null && !response.getRoiChartData().getDataPoints().isEmpty()) {
@@ -189,13 +349,13 @@ public class RoiPdfReportService {
             RoiChartDataPoint year15 = dataPoints.get(dataPoints.size() - 1);
 
             // Year 1
-            document.add(new Paragraph("Year 1:", new Font(Font.HELVETICA, 14, Font.BOLD)));
+            document.add(new Paragraph("Year 1:", YEAR_FONT));
             addWorkedExampleYear(document, year1, 1, response);
             document.add(new Paragraph(" "));
-            document.add(new Paragraph("...", new Font(Font.HELVETICA, 14, Font.BOLD)));
+            document.add(new Paragraph("...", YEAR_FONT));
             document.add(new Paragraph(" "));
             // Year 15
-            document.add(new Paragraph("Year 15:", new Font(Font.HELVETICA, 14, Font.BOLD)));
+            document.add(new Paragraph("Year 15:", YEAR_FONT));
             addWorkedExampleYear(document, year15, 15, response);
             document.add(new Paragraph(" "));
         } else {
@@ -213,7 +373,7 @@ public class RoiPdfReportService {
             // Add blank line before working out
             document.add(new Paragraph(" "));
             // 'Working Out (Year 1):' in regular font size (not bold)
-            document.add(new Paragraph("  Working Out (Year 1):", new Font(Font.HELVETICA, 10)));
+            document.add(new Paragraph("  Working Out (Year 1):", SMALL_FONT));
             // Data lines
             document.add(new Paragraph(String.format("    Usable Battery Max Capacity: %.2f kWh", yb.getUsableBatteryMaxCapacity())));
             document.add(new Paragraph(String.format("    Degradation Factor: %.2f", yb.getDegradationFactor())));
@@ -231,13 +391,13 @@ public class RoiPdfReportService {
             document.add(new Paragraph(String.format("    Solar Savings (export): £%d", Math.round(yb.getSolarSavingsExport()))));
             document.add(new Paragraph(String.format("    Costs Outstanding: £%d", Math.round(yb.getCumulativeSavings()))));
             // Total savings in regular font size (12pt, not bold)
-            document.add(new Paragraph(String.format("    Yearly Total Savings: £%d", Math.round(yb.getYearlyTotalSavings())), new Font(Font.HELVETICA, 12)));
+            document.add(new Paragraph(String.format("    Yearly Total Savings: £%d", Math.round(yb.getYearlyTotalSavings())), BODY_FONT));
         }
         // TODO: Add more detailed breakdown if available (battery savings, solar savings, etc.)
     }
 
-    private void addCharts(Document document, RoiCalculationResponse response) throws IOException, DocumentException {
-        document.add(new Paragraph("Cumulative Savings Chart", new Font(Font.HELVETICA, 16, Font.BOLD, new Color(34, 139, 34))));
+    private void addCharts(Document document, PdfWriter writer, RoiCalculationResponse response) throws IOException, DocumentException {
+        document.add(new Paragraph("Cumulative Savings Chart", SECTION_FONT));
         document.add(new Paragraph(" "));
         if (response.getYearlyBreakdown() != null && !response.getYearlyBreakdown().isEmpty()) {
             DefaultCategoryDataset dataset = new DefaultCategoryDataset();
@@ -252,10 +412,7 @@ public class RoiPdfReportService {
                 PlotOrientation.VERTICAL,
                 false, true, false
             );
-            BufferedImage chartImage = chart.createBufferedImage(600, 300);
-            java.io.ByteArrayOutputStream chartBaos = new java.io.ByteArrayOutputStream();
-            ImageIO.write(chartImage, "png", chartBaos);
-            Image chartPdfImage = Image.getInstance(chartBaos.toByteArray());
+            Image chartPdfImage = vectorCharts ? drawVectorChart(writer, chart) : drawPngChart(chart);
             chartPdfImage.setAlignment(Element.ALIGN_CENTER);
             document.add(chartPdfImage);
         } else {
@@ -264,49 +421,75 @@ public class RoiPdfReportService {
         document.add(new Paragraph(" "));
     }
 
+    /**
+     * Draws the chart straight into a PDF template through OpenPDF's Graphics2D bridge, so the
+     * lines, text and axes end up as PDF drawing operators.
+     */
+    private Image drawVectorChart(PdfWriter writer, JFreeChart chart) throws DocumentException {
+        PdfTemplate template = writer.getDirectContent().createTemplate(CHART_WIDTH, CHART_HEIGHT);
+        Graphics2D g2 = template.createGraphics(CHART_WIDTH, CHART_HEIGHT);
+        try {
+            chart.draw(g2, new Rectangle2D.Double(0, 0, CHART_WIDTH, CHART_HEIGHT));
+        } finally {
+            g2.dispose();
+        }
+        return Image.getInstance(template);
+    }
+
+    private Image drawPngChart(JFreeChart chart) throws IOException, DocumentException {
+        BufferedImage chartImage = chart.createBufferedImage(CHART_WIDTH, CHART_HEIGHT);
+        ByteArrayOutputStream chartBaos = new ByteArrayOutputStream();
+        ImageIO.write(chartImage, "png", chartBaos);
+        return Image.getInstance(chartBaos.toByteArray());
+    }
+
     private void addSummarySection(Document document, RoiCalculationResponse response) throws DocumentException {
-        document.add(new Paragraph("Summary", new Font(Font.HELVETICA, 16, Font.BOLD, new Color(34, 139, 34))));
+        document.add(new Paragraph("Summary", SECTION_FONT));
         // TODO: Add a summary table with key results
         document.add(new Paragraph(" "));
     }
 
-    private void addFormulasSection(Document document) throws DocumentException {
-        document.add(new Paragraph("How We Calculate Your Results", new Font(Font.HELVETICA, 16, Font.BOLD, new Color(34, 139, 34))));
-        document.add(new Paragraph(" "));
-        document.add(new Paragraph("Battery Savings (per year):", new Font(Font.HELVETICA, 12, Font.BOLD)));
-        document.add(new Paragraph("  The lesser of (Usable Battery Max Capacity × Degradation Factor × 365) or Usage, multiplied by (Peak Rate minus Offpeak Rate), multiplied by Battery Efficiency."));
-        document.add(new Paragraph(" "));
-        document.add(new Paragraph("Solar Savings (per year):", new Font(Font.HELVETICA, 12, Font.BOLD)));
-        document.add(new Paragraph("  (Solar Used × Peak Rate) plus (Solar Export × Export Rate)."));
-        document.add(new Paragraph(" "));
-        document.add(new Paragraph("Yearly Total Savings:", new Font(Font.HELVETICA, 12, Font.BOLD)));
-        document.add(new Paragraph("  Battery Savings + Solar Savings."));
-        document.add(new Paragraph(" "));
-        document.add(new Paragraph("Cumulative Savings (per year):", new Font(Font.HELVETICA, 12, Font.BOLD)));
-        document.add(new Paragraph("  The sum of Yearly Total Savings up to this year, minus the Initial Cost."));
-        document.add(new Paragraph(" "));
-        document.add(new Paragraph("Payback Period:", new Font(Font.HELVETICA, 12, Font.BOLD)));
-        document.add(new Paragraph("  The first year when Cumulative Savings becomes greater than zero."));
-        document.add(new Paragraph(" "));
-        document.add(new Paragraph("ROI Percentage:", new Font(Font.HELVETICA, 12, Font.BOLD)));
-        document.add(new Paragraph("  (Total Savings divided by Initial Cost) × 100."));
-        document.add(new Paragraph(" "));
-        document.add(new Paragraph("What the variables mean:", new Font(Font.HELVETICA, 12, Font.BOLD)));
-        document.add(new Paragraph("  Usable Battery Max Capacity: Maximum usable battery capacity (kWh)"));
-        document.add(new Paragraph("  Degradation Factor: Battery degradation for the year (e.g., 0.85)"));
-        document.add(new Paragraph("  Usage: Annual energy usage (kWh)"));
-        document.add(new Paragraph("  Peak Rate, Offpeak Rate, Export Rate: Tariff rates (GBP/kWh)"));
-        document.add(new Paragraph("  Solar Used: Solar energy used on-site (kWh)"));
-        document.add(new Paragraph("  Solar Export: Solar energy exported (kWh)"));
-        document.add(new Paragraph("  Battery Efficiency: Battery round-trip efficiency (e.g., 0.85)"));
-        document.add(new Paragraph("  Initial Cost: Upfront system cost (GBP)"));
-        document.add(new Paragraph("  Total Savings: Cumulative savings at the end of the period (GBP)"));
-        document.add(new Paragraph(" "));
+    private static List<Element> formulasSection() {
+        List<Element> elements = new ArrayList<>();
+        elements.add(new Paragraph("How We Calculate Your Results", SECTION_FONT));
+        elements.add(new Paragraph(" "));
+        elements.add(new Paragraph("Battery Savings (per year):", LABEL_FONT));
+        elements.add(new Paragraph("  The lesser of (Usable Battery Max Capacity × Degradation Factor × 365) or Usage, multiplied by (Peak Rate minus Offpeak Rate), multiplied by Battery Efficiency."));
+        elements.add(new Paragraph(" "));
+        elements.add(new Paragraph("Solar Savings (per year):", LABEL_FONT));
+        elements.add(new Paragraph("  (Solar Used × Peak Rate) plus (Solar Export × Export Rate)."));
+        elements.add(new Paragraph(" "));
+        elements.add(new Paragraph("Yearly Total Savings:", LABEL_FONT));
+        elements.add(new Paragraph("  Battery Savings + Solar Savings."));
+        elements.add(new Paragraph(" "));
+        elements.add(new Paragraph("Cumulative Savings (per year):", LABEL_FONT));
+        elements.add(new Paragraph("  The sum of Yearly Total Savings up to this year, minus the Initial Cost."));
+        elements.add(new Paragraph(" "));
+        elements.add(new Paragraph("Payback Period:", LABEL_FONT));
+        elements.add(new Paragraph("  The first year when Cumulative Savings becomes greater than zero."));
+        elements.add(new Paragraph(" "));
+        elements.add(new Paragraph("ROI Percentage:", LABEL_FONT));
+        elements.add(new Paragraph("  (Total Savings divided by Initial Cost) × 100."));
+        elements.add(new Paragraph(" "));
+        elements.add(new Paragraph("What the variables mean:", LABEL_FONT));
+        elements.add(new Paragraph("  Usable Battery Max Capacity: Maximum usable battery capacity (kWh)"));
+        elements.add(new Paragraph("  Degradation Factor: Battery degradation for the year (e.g., 0.85)"));
+        elements.add(new Paragraph("  Usage: Annual energy usage (kWh)"));
+        elements.add(new Paragraph("  Peak Rate, Offpeak Rate, Export Rate: Tariff rates (GBP/kWh)"));
+        elements.add(new Paragraph("  Solar Used: Solar energy used on-site (kWh)"));
+        elements.add(new Paragraph("  Solar Export: Solar energy exported (kWh)"));
+        elements.add(new Paragraph("  Battery Efficiency: Battery round-trip efficiency (e.g., 0.85)"));
+        elements.add(new Paragraph("  Initial Cost: Upfront system cost (GBP)"));
+        elements.add(new Paragraph("  Total Savings: Cumulative savings at the end of the period (GBP)"));
+        elements.add(new Paragraph(" "));
+        return elements;
     }
 
-    private void addNotesSection(Document document) throws DocumentException {
-        document.add(new Paragraph("Explanatory Notes", new Font(Font.HELVETICA, 16, Font.BOLD, new Color(34, 139, 34))));
-        document.add(new Paragraph("This report details the calculations and assumptions used to estimate the return on investment for your solar and battery installation. For questions, contact our support team."));
-        document.add(new Paragraph(" "));
+    private static List<Element> notesSection() {
+        List<Element> elements = new ArrayList<>();
+        elements.add(new Paragraph("Explanatory Notes", SECTION_FONT));
+        elements.add(new Paragraph("This report details the calculations and assumptions used to estimate the return on investment for your solar and battery installation. For questions, contact our support team."));
+        elements.add(new Paragraph(" "));
+        return elements;
     }
 } 
\ No newline at end of file
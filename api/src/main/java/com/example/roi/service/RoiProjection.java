@@ -0,0 +1,107 @@
+package com.example.roi.service;
+
+/**
+ * The numeric core of the ROI calculation: projects a system's savings year by year over
+ * the years tracked.
+ *
+ * Results are written into primitive arrays indexed by year - 1, so a projection allocates
+ * nothing. Each thread reuses one instance from {@link #scratch}; its values are only valid
+ * until that thread's next projection, so callers copy out what they keep into the response.
+ */
+final class RoiProjection {
+
+    static final int YEARS = CalculationConstants.TABLE_YEARS; // Years tracked
+
+    private static final ThreadLocal<RoiProjection> SCRATCH = ThreadLocal.withInitial(RoiProjection::new);
+
+    /** Battery degradation factor per year (0-1), 1 when there is no battery */
+    final double[] degradationFactor = new double[YEARS];
+    /** Energy the battery shifts to off-peak per year (kWh) */
+    final double[] shiftable = new double[YEARS];
+    /** Battery arbitrage savings per year (£) */
+    final double[] batterySavings = new double[YEARS];
+    /** Total savings per year (£) */
+    final double[] yearTotalSavings = new double[YEARS];
+    /** Savings to date less the initial cost, at the end of each year (£) */
+    final double[] cumulativeSavings = new double[YEARS];
+
+    /** Solar savings from self-use, the same every year (£) */
+    double solarSavingsSelfUse;
+    /** Solar savings from export, the same every year (£) */
+    double solarSavingsExport;
+    /** First year cumulative savings are positive, or 0 if they never are */
+    int paybackYear;
+    /** Mean of the years with positive savings, or 0 if there are none (£) */
+    double averageYearlySavings;
+
+    private RoiProjection() {
+    }
+
+    /**
+     * Gets this thread's reusable projection.
+     */
+    static RoiProjection scratch() {
+        return SCRATCH.get();
+    }
+
+    /**
+     * Projects savings for one system, overwriting the previous projection.
+     *
+     * @param constants Degradation curve and battery efficiency to use
+     * @param initialCost System cost, the starting (negative) cumulative savings (£)
+     * @param usableBatteryCapacity Usable battery capacity when new, 0 for no battery (kWh)
+     * @param usage Annual household consumption (kWh)
+     * @param peakRate Peak import rate (£/kWh)
+     * @param offpeakRate Off-peak import rate (£/kWh)
+     * @param exportRate Export rate (£/kWh)
+     * @param solarUsed Solar generation used on site per year (kWh)
+     * @param solarExport Solar generation exported per year (kWh)
+     * @return This projection
+     */
+    RoiProjection project(CalculationConstants constants, double initialCost, double usableBatteryCapacity, double usage,
+            double peakRate, double offpeakRate, double exportRate, double solarUsed, double solarExport) {
+        boolean isBatterySelected = usableBatteryCapacity > 0;
+        double batteryEfficiency = constants.getBatteryEfficiency();
+        solarSavingsSelfUse = solarUsed * peakRate;
+        solarSavingsExport = solarExport * exportRate;
+        double cumulative = -initialCost;
+        paybackYear = 0;
+        // Positive years are summed with compensation, as DoubleStream.average does
+        double sum = 0.0;
+        double compensation = 0.0;
+        int positiveYears = 0;
+
+        for (int year = 1; year <= YEARS; year++) {
+            int i = year - 1;
+            double yearBatterySavings = 0.0;
+            double yearDegradation = 1.0;
+            double yearShiftable = 0.0;
+            if (isBatterySelected) {
+                yearDegradation = constants.degradationFactor(year);
+                // Shiftable energy is limited by daily battery capacity over a year or total usage
+                yearShiftable = Math.min(usableBatteryCapacity * yearDegradation * 365, usage);
+                yearBatterySavings = yearShiftable * (peakRate - offpeakRate) * batteryEfficiency;
+            }
+            double total = yearBatterySavings + solarSavingsSelfUse + solarSavingsExport;
+            cumulative += total;
+
+            degradationFactor[i] = yearDegradation;
+            shiftable[i] = yearShiftable;
+            batterySavings[i] = yearBatterySavings;
+            yearTotalSavings[i] = total;
+            cumulativeSavings[i] = cumulative;
+            if (paybackYear == 0 && cumulative > 0) {
+                paybackYear = year;
+            }
+            if (total > 0) {
+                double corrected = total - compensation;
+                double next = sum + corrected;
+                compensation = (next - sum) - corrected;
+                sum = next;
+                positiveYears++;
+            }
+        }
+        averageYearlySavings = positiveYears > 0 ? sum / positiveYears : 0.0;
+        return this;
+    }
+}
@@ -0,0 +1,264 @@
+package com.example.roi.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.roi.model.RoiCalculationResponse;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Renders PDF reports in the background so chart rasterisation and PDF layout never run on
+ * request threads.
+ *
+ * Reports go to a fixed pool of workers through a bounded queue. When the queue is full
+ * {@link #submit} throws {@link RejectedExecutionException} so callers can push back rather
+ * than pile up work. Each submitted report gets an ID whose {@link ReportJob} can be polled
+ * for progress; finished jobs are forgotten after the retention period.
+ *
+ * The ID is the report's {@link RoiReportStore} key, so a report that is already stored,
+ * queued or rendering is not queued again.
+ *
+ * Metrics: {@code roi.reports.queue.depth} and {@code roi.reports.active} gauges,
+ * {@code roi.reports.wait} (time queued) and {@code roi.reports.render} timers, and a
+ * {@code roi.reports.rejected} counter.
+ */
+@Service
+public class RoiReportQueueService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoiReportQueueService.class);
+
+    public enum State {
+        QUEUED,
+        RENDERING,
+        DONE,
+        FAILED
+    }
+
+    /**
+     * Progress of one submitted report.
+     */
+    public static class ReportJob {
+        private final String reportId;
+        private final Instant submittedAt;
+        private volatile State state = State.QUEUED;
+        private volatile Instant startedAt;
+        private volatile Instant finishedAt;
+        private volatile String error;
+
+        ReportJob(String reportId, Instant submittedAt) {
+            this.reportId = reportId;
+            this.submittedAt = submittedAt;
+        }
+
+        public String getReportId() {
+            return reportId;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public Instant getSubmittedAt() {
+            return submittedAt;
+        }
+
+        public Instant getStartedAt() {
+            return startedAt;
+        }
+
+        public Instant getFinishedAt() {
+            return finishedAt;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+
+    /**
+     * Queue entry; kept as its own type so a job's place in the queue can be found.
+     */
+    private class ReportTask implements Runnable {
+        private final ReportJob job;
+        private final RoiCalculationResponse response;
+
+        ReportTask(ReportJob job, RoiCalculationResponse response) {
+            this.job = job;
+            this.response = response;
+        }
+
+        @Override
+        public void run() {
+            job.startedAt = Instant.now();
+            job.state = State.RENDERING;
+            waitTimer.record(Duration.between(job.submittedAt, job.startedAt));
+            long startTime = System.nanoTime();
+            State outcome;
+            try {
+                roiReportStore.getOrRender(job.reportId, response);
+                outcome = State.DONE;
+            } catch (Exception e) {
+                logger.warn("Failed to render report {}: {}", job.reportId, e.getMessage());
+                job.error = e.getMessage();
+                outcome = State.FAILED;
+            }
+            renderTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+            // Publish the state last so anyone who sees it finished also sees the finish time
+            job.finishedAt = Instant.now();
+            job.state = outcome;
+        }
+    }
+
+    private final RoiReportStore roiReportStore;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, ReportJob> jobs = new ConcurrentHashMap<>();
+
+    @Value("${roi.reports.workers:2}")
+    private int workers;
+
+    @Value("${roi.reports.queue-capacity:50}")
+    private int queueCapacity;
+
+    @Value("${roi.reports.retention:PT1H}")
+    private Duration retention;
+
+    private ThreadPoolExecutor executor;
+    private Timer waitTimer;
+    private Timer renderTimer;
+    private Counter rejectedCounter;
+
+    public RoiReportQueueService(RoiReportStore roiReportStore, MeterRegistry meterRegistry) {
+        this.roiReportStore = roiReportStore;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "roi-report-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("roi.reports.queue.depth", executor, e -> e.getQueue().size())
+            .description("Reports waiting for a worker")
+            .register(meterRegistry);
+        Gauge.builder("roi.reports.active", executor, ThreadPoolExecutor::getActiveCount)
+            .description("Reports being rendered")
+            .register(meterRegistry);
+        waitTimer = Timer.builder("roi.reports.wait")
+            .description("Time reports spend queued before rendering starts")
+            .register(meterRegistry);
+        renderTimer = Timer.builder("roi.reports.render")
+            .description("Time to render a report")
+            .register(meterRegistry);
+        rejectedCounter = Counter.builder("roi.reports.rejected")
+            .description("Reports refused because the queue was full")
+            .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queues a report for rendering, unless the same report is already queued, rendering or
+     * stored.
+     *
+     * @param response The ROI calculation response to report on
+     * @return The queued job, the existing job for the same report, or a finished job if the
+     *         report is already stored
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public ReportJob submit(RoiCalculationResponse response) {
+        String reportId = roiReportStore.keyOf(response);
+        // Looked up and replaced in one step, so concurrent submissions of a report share one job
+        ReportJob[] queued = new ReportJob[1];
+        ReportJob job = jobs.compute(reportId, (id, existing) -> {
+            if (existing != null && (existing.state == State.QUEUED || existing.state == State.RENDERING)) {
+                return existing;
+            }
+            ReportJob created = new ReportJob(id, Instant.now());
+            if (roiReportStore.find(id).isPresent()) {
+                created.startedAt = created.submittedAt;
+                created.finishedAt = created.submittedAt;
+                created.state = State.DONE;
+            } else {
+                queued[0] = created;
+            }
+            return created;
+        });
+        if (job != queued[0]) {
+            return job;
+        }
+        try {
+            executor.execute(new ReportTask(job, response));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(reportId, job);
+            rejectedCounter.increment();
+            throw e;
+        }
+        return job;
+    }
+
+    /**
+     * Gets a submitted report's progress.
+     *
+     * @param reportId ID returned by {@link #submit}
+     * @return The job, or empty if unknown or expired
+     */
+    public Optional<ReportJob> getJob(String reportId) {
+        return Optional.ofNullable(jobs.get(reportId));
+    }
+
+    /**
+     * Gets how many reports are ahead of a queued one.
+     *
+     * @param job A queued job
+     * @return Zero-based position in the queue, or -1 if the job is no longer queued
+     */
+    public int getQueuePosition(ReportJob job) {
+        int position = 0;
+        for (Runnable queued : executor.getQueue()) {
+            if (queued instanceof ReportTask task && task.job == job) {
+                return position;
+            }
+            position++;
+        }
+        return -1;
+    }
+
+    /**
+     * Forgets finished jobs older than the retention period.
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictExpiredJobs() {
+        Instant cutoff = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.roi.service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import com.example.roi.model.RoiCalculationResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lowagie.text.DocumentException;
+
+/**
+ * Stores rendered PDF reports on disk, named after a SHA-256 hash of the calculation they
+ * report on, so identical calculations share one file instead of being rendered again.
+ *
+ * Reports are rendered to a temporary file in the store directory and moved into place
+ * atomically, so readers never see a partly written report. Reports not used (rendered,
+ * found again for an identical calculation, or downloaded) within the maximum age are deleted,
+ * then the least recently used are deleted until the store is within its maximum size.
+ *
+ * Use times are kept in memory rather than by touching the files, so a report's
+ * modification time, and with it its download validators, never changes. After a restart a
+ * report's age counts from when it was written.
+ */
+@Service
+public class RoiReportStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoiReportStore.class);
+
+    private static final String PREFIX = "roi-report-";
+    private static final String SUFFIX = ".pdf";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final Pattern FILE_NAME = Pattern.compile(PREFIX + "([0-9a-f]{64})" + Pattern.quote(SUFFIX));
+
+    private final RoiPdfReportService roiPdfReportService;
+    private final ObjectMapper objectMapper;
+
+    // Last time each report was found, for reports used since they were written
+    private final Map<String, Instant> lastUsed = new ConcurrentHashMap<>();
+
+    @Value("${roi.reports.directory:./pdf}")
+    private Path directory;
+
+    @Value("${roi.reports.store.max-size:500MB}")
+    private DataSize maxSize;
+
+    @Value("${roi.reports.store.max-age:P1D}")
+    private Duration maxAge;
+
+    public RoiReportStore(RoiPdfReportService roiPdfReportService, ObjectMapper objectMapper) {
+        this.roiPdfReportService = roiPdfReportService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Gets the key a calculation's report is stored under.
+     *
+     * @param response The ROI calculation response to report on
+     * @return Hex SHA-256 of the response's JSON form
+     */
+    public String keyOf(RoiCalculationResponse response) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(response);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Gets the file name a report is stored and downloaded as.
+     *
+     * @param key Key from {@link #keyOf}
+     * @return The report's file name
+     */
+    public static String fileName(String key) {
+        return PREFIX + key + SUFFIX;
+    }
+
+    /**
+     * Finds a stored report, counting it as used so it is kept for another maximum age.
+     *
+     * @param key Key from {@link #keyOf}
+     * @return The report file, or empty if it has not been rendered or has expired
+     */
+    public Optional<Path> find(String key) {
+        Path file = directory.resolve(fileName(key));
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        lastUsed.put(key, Instant.now());
+        return Optional.of(file);
+    }
+
+    /**
+     * Finds a stored report by file name. Only names this store generates are looked up, so
+     * the name cannot reach outside the store directory.
+     *
+     * @param fileName Name from {@link #fileName}
+     * @return The report file, or empty if the name is not a report name or it is not stored
+     */
+    public Optional<Path> findByFileName(String fileName) {
+        Matcher matcher = FILE_NAME.matcher(fileName);
+        return matcher.matches() ? find(matcher.group(1)) : Optional.empty();
+    }
+
+    /**
+     * Gets a stored report, rendering it first if it is not already stored.
+     *
+     * @param key Key from {@link #keyOf}
+     * @param response The ROI calculation response to report on
+     * @return The report file
+     */
+    public Path getOrRender(String key, RoiCalculationResponse response) throws IOException, DocumentException {
+        Optional<Path> existing = find(key);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+        Files.createDirectories(directory);
+        Path target = directory.resolve(fileName(key));
+        Path temp = Files.createTempFile(directory, PREFIX + key, TEMP_SUFFIX);
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                roiPdfReportService.writeRoiReport(response, out);
+            }
+            // A concurrent render of the same report writes identical content, so either may win
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return target;
+    }
+
+    /**
+     * Deletes reports not used within the maximum age, then the least recently used reports
+     * until the store is no bigger than the maximum size. Abandoned temporary files are
+     * deleted by age too.
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictExpiredReports() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        Instant cutoff = Instant.now().minus(maxAge);
+        List<StoredFile> reports = new ArrayList<>();
+        Set<String> storedKeys = new HashSet<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                Matcher matcher = FILE_NAME.matcher(name);
+                String key = matcher.matches() ? matcher.group(1) : null;
+                if (key == null && !(name.startsWith(PREFIX) && name.endsWith(TEMP_SUFFIX))) {
+                    continue;
+                }
+                Instant used = Files.getLastModifiedTime(file).toInstant();
+                Instant found = key != null ? lastUsed.get(key) : null;
+                if (found != null && found.isAfter(used)) {
+                    used = found;
+                }
+                if (used.isBefore(cutoff)) {
+                    delete(file, key);
+                } else if (key != null) {
+                    storedKeys.add(key);
+                    reports.add(new StoredFile(file, key, used, Files.size(file)));
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to sweep report store {}: {}", directory, e.getMessage());
+            return;
+        }
+        // Forget reports deleted by anything other than this sweep
+        lastUsed.keySet().retainAll(storedKeys);
+
+        long totalSize = reports.stream().mapToLong(StoredFile::size).sum();
+        reports.sort(Comparator.comparing(StoredFile::used));
+        for (StoredFile report : reports) {
+            if (totalSize <= maxSize.toBytes()) {
+                break;
+            }
+            delete(report.path(), report.key());
+            totalSize -= report.size();
+        }
+    }
+
+    private void delete(Path file, String key) {
+        try {
+            Files.deleteIfExists(file);
+            if (key != null) {
+                lastUsed.remove(key);
+            }
+            logger.debug("Evicted report {}", file.getFileName());
+        } catch (IOException e) {
+            logger.warn("Failed to evict report {}: {}", file, e.getMessage());
+        }
+    }
+
+    private record StoredFile(Path path, String key, Instant used, long size) {
+    }
+}
@@ -1,15 +1,21 @@
 package com.example.roi.service;
 
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 
 import com.example.roi.SolarInfo;
-import com.example.roi.YearCalculationResult;
 import com.example.roi.mcs.McsLookupOptimized;
 import com.example.roi.model.MonthlySavings;
 import com.example.roi.model.PaybackPeriod;
@@ -22,6 +28,8 @@ import com.example.roi.model.RoiYearlyBreakdown;
 import com.example.roi.model.Tariff;
 import com.example.roi.model.TotalCost;
 import com.example.roi.model.YearlySavings;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * Service for calculating Return on Investment (ROI) for battery and solar
@@ -34,99 +42,302 @@ public class RoiService {
 
     private static final Logger logger = LoggerFactory.getLogger(RoiService.class);
 
+    // Audited calculations are written here as one JSON event each, away from the service log
+    private static final Logger auditLogger = LoggerFactory.getLogger("roi.audit");
+
     // Constants for calculations
     private static final double BATTERY_USABLE_PERCENTAGE = 0.90;  // 90% of battery is usable
     
     // Initial cost estimates (could be parameterized in future versions)
     private static final double SOLAR_GENERATION_FACTOR = 850.0;   // kWh per kW of solar annually
-    private static final double BATTERY_EFFICIENCY = 0.85;         // 85% round-trip efficiency
-    private static final int MAX_BATTERY_YEARS = 15;               // Maximum battery lifespan in years
-    private static final double BATTERY_YEAR_10_CAPACITY = 0.70;   // Battery at 70% capacity after 10 years
     private static final double BATTERY_COST_PER_KWH = 500.0;      // Cost per kWh of battery
     private static final double SOLAR_COST_PER_KW = 1500.0;        // Cost per kW of solar
 
-    private static final int NUMBER_OF_YEARS_TO_TRACK = 15;
+    /**
+     * Name of the cache holding calculated responses, cleared along with the tariffs
+     */
+    public static final String CALCULATION_CACHE = "roiCalculations";
 
-    @Autowired
-    private TariffService tariffService;
-    
-    private McsLookupOptimized mcsLookup;
-    
-    // Initialize McsLookupOptimized with cached data (falls back to CSV if cache unavailable)
-    public RoiService() {
-        try {
-            // Load the MCS lookup data using optimized cache-first approach
-            String csvPath = getClass().getClassLoader().getResource("mcs/mcs_synthetic_dataset.csv").getPath();
-            String cachePath = getClass().getClassLoader().getResource("mcs/mcs_synthetic_dataset.cache").getPath();
-            this.mcsLookup = new McsLookupOptimized(cachePath, csvPath);
-            logger.info("Successfully initialized MCS lookup with optimized caching");
-        } catch (Exception e) {
-            logger.warn("Failed to load MCS lookup data, falling back to simple calculations: {}", e.getMessage());
-            this.mcsLookup = null;
+    private final TariffService tariffService;
+
+    private final McsLookupService mcsLookupService;
+
+    // Interpolate between MCS grid points instead of using the closest row, so results change smoothly
+    @Value("${mcs.lookup.interpolate:false}")
+    private boolean interpolateMcsLookup;
+
+    private final CalculationConstantsService calculationConstantsService;
+
+    @Autowired(required = false)
+    private CacheManager cacheManager;
+
+    private final ObjectMapper objectMapper;
+
+    // Fraction of requests (0-1) audited without asking, on top of those with the audit flag set
+    @Value("${roi.audit.sample-rate:0}")
+    private double auditSampleRate;
+
+    // Cached calculations round inputs to this many decimal places, so near-identical
+    // requests (slider positions, re-submits) share one cached result
+    @Value("${roi.calculation-cache.usage-decimals:0}")
+    private int usageDecimals;
+
+    @Value("${roi.calculation-cache.size-decimals:2}")
+    private int sizeDecimals;
+
+    public RoiService(TariffService tariffService, McsLookupService mcsLookupService,
+                      CalculationConstantsService calculationConstantsService, ObjectMapper objectMapper) {
+        this.tariffService = tariffService;
+        this.mcsLookupService = mcsLookupService;
+        this.calculationConstantsService = calculationConstantsService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Cache key for a calculation: the canonical request fields that affect the result,
+     * plus the tariff and calculation constants versions the result was calculated with
+     */
+    record CalculationKey(
+        RoiRequest.CardinalDirection solarPanelDirection,
+        boolean haveOrWillGetEv,
+        int homeOccupancyDuringWorkHours,
+        double batterySize,
+        double usage,
+        double solarSize,
+        boolean includePdfBreakdown,
+        long tariffVersion,
+        long constantsVersion
+    ) {
+        static CalculationKey of(RoiRequest request, long tariffVersion, long constantsVersion) {
+            return new CalculationKey(
+                request.getSolarPanelDirection(),
+                request.isHaveOrWillGetEv(),
+                request.getHomeOccupancyDuringWorkHours(),
+                request.getBatterySize(),
+                request.getUsage(),
+                request.getSolarSize(),
+                request.isIncludePdfBreakdown(),
+                tariffVersion,
+                constantsVersion
+            );
         }
     }
 
     /**
-     * Calculate battery degradation factor for a specific year Based on the
-     * fact that batteries are at 70% capacity after 10 years and we assume they
-     * won't live longer than 15 years
+     * Calculate ROI savings based on battery and solar parameters for a single
+     * chosen tariff.
+     *
+     * When the calculation cache is configured, usage and system sizes are rounded (see
+     * roi.calculation-cache.*-decimals) and the result is calculated from and cached against the
+     * rounded request and the tariff and constants versions, so repeated and near-identical
+     * requests skip the MCS lookup and yearly loop. Without the cache, and for audited requests,
+     * the inputs are used exactly as sent. Cached responses are shared between
+     * callers, so responses are immutable: the model objects have no setters and their lists
+     * are unmodifiable.
+     *
+     * Nothing is logged on the normal path. Audited requests (the request's audit flag, or
+     * a sampled fraction set by roi.audit.sample-rate) are calculated without the cache and
+     * write the year-by-year trace as a {@link CalculationAuditEvent} to the roi.audit logger.
+     *
+     * @param request Contains battery size, usage, and solar size information
+     * @return Response containing aggregated ROI metrics
+     */
+    public RoiCalculationResponse calculate(RoiRequest request) {
+        return calculate(request, null, null);
+    }
+
+    /**
+     * Calculates ROI with an MCS lookup table the caller already holds, so a batch of
+     * calculations waits for and reads the table once, and optionally with self-consumption
+     * percentages the caller already looked up (see {@link #lookupSelfConsumption}).
      *
-     * @param year The year for which to calculate degradation (1-indexed)
-     * @return Degradation factor (percentage of original capacity)
+     * @param request Contains battery size, usage, and solar size information
+     * @param mcsLookup Lookup table to use, or null to get it from {@link McsLookupService}
+     * @param selfConsumption Percentages by query, or null; a query not in it is looked up
+     * @return Response containing aggregated ROI metrics
      */
-    private double calculateBatteryDegradation(int year) {
-        if (year <= 0) {
-            return 1.0; // No degradation at installation/year 0
+    RoiCalculationResponse calculate(RoiRequest request, McsLookupOptimized mcsLookup,
+            Map<McsQuery, Double> selfConsumption) {
+        Cache cache = cacheManager != null ? cacheManager.getCache(CALCULATION_CACHE) : null;
+        String auditTrigger = auditTrigger(request);
+        CalculationConstants constants = calculationConstantsService.getConstants();
+        RoiRequest canonical = cache != null && auditTrigger == null ? canonicalise(request) : null;
+        if (canonical == null) {
+            // Not cached, so calculate from the inputs exactly as sent
+            return calculateUncached(request, auditTrigger, household(request, mcsLookup, selfConsumption, constants));
         }
 
-        if (year > MAX_BATTERY_YEARS) {
-            return 0.0; // No capacity after max years
+        CalculationKey key = CalculationKey.of(canonical, tariffService.getTariffVersion(), constants.getVersion());
+        try {
+            return cache.get(key, () -> calculateUncached(canonical, null, household(canonical, mcsLookup, selfConsumption, constants)));
+        } catch (Cache.ValueRetrievalException e) {
+            // Surface the calculation's own exception rather than the cache wrapper
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
         }
+    }
 
-        // Linear degradation model based on 70% capacity at year 10
-        if (year <= 10) {
-            // Linear decline to 70% by year 10
-            return 1.0 - ((1.0 - BATTERY_YEAR_10_CAPACITY) * year / 10.0);
-        } else {
-            // Accelerated decline after year 10
-            double remainingYears = MAX_BATTERY_YEARS - 10;
-            double remainingCapacity = BATTERY_YEAR_10_CAPACITY;
-            double yearsPastTen = year - 10;
+    /**
+     * Builds a copy of the request with the inputs rounded to the cache resolution and
+     * fields that do not affect the result left at their defaults.
+     *
+     * @param request The incoming request
+     * @return The canonical request, or null if an input is not a finite number
+     */
+    RoiRequest canonicalise(RoiRequest request) {
+        if (!Double.isFinite(request.getUsage()) || !Double.isFinite(request.getBatterySize())
+                || !Double.isFinite(request.getSolarSize())) {
+            return null;
+        }
+        RoiRequest canonical = new RoiRequest();
+        canonical.setSolarPanelDirection(request.getSolarPanelDirection());
+        canonical.setHaveOrWillGetEv(request.isHaveOrWillGetEv());
+        canonical.setHomeOccupancyDuringWorkHours(request.getHomeOccupancyDuringWorkHours());
+        canonical.setIncludePdfBreakdown(request.isIncludePdfBreakdown());
+        canonical.setUsage(round(request.getUsage(), usageDecimals));
+        canonical.setBatterySize(round(request.getBatterySize(), sizeDecimals));
+        canonical.setSolarSize(round(request.getSolarSize(), sizeDecimals));
+        return canonical;
+    }
+
+    /**
+     * Inputs of one MCS self-consumption lookup. Components are compared exactly, so a query
+     * only matches a lookup made for the same inputs.
+     */
+    record McsQuery(int occupancyDays, double annualConsumption, double pvGeneration, double batterySize) {
+    }
 
-            return BATTERY_YEAR_10_CAPACITY - (remainingCapacity * yearsPastTen / remainingYears);
+    /**
+     * Looks up the self-consumption percentages a batch of requests needs with one
+     * {@link McsLookupOptimized#lookupBatch} call over the distinct queries, instead of one
+     * lookup per request. Each query is worked out from the request as {@link #calculate}
+     * will use it (rounded when the calculation cache is configured).
+     *
+     * Requests whose query is missing from the result look it up themselves when calculated:
+     * invalid or out-of-range requests, so they fail on their own, and audited requests,
+     * which use their inputs unrounded. The interpolating lookup has no batch form, so in
+     * that mode nothing is looked up here.
+     *
+     * @param requests The batch; null entries are skipped
+     * @param mcsLookup Lookup table to use
+     * @return Percentages by query
+     */
+    Map<McsQuery, Double> lookupSelfConsumption(List<RoiRequest> requests, McsLookupOptimized mcsLookup) {
+        if (interpolateMcsLookup) {
+            return Map.of();
+        }
+        boolean cached = cacheManager != null && cacheManager.getCache(CALCULATION_CACHE) != null;
+        CalculationConstants constants = calculationConstantsService.getConstants();
+        Map<McsQuery, Integer> slots = new HashMap<>();
+        List<McsQuery> queries = new ArrayList<>();
+        for (RoiRequest request : requests) {
+            RoiRequest used = request == null ? null : cached ? canonicalise(request) : request;
+            if (used == null) {
+                continue;
+            }
+            double solarGenerationPerKw = SOLAR_GENERATION_FACTOR * constants.directionMultiplier(used.getSolarPanelDirection());
+            McsQuery query = new McsQuery(used.getHomeOccupancyDuringWorkHours(), used.getUsage(),
+                used.getSolarSize() * solarGenerationPerKw, used.getBatterySize());
+            if (McsLookupOptimized.isInRange(query.occupancyDays(), query.annualConsumption(),
+                    query.pvGeneration(), query.batterySize())
+                    && slots.putIfAbsent(query, queries.size()) == null) {
+                queries.add(query);
+            }
+        }
+        if (queries.isEmpty()) {
+            return Map.of();
         }
+
+        int count = queries.size();
+        int[] occupancy = new int[count];
+        double[] consumption = new double[count];
+        double[] pv = new double[count];
+        double[] battery = new double[count];
+        double[] percentages = new double[count];
+        for (int i = 0; i < count; i++) {
+            McsQuery query = queries.get(i);
+            occupancy[i] = query.occupancyDays();
+            consumption[i] = query.annualConsumption();
+            pv[i] = query.pvGeneration();
+            battery[i] = query.batterySize();
+        }
+        try {
+            mcsLookup.lookupBatch(occupancy, consumption, pv, battery, percentages);
+        } catch (IllegalArgumentException e) {
+            // E.g. an empty table: each request looks up, and fails, on its own
+            return Map.of();
+        }
+        Map<McsQuery, Double> selfConsumption = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            selfConsumption.put(queries.get(i), percentages[i]);
+        }
+        return selfConsumption;
     }
 
     /**
-     * Calculate battery savings for a specific year Based on the
-     * fact that batteries are at 70% capacity after 10 years and we assume they
-     * won't live longer than 15 years
+     * Rounds to a number of decimal places. Dividing by the power of ten, rather than
+     * multiplying by a step, gives the same double as parsing the rounded decimal.
+     */
+    private static double round(double value, int decimals) {
+        double scale = Math.pow(10, decimals);
+        return Math.round(value * scale) / scale;
+    }
+
+    /**
+     * Inputs that depend on the household but not on the system sizes, so a sweep over sizes
+     * for one household works them out once.
+     */
+    record Household(McsLookupOptimized mcsLookup, Map<McsQuery, Double> selfConsumption,
+            double solarGenerationPerKw, Tariff tariff, CalculationConstants constants) {
+    }
+
+    /**
+     * Works out the size-independent inputs for a request's household.
      *
-     * @param year The year for which to calculate savings
-     * @param usableBatteryMaxCapacity The maximum usable capacity of the battery
-     * @param request The RoiRequest containing battery size, usage, and solar size information
-     * @param selectedTariff The selected tariff for the calculation
-     * @return The calculated battery savings
+     * @param request Request giving the household's panel direction and EV status
+     * @param mcsLookup Lookup table to use, or null to get it from {@link McsLookupService}
+     * @return The household's invariants
      */
-    private double calculateBatterySavings(int year, double usableBatteryMaxCapacity, RoiRequest request, Tariff selectedTariff) {
-        double degradationFactor = calculateBatteryDegradation(year);
-        double effectiveBatteryCapacity = usableBatteryMaxCapacity * degradationFactor;
-        // Shiftable energy is limited by daily battery capacity over a year or total usage
-        double shiftable = Math.min(effectiveBatteryCapacity * 365, request.getUsage());
-        // Battery savings (arbitrage)
-        return shiftable * (selectedTariff.getPeakRate() - selectedTariff.getOffpeakRate()) * BATTERY_EFFICIENCY;
+    Household household(RoiRequest request, McsLookupOptimized mcsLookup) {
+        return household(request, mcsLookup, null, calculationConstantsService.getConstants());
+    }
+
+    private Household household(RoiRequest request, McsLookupOptimized mcsLookup,
+            Map<McsQuery, Double> selfConsumption, CalculationConstants constants) {
+        McsLookupOptimized lookup = mcsLookup != null ? mcsLookup : mcsLookupService.getLookup();
+        double solarGenerationPerKw = SOLAR_GENERATION_FACTOR * constants.directionMultiplier(request.getSolarPanelDirection());
+        return new Household(lookup, selfConsumption, solarGenerationPerKw, getTariff(request.isHaveOrWillGetEv()), constants);
     }
 
     /**
-     * Calculate ROI savings based on battery and solar parameters for a single
-     * chosen tariff.
+     * Works out the headline figures for one system size in closed form, without the
+     * year-by-year response, for sweeps over many sizes.
      *
-     * @param request Contains battery size, usage, and solar size information
-     * @return Response containing aggregated ROI metrics
+     * @param request Household inputs and system sizes
+     * @param household Invariants from {@link #household} for the same household
+     * @return Cost, payback year, average yearly savings and ROI
      */
-    public RoiCalculationResponse calculate(RoiRequest request) {
-        logger.info(request.toString());
+    RoiClosedForm.Summary summariseForHousehold(RoiRequest request, Household household) {
+        double initialCost = calculateInitialCost(request);
+        double usableBatteryMaxCapacity = request.getBatterySize() * BATTERY_USABLE_PERCENTAGE;
+        SolarInfo solarInfo = calculateSolarInfo(request, request.getHomeOccupancyDuringWorkHours(), household);
+        Tariff selectedTariff = household.tariff();
+        return RoiClosedForm.summarise(
+            household.constants(),
+            initialCost,
+            request.getBatterySize() > 0 ? usableBatteryMaxCapacity : 0.0,
+            request.getUsage(),
+            selectedTariff.getPeakRate(),
+            selectedTariff.getOffpeakRate(),
+            selectedTariff.getExportRate(),
+            solarInfo.solarUsed,
+            solarInfo.solarExport
+        );
+    }
 
+    private RoiCalculationResponse calculateUncached(RoiRequest request, String auditTrigger, Household household) {
         // Step 1: Extract and prepare input parameters
         boolean isBatterySelected = request.getBatterySize() > 0;
         int occupancyDays = request.getHomeOccupancyDuringWorkHours();
@@ -134,93 +345,99 @@ public class RoiService {
         // Step 2: Calculate initial system cost
         double initialCost = calculateInitialCost(request);
         TotalCost totalCost = new TotalCost(initialCost);
-        logger.info("Initial system cost: £{}", String.format("%.2f", initialCost));
 
         // Step 3: Calculate usable battery capacity (if battery is selected)
         double usableBatteryMaxCapacity = request.getBatterySize() * BATTERY_USABLE_PERCENTAGE;
 
         // Step 4: Calculate solar generation, self-use, and export
-        SolarInfo solarInfo = calculateSolarInfo(request, occupancyDays);
-        logSolarInfo(solarInfo);
-
-        // Step 5: Select the appropriate tariff for calculation
-        Tariff selectedTariff = getTariff(request.isHaveOrWillGetEv());
-
-        // Step 6: Initialize data structures for results
-        List<Double> yearlySavingsList = new ArrayList<>();
-        List<RoiChartDataPoint> chartDataPoints = new ArrayList<>();
-        List<RoiYearlyBreakdown> yearlyBreakdowns = request.isIncludePdfBreakdown() ? new ArrayList<>() : null;
-        double cumulativeSavings = -initialCost; // Start with negative initial cost
-        Integer paybackYearNum = null;
-
-        logger.info("===== YEAR-BY-YEAR CALCULATION for Tariff: {} =====", selectedTariff.getName());
-
-        // Step 7: Perform year-by-year calculation and collect results
-        for (int year = 1; year <= NUMBER_OF_YEARS_TO_TRACK; year++) {
-            YearCalculationResult yearResult = calculateYear(
-                year,
-                isBatterySelected,
-                usableBatteryMaxCapacity,
-                request,
-                selectedTariff,
-                solarInfo
-            );
+        SolarInfo solarInfo = calculateSolarInfo(request, occupancyDays, household);
+
+        // Step 5: The tariff for the household's EV status
+        Tariff selectedTariff = household.tariff();
+
+        // Step 6: Project savings year by year
+        RoiProjection projection = RoiProjection.scratch().project(
+            household.constants(),
+            initialCost,
+            isBatterySelected ? usableBatteryMaxCapacity : 0.0,
+            request.getUsage(),
+            selectedTariff.getPeakRate(),
+            selectedTariff.getOffpeakRate(),
+            selectedTariff.getExportRate(),
+            solarInfo.solarUsed,
+            solarInfo.solarExport
+        );
 
-            // Track yearly savings and update cumulative savings
-            yearlySavingsList.add(yearResult.yearTotalSavings);
-            cumulativeSavings += yearResult.yearTotalSavings;
-            chartDataPoints.add(new RoiChartDataPoint(year, cumulativeSavings));
+        // Step 7: Copy the projection into the response's per-year collections
+        List<RoiChartDataPoint> chartDataPoints = new ArrayList<>(RoiProjection.YEARS);
+        List<RoiYearlyBreakdown> yearlyBreakdowns = request.isIncludePdfBreakdown()
+            ? new ArrayList<>(RoiProjection.YEARS) : null;
+        List<CalculationAuditEvent.Year> auditYears = auditTrigger != null ? new ArrayList<>(RoiProjection.YEARS) : null;
+        for (int year = 1; year <= RoiProjection.YEARS; year++) {
+            int i = year - 1;
+            chartDataPoints.add(new RoiChartDataPoint(year, projection.cumulativeSavings[i]));
 
             // Optionally collect detailed breakdown for PDF
             if (yearlyBreakdowns != null) {
                 yearlyBreakdowns.add(new RoiYearlyBreakdown(
                     year,
                     usableBatteryMaxCapacity,
-                    yearResult.degradationFactor,
-                    yearResult.shiftable,
-                    yearResult.batterySavings,
+                    projection.degradationFactor[i],
+                    projection.shiftable[i],
+                    projection.batterySavings[i],
                     solarInfo.solarUsed,
                     solarInfo.solarExport,
-                    yearResult.solarSavingsSelfUse,
-                    yearResult.solarSavingsExport,
-                    yearResult.yearTotalSavings,
-                    cumulativeSavings
+                    projection.solarSavingsSelfUse,
+                    projection.solarSavingsExport,
+                    projection.yearTotalSavings[i],
+                    projection.cumulativeSavings[i]
                 ));
             }
 
-            logYearDebug(isBatterySelected, year, yearResult, solarInfo, cumulativeSavings);
-
-            // Check for payback year
-            if (paybackYearNum == null && cumulativeSavings > 0) {
-                paybackYearNum = year;
-                logger.info("PAYBACK ACHIEVED for {} in year {}", selectedTariff.getName(), year);
-            }
-
-            // Log summary at key years
-            if (year == 1 || year % 5 == 0 || year == MAX_BATTERY_YEARS) {
-                logger.info("Year {}: Annual savings £{}, Cumulative £{}",
-                        year,
-                        String.format("%.2f", yearResult.yearTotalSavings),
-                        String.format("%.2f", cumulativeSavings));
+            // Optionally collect the trace for an audited request
+            if (auditYears != null) {
+                auditYears.add(new CalculationAuditEvent.Year(
+                    year,
+                    projection.degradationFactor[i],
+                    projection.shiftable[i],
+                    projection.batterySavings[i],
+                    projection.solarSavingsSelfUse,
+                    projection.solarSavingsExport,
+                    projection.yearTotalSavings[i],
+                    projection.cumulativeSavings[i]
+                ));
             }
         }
 
         // Step 8: Aggregate results for response
-        double averageYearlySavings = yearlySavingsList.stream()
-                .filter(s -> s > 0)
-                .mapToDouble(Double::doubleValue)
-                .average()
-                .orElse(0.0);
+        double averageYearlySavings = projection.averageYearlySavings;
+        double cumulativeSavings = projection.cumulativeSavings[RoiProjection.YEARS - 1];
+        Integer paybackYearNum = projection.paybackYear > 0 ? projection.paybackYear : null;
 
         YearlySavings yearlySavings = new YearlySavings(averageYearlySavings);
         MonthlySavings monthlySavings = new MonthlySavings(averageYearlySavings / 12.0);
         PaybackPeriod paybackPeriod = new PaybackPeriod(paybackYearNum != null ? paybackYearNum : -1);
-        RoiChartData roiChartData = new RoiChartData(chartDataPoints, paybackYearNum);
+        RoiChartData roiChartData = new RoiChartData(List.copyOf(chartDataPoints), paybackYearNum);
         double totalSavings = cumulativeSavings + initialCost;
         double roiPercent = (initialCost > 0) ? (totalSavings / initialCost) * 100 : 0;
-        RoiPercentage roiPercentage = new RoiPercentage(roiPercent, MAX_BATTERY_YEARS);
+        RoiPercentage roiPercentage = new RoiPercentage(roiPercent, RoiProjection.YEARS);
 
-        logSummary(totalCost, yearlySavings, monthlySavings, paybackPeriod, cumulativeSavings, roiPercentage);
+        if (auditYears != null) {
+            writeAuditEvent(new CalculationAuditEvent(
+                Instant.now().toString(),
+                auditTrigger,
+                request,
+                selectedTariff.getName(),
+                initialCost,
+                solarInfo.solarGen,
+                solarInfo.solarUsed,
+                solarInfo.solarExport,
+                auditYears,
+                paybackPeriod.getYears(),
+                averageYearlySavings,
+                roiPercent
+            ));
+        }
 
         // Step 9: Construct and return the final response object
         return new RoiCalculationResponse(
@@ -230,41 +447,76 @@ public class RoiService {
                 paybackPeriod,
                 roiChartData,
                 roiPercentage,
-                yearlyBreakdowns
+                yearlyBreakdowns != null ? List.copyOf(yearlyBreakdowns) : null
         );
     }
 
-    private SolarInfo calculateSolarInfo(RoiRequest request, int occupancyDays) {
-        double actualSolarGeneration = SOLAR_GENERATION_FACTOR * getSolarDirectionOutputMultiplier(request.getSolarPanelDirection());
-        double solarGen = request.getSolarSize() * actualSolarGeneration;
+    /**
+     * Decides whether a request is audited: either the caller asked for it, or it falls
+     * in the sampled fraction (roi.audit.sample-rate).
+     *
+     * @param request The incoming request
+     * @return The audit trigger, or null if the request is not audited
+     */
+    private String auditTrigger(RoiRequest request) {
+        if (request.isAudit()) {
+            return "request";
+        }
+        if (auditSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < auditSampleRate) {
+            return "sampled";
+        }
+        return null;
+    }
+
+    private void writeAuditEvent(CalculationAuditEvent event) {
+        if (!auditLogger.isInfoEnabled()) {
+            return;
+        }
+        try {
+            auditLogger.info(objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException e) {
+            logger.warn("Failed to write calculation audit event: {}", e.getMessage());
+        }
+    }
+
+    private SolarInfo calculateSolarInfo(RoiRequest request, int occupancyDays, Household household) {
+        McsLookupOptimized mcsLookup = household.mcsLookup();
+        double solarGen = request.getSolarSize() * household.solarGenerationPerKw();
         double solarUsed;
         double solarExport;
         
-        // Use MCS lookup table for accurate self-consumption percentage
-        if (mcsLookup != null) {
-            try {
-                // Get self-consumption percentage from MCS data
-                double selfConsumptionPercentage = mcsLookup.lookup(
+        // Use MCS lookup table for accurate self-consumption percentage (required for accurate calculations)
+        try {
+            // Get self-consumption percentage from MCS data, unless the batch already looked it up
+            Double resolved = household.selfConsumption() != null
+                ? household.selfConsumption().get(new McsQuery(occupancyDays, request.getUsage(), solarGen, request.getBatterySize()))
+                : null;
+            double selfConsumptionPercentage;
+            if (resolved != null) {
+                selfConsumptionPercentage = resolved;
+            } else if (interpolateMcsLookup) {
+                selfConsumptionPercentage = mcsLookup.lookupInterpolated(occupancyDays, request.getUsage(), solarGen, request.getBatterySize());
+            } else {
+                selfConsumptionPercentage = mcsLookup.lookup(
                     occupancyDays,
                     request.getUsage(),  // annual consumption
                     solarGen,           // PV generation
                     request.getBatterySize()
                 );
-                
-                // Convert percentage to decimal and calculate actual values
-                double selfConsumptionRatio = selfConsumptionPercentage / 100.0;
-                solarUsed = solarGen * selfConsumptionRatio;
-                solarExport = solarGen - solarUsed;
-                
-                logger.debug("MCS Lookup: occupancyDays={}, consumption={}kWh, pvGen={}kWh, battery={}kWh -> {}% self-consumption", 
+            }
+            
+            // Convert percentage to decimal and calculate actual values
+            double selfConsumptionRatio = selfConsumptionPercentage / 100.0;
+            solarUsed = solarGen * selfConsumptionRatio;
+            solarExport = solarGen - solarUsed;
+            
+            if (logger.isTraceEnabled()) {
+                logger.trace("MCS Lookup: occupancyDays={}, consumption={}kWh, pvGen={}kWh, battery={}kWh -> {}% self-consumption",
                     occupancyDays, request.getUsage(), solarGen, request.getBatterySize(), selfConsumptionPercentage);
-                
-            } catch (Exception e) {
-                logger.warn("Failed to use MCS lookup, falling back to simple calculations: {}", e.getMessage());
-                throw new IllegalStateException("The data is not in range for the MCS lookup");
             }
-        } else {
-            // MCS lookup is required for accurate calculations
+            
+        } catch (Exception e) {
+            logger.warn("Failed to use MCS lookup: {}", e.getMessage());
             throw new IllegalStateException("The data is not in range for the MCS lookup");
         }
         
@@ -272,70 +524,6 @@ public class RoiService {
     }
 
 
-    private YearCalculationResult calculateYear(int year, boolean isBatterySelected, double usableBatteryMaxCapacity, RoiRequest request, Tariff selectedTariff, SolarInfo solarInfo) {
-        double batterySavings = 0.0;
-        double degradationFactor = 1.0;
-        double effectiveBatteryCapacity = 0.0;
-        double shiftable = 0.0;
-        if (isBatterySelected) {
-            degradationFactor = calculateBatteryDegradation(year);
-            effectiveBatteryCapacity = usableBatteryMaxCapacity * degradationFactor;
-            shiftable = Math.min(effectiveBatteryCapacity * 365, request.getUsage());
-            batterySavings = calculateBatterySavings(year, usableBatteryMaxCapacity, request, selectedTariff);
-        }
-        double solarSavingsSelfUse = solarInfo.solarUsed * selectedTariff.getPeakRate();
-        double solarSavingsExport = solarInfo.solarExport * selectedTariff.getExportRate();
-        double yearTotalSavings = batterySavings + solarSavingsSelfUse + solarSavingsExport;
-        return new YearCalculationResult(batterySavings, degradationFactor, effectiveBatteryCapacity, shiftable, solarSavingsSelfUse, solarSavingsExport, yearTotalSavings);
-    }
-
-    private void logSolarInfo(SolarInfo solarInfo) {
-        logger.info("Solar generation: {}kWh, self-used: {}kWh, exported: {}kWh",
-                String.format("%.2f", solarInfo.solarGen),
-                String.format("%.2f", solarInfo.solarUsed),
-                String.format("%.2f", solarInfo.solarExport));
-    }
-
-    private void logYearDebug(boolean isBatterySelected, int year, YearCalculationResult yearResult, SolarInfo solarInfo, double cumulativeSavings) {
-        if (isBatterySelected) {
-            logger.debug(
-                "[SOLAR+BATT] Year {}: batterySavings=£{}, degradationFactor={}, effectiveBatteryCapacity={}kWh, shiftable={}kWh, solarUsed={}kWh, solarExport={}kWh, solarSavings(self-use)=£{}, solarSavings(export)=£{}, yearTotalSavings=£{}, cumulativeSavings=£{}",
-                year,
-                String.format("%.2f", yearResult.batterySavings),
-                String.format("%.2f", yearResult.degradationFactor),
-                String.format("%.2f", yearResult.effectiveBatteryCapacity),
-                String.format("%.2f", yearResult.shiftable),
-                String.format("%.2f", solarInfo.solarUsed),
-                String.format("%.2f", solarInfo.solarExport),
-                String.format("%.2f", yearResult.solarSavingsSelfUse),
-                String.format("%.2f", yearResult.solarSavingsExport),
-                String.format("%.2f", yearResult.yearTotalSavings),
-                String.format("%.2f", cumulativeSavings)
-            );
-        } else {
-            logger.debug(
-                "[SOLAR] Year {}: solarUsed={}kWh, solarExport={}kWh, solarSavings(self-use)=£{}, solarSavings(export)=£{}, yearTotalSavings=£{}, cumulativeSavings=£{}",
-                year,
-                String.format("%.2f", solarInfo.solarUsed),
-                String.format("%.2f", solarInfo.solarExport),
-                String.format("%.2f", yearResult.solarSavingsSelfUse),
-                String.format("%.2f", yearResult.solarSavingsExport),
-                String.format("%.2f", yearResult.yearTotalSavings),
-                String.format("%.2f", cumulativeSavings)
-            );
-        }
-    }
-
-    private void logSummary(TotalCost totalCost, YearlySavings yearlySavings, MonthlySavings monthlySavings, PaybackPeriod paybackPeriod, double cumulativeSavings, RoiPercentage roiPercentage) {
-        logger.info("===== CALCULATION SUMMARY =====");
-        logger.info("Total Cost: £{}", String.format("%.2f", totalCost.getAmount()));
-        logger.info("Average Yearly Savings: £{}", String.format("%.2f", yearlySavings.getAmount()));
-        logger.info("Average Monthly Savings: £{}", String.format("%.2f", monthlySavings.getAmount()));
-        logger.info("Payback Period: {} years", paybackPeriod.getYears() == -1 ? "N/A" : paybackPeriod.getYears());
-        logger.info("Final Cumulative Savings (Year {}): £{}", MAX_BATTERY_YEARS, String.format("%.2f", cumulativeSavings));
-        logger.info("Overall ROI ({} years): {}%", roiPercentage.getPeriodYears(), String.format("%.2f", roiPercentage.getPercentage()));
-    }
-
     private double calculateInitialCost(RoiRequest request) {
         boolean isBatterySelected = (request.getBatterySize() > 0);
         if (isBatterySelected) {
@@ -346,33 +534,6 @@ public class RoiService {
         }
     }
 
-    /**
-     * Returns the typical output multiplier for a given solar panel direction.
-     * Multiplier is relative to south-facing (1.0 = 100% of optimal output).
-     *
-     * @param direction The cardinal direction the panels face
-     * @return Output multiplier (e.g., 1.0 for south, 0.8 for east/west, etc.)
-     */
-    public static double getSolarDirectionOutputMultiplier(RoiRequest.CardinalDirection direction) {
-        if (direction == null) {
-            return 1.0;
-        }
-        return switch (direction) {
-            case SOUTH ->
-                1.0;
-            case SOUTH_EAST, SOUTH_WEST ->
-                0.97;
-            case EAST, WEST ->
-                0.83;
-            case NORTH_EAST, NORTH_WEST ->
-                0.73;
-            case NORTH ->
-                0.63;
-            default ->
-                1.0;
-        };
-    }
-
     private Tariff getTariff (Boolean  needsEvTariff) {
 
 
@@ -391,7 +552,7 @@ public class RoiService {
                     return new IllegalStateException(message);
                 });
 
-        logger.info("Using tariff for calculation: {} (Tariff: {})", selectedTariff.getName(), selectedTariff.isEvRequired());
+        logger.trace("Using tariff for calculation: {} (EV tariff: {})", selectedTariff.getName(), selectedTariff.isEvRequired());
 
         return selectedTariff;  
     }
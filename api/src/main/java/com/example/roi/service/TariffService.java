@@ -2,6 +2,7 @@ package com.example.roi.service;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
@@ -13,6 +14,9 @@ import com.example.roi.model.Tariff;
 @Service
 public class TariffService {
 
+    // Bumped whenever the tariffs are reloaded so results derived from them can be told apart
+    private final AtomicLong tariffVersion = new AtomicLong();
+
     /**
      * Returns the list of tariffs, cached for performance
      *
@@ -34,12 +38,24 @@ public class TariffService {
     }
 
     /**
-     * Clears the tariff cache at midnight every day
+     * Returns the version of the current tariff set, which changes every time the
+     * tariff cache is cleared
+     *
+     * @return Current tariff version
+     */
+    public long getTariffVersion() {
+        return tariffVersion.get();
+    }
+
+    /**
+     * Clears the tariff cache, and the ROI results calculated from it, at midnight every day
      */
-    @CacheEvict(value = "tariffs", allEntries = true)
+    @CacheEvict(value = {"tariffs", RoiService.CALCULATION_CACHE}, allEntries = true, beforeInvocation = true)
     @Scheduled(cron = "0 0 0 * * ?") // Run at midnight every day
     public void clearTariffCache() {
-        // Method intentionally empty - just clearing the cache
+        // The caches are cleared before this runs, so a result keyed on the new version
+        // can only have been calculated from the new tariffs
+        tariffVersion.incrementAndGet();
         System.out.println("Tariff cache cleared at midnight");
     }
 }
@@ -0,0 +1,191 @@
+package com.example.roi.mcs;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import com.opencsv.exceptions.CsvException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class McsBinaryFormatTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static List<McsEntry> buildGrid(long seed) {
+        List<McsEntry> entries = new ArrayList<>();
+        for (int occupancy = 1; occupancy <= 5; occupancy++) {
+            for (double consumption = 1500; consumption <= 3500; consumption += 500) {
+                for (double pv = 1500; pv < 2500; pv += 100) {
+                    for (double battery = 0; battery <= 4; battery += 1) {
+                        double percentage = Math.min(100.0, 20 + occupancy * 5 + battery * 4 - pv / consumption * 10);
+                        entries.add(new McsEntry(
+                            occupancy, occupancy / 5.0, consumption, pv, battery, percentage,
+                            pv / consumption, battery * 365 / consumption
+                        ));
+                    }
+                }
+            }
+        }
+        Collections.shuffle(entries, new Random(seed));
+        return entries;
+    }
+
+    @Test
+    void testRoundTripPreservesColumns() throws IOException {
+        List<McsEntry> entries = buildGrid(1);
+        Path file = tempDir.resolve("grid.cache");
+        McsBinaryFormat.write(entries, file);
+
+        assertTrue(McsBinaryFormat.isBinaryFile(file));
+        McsBinaryFormat.MappedDataset dataset = McsBinaryFormat.open(file);
+        assertTrue(dataset.verifyChecksum());
+
+        McsColumnStore columns = dataset.getColumns();
+        assertEquals(entries.size(), columns.getRowCount());
+        assertTrue(columns.hasDerivedColumns());
+        assertEquals(0, columns.estimatedHeapBytes());
+        for (int row = 0; row < entries.size(); row++) {
+            McsEntry entry = entries.get(row);
+            assertEquals(entry.occupancyDays, columns.occupancyDays(row));
+            assertEquals(entry.annualConsumptionKwh, columns.annualConsumptionKwh(row));
+            assertEquals(entry.pvGenerationKwh, columns.pvGenerationKwh(row));
+            assertEquals(entry.batterySizeKwh, columns.batterySizeKwh(row));
+            assertEquals(entry.predictedSelfConsumptionPercentage, columns.predictedSelfConsumptionPercentage(row));
+            assertEquals(entry.occupancyDaysNormalized, columns.occupancyDaysNormalized(row));
+            assertEquals(entry.pvToConsumptionRatio, columns.pvToConsumptionRatio(row));
+            assertEquals(entry.batteryToConsumptionRatio, columns.batteryToConsumptionRatio(row));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> columns.pvGenerationKwh(entries.size()));
+    }
+
+    @Test
+    void testStoredGridIndexMatchesHeapLookup() throws IOException, CsvException {
+        List<McsEntry> entries = buildGrid(2);
+        Path file = tempDir.resolve("grid.cache");
+        McsBinaryFormat.write(entries, file);
+
+        McsLookupOptimized mapped = new McsLookupOptimized(file.toString(), tempDir.resolve("missing.csv").toString());
+        McsLookupOptimized heap = new McsLookupOptimized(McsColumnStore.fromEntries(entries, false), false);
+        assertTrue(mapped.isGridIndexed());
+
+        Random random = new Random(7);
+        for (int i = 0; i < 500; i++) {
+            int occupancy = 1 + random.nextInt(5);
+            double consumption = random.nextDouble() * 20000;
+            double pv = random.nextDouble() * 10000;
+            double battery = random.nextDouble() * 50;
+            McsLookupOptimized.MatchResult expected = heap.findClosestMatch(occupancy, consumption, pv, battery);
+            McsLookupOptimized.MatchResult actual = mapped.findClosestMatch(occupancy, consumption, pv, battery);
+            assertEquals(expected.matchedAnnualConsumption, actual.matchedAnnualConsumption);
+            assertEquals(expected.matchedPvGeneration, actual.matchedPvGeneration);
+            assertEquals(expected.matchedBatterySize, actual.matchedBatterySize);
+            assertEquals(expected.percentage, actual.percentage);
+            assertEquals(expected.similarity, actual.similarity);
+        }
+    }
+
+    @Test
+    void testNonGriddedDataHasNoStoredIndex() throws IOException {
+        List<McsEntry> entries = buildGrid(3);
+        entries.remove(0);
+        Path file = tempDir.resolve("partial.cache");
+        McsBinaryFormat.write(entries, file);
+
+        McsBinaryFormat.MappedDataset dataset = McsBinaryFormat.open(file);
+        assertNull(dataset.getGridIndex());
+        assertEquals(entries.size(), dataset.getColumns().getRowCount());
+    }
+
+    @Test
+    void testCsvFallbackWritesBinaryCache() throws IOException, CsvException {
+        Path csv = tempDir.resolve("data.csv");
+        Files.writeString(csv, String.join("\n",
+            "occupancy_days,occupancy_days_normalized,annual_consumption_kwh,pv_generation_kwh,battery_size_kwh,"
+                + "predicted_self_consumption_percentage,pv_to_consumption_ratio,battery_to_consumption_ratio",
+            "5,1.0,1750.0,400.0,2.0,65.0,0.23,0.42",
+            "3,0.6,3000.0,2500.0,0.0,30.0,0.83,0.0",
+            ""));
+        Path cache = tempDir.resolve("data.cache");
+
+        McsLookupOptimized fromCsv = new McsLookupOptimized(cache.toString(), csv.toString());
+        assertEquals(2, fromCsv.getEntryCount());
+        assertTrue(McsBinaryFormat.isBinaryFile(cache));
+
+        Files.delete(csv);
+        McsLookupOptimized fromCache = new McsLookupOptimized(cache.toString(), csv.toString());
+        assertEquals(65.0, fromCache.lookup(5, 1800, 450, 2));
+        assertEquals(30.0, fromCache.lookup(3, 3000, 2500, 0));
+    }
+
+    @Test
+    void testRejectsCorruptFiles() throws IOException {
+        Path file = tempDir.resolve("grid.cache");
+        McsBinaryFormat.write(buildGrid(4), file);
+        byte[] bytes = Files.readAllBytes(file);
+
+        Path truncated = tempDir.resolve("truncated.cache");
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 8));
+        assertThrows(IOException.class, () -> McsBinaryFormat.open(truncated));
+
+        byte[] newerVersion = bytes.clone();
+        ByteBuffer.wrap(newerVersion).order(ByteOrder.LITTLE_ENDIAN).putInt(4, McsBinaryFormat.VERSION + 1);
+        Path versioned = tempDir.resolve("versioned.cache");
+        Files.write(versioned, newerVersion);
+        assertThrows(IOException.class, () -> McsBinaryFormat.open(versioned));
+
+        byte[] flipped = bytes.clone();
+        flipped[flipped.length - 1] ^= 1;
+        Path corrupted = tempDir.resolve("corrupted.cache");
+        Files.write(corrupted, flipped);
+        McsBinaryFormat.MappedDataset dataset = McsBinaryFormat.open(corrupted);
+        assertNotNull(dataset);
+        assertFalse(dataset.verifyChecksum());
+
+        byte[] badIndex = bytes.clone();
+        ByteBuffer header = ByteBuffer.wrap(badIndex).order(ByteOrder.LITTLE_ENDIAN);
+        int rowByCell = header.getInt(McsBinaryFormat.OFFSET_SECTIONS + McsBinaryFormat.SECTION_ROW_BY_CELL * Integer.BYTES);
+        header.putInt(rowByCell, Integer.MAX_VALUE);
+        Path indexed = tempDir.resolve("bad-index.cache");
+        Files.write(indexed, badIndex);
+        // Opening does not walk the cell table; a lookup that reads the bad entry fails instead
+        McsGridIndex badGrid = McsBinaryFormat.open(indexed).getGridIndex();
+        assertNotNull(badGrid);
+        assertThrows(IllegalStateException.class, () -> badGrid.findBestRow(1, 1500, 1500, 0));
+        assertThrows(IllegalStateException.class, () -> badGrid.interpolate(dataset.getColumns(), 1, 1500, 1500, 0));
+
+        // A saved index is always for a complete grid, so an empty cell is corruption too
+        header.putInt(rowByCell, -1);
+        Files.write(indexed, badIndex);
+        McsGridIndex emptyCellGrid = McsBinaryFormat.open(indexed).getGridIndex();
+        assertThrows(IllegalStateException.class, () -> emptyCellGrid.findBestRow(1, 1500, 1500, 0));
+
+        // Grid dimensions that do not match the row count are caught on open
+        byte[] badDimensions = bytes.clone();
+        ByteBuffer.wrap(badDimensions).order(ByteOrder.LITTLE_ENDIAN).putInt(McsBinaryFormat.OFFSET_AXIS_LENGTHS, 4);
+        Path dimensioned = tempDir.resolve("bad-dimensions.cache");
+        Files.write(dimensioned, badDimensions);
+        IOException badDimensionsError = assertThrows(IOException.class, () -> McsBinaryFormat.open(dimensioned));
+        assertTrue(badDimensionsError.getMessage().contains(dimensioned.toString()));
+
+        Path notBinary = tempDir.resolve("legacy.cache");
+        Files.writeString(notBinary, "not a binary cache");
+        assertFalse(McsBinaryFormat.isBinaryFile(notBinary));
+        assertThrows(IOException.class, () -> McsBinaryFormat.open(notBinary));
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.roi.mcs;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class McsColumnStoreTest {
+
+    private static final List<McsEntry> ENTRIES = List.of(
+        new McsEntry(5, 1.0, 1750, 400, 0, 51.6, 0.2286, 0.0),
+        new McsEntry(1, 0.2, 2000, 700, 2.1, 75.0, 0.35, 0.3833)
+    );
+
+    @Test
+    void testColumnsPreserveRowOrderAndValues() {
+        McsColumnStore store = McsColumnStore.fromEntries(ENTRIES, false);
+
+        assertEquals(2, store.getRowCount());
+        assertEquals(1, store.occupancyDays(1));
+        assertEquals(2000.0, store.annualConsumptionKwh(1));
+        assertEquals(700.0, store.pvGenerationKwh(1));
+        assertEquals(2.1, store.batterySizeKwh(1));
+        assertEquals(51.6, store.predictedSelfConsumptionPercentage(0));
+    }
+
+    @Test
+    void testDerivedColumnsDroppedByDefault() {
+        McsColumnStore store = McsColumnStore.fromEntries(ENTRIES, false);
+
+        assertFalse(store.hasDerivedColumns());
+        assertThrows(IllegalStateException.class, () -> store.pvToConsumptionRatio(0));
+    }
+
+    @Test
+    void testDerivedColumnsKeptWhenRequested() {
+        McsColumnStore store = McsColumnStore.fromEntries(ENTRIES, true);
+
+        assertTrue(store.hasDerivedColumns());
+        assertEquals(0.2, store.occupancyDaysNormalized(1));
+        assertEquals(0.35, store.pvToConsumptionRatio(1));
+        assertEquals(0.3833, store.batteryToConsumptionRatio(1));
+    }
+}
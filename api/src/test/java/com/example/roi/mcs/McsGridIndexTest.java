@@ -0,0 +1,226 @@
+package com.example.roi.mcs;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class McsGridIndexTest {
+
+    /**
+     * Builds a shuffled grid shaped like the synthetic dataset (occupancy 1-5, consumption step 500,
+     * PV step 100, battery step 1), with heavily repeated percentages so ties are common.
+     */
+    static List<McsEntry> buildGrid(double pvStart, long seed) {
+        List<McsEntry> entries = new ArrayList<>();
+        for (int occupancy = 1; occupancy <= 5; occupancy++) {
+            for (double consumption = 1500; consumption <= 4000; consumption += 500) {
+                for (double pv = pvStart; pv < pvStart + 1600; pv += 100) {
+                    for (double battery = 0; battery <= 5; battery += 1) {
+                        double percentage = Math.floor(Math.min(100.0, 20 + occupancy * 5 + battery * 4 - pv / consumption * 10));
+                        entries.add(new McsEntry(
+                            occupancy, occupancy / 5.0, consumption, pv, battery, percentage,
+                            pv / consumption, battery * 365 / consumption
+                        ));
+                    }
+                }
+            }
+        }
+        Collections.shuffle(entries, new Random(seed));
+        return entries;
+    }
+
+    private static McsLookupOptimized lookup(List<McsEntry> entries, boolean useGridIndex) {
+        return new McsLookupOptimized(McsColumnStore.fromEntries(entries, false), useGridIndex);
+    }
+
+    private static void assertSameMatch(McsLookupOptimized indexed, McsLookupOptimized scanned,
+                                        int occupancy, double consumption, double pv, double battery) {
+        McsLookupOptimized.MatchResult expected = scanned.findClosestMatch(occupancy, consumption, pv, battery);
+        McsLookupOptimized.MatchResult actual = indexed.findClosestMatch(occupancy, consumption, pv, battery);
+        String query = occupancy + "/" + consumption + "/" + pv + "/" + battery;
+
+        assertEquals(expected.matchedOccupancyDays, actual.matchedOccupancyDays, query);
+        assertEquals(expected.matchedAnnualConsumption, actual.matchedAnnualConsumption, query);
+        assertEquals(expected.matchedPvGeneration, actual.matchedPvGeneration, query);
+        assertEquals(expected.matchedBatterySize, actual.matchedBatterySize, query);
+        assertEquals(expected.percentage, actual.percentage, query);
+        assertEquals(expected.similarity, actual.similarity, query);
+    }
+
+    @Test
+    void testGridIsDetected() {
+        McsLookupOptimized lookup = lookup(buildGrid(1500, 1), true);
+        assertTrue(lookup.isGridIndexed());
+    }
+
+    @Test
+    void testIncompleteGridFallsBackToScan() {
+        List<McsEntry> entries = buildGrid(1500, 2);
+        entries.remove(entries.size() - 1);
+
+        McsLookupOptimized lookup = lookup(entries, true);
+        assertFalse(lookup.isGridIndexed());
+        assertSameMatch(lookup, lookup(entries, false), 3, 2000, 2000, 2);
+    }
+
+    @Test
+    void testIrregularAxisFallsBackToScan() {
+        List<McsEntry> entries = new ArrayList<>();
+        for (double battery : new double[] {0, 1.1, 2.1, 3.1}) {
+            entries.add(new McsEntry(5, 1.0, 1750, 400, battery, 50 + battery, 0.2, 0.0));
+        }
+        assertFalse(lookup(entries, true).isGridIndexed());
+    }
+
+    @Test
+    void testSavedAxesMustAscend() {
+        IntBuffer rowByCell = IntBuffer.wrap(new int[] {0, 1, 2, 3, 4, 5, 6, 7});
+        double[] ascending = {0, 1};
+        assertNotNull(McsGridIndex.fromAxes(new int[] {1, 2}, ascending, ascending, new double[] {0}, rowByCell));
+
+        assertNull(McsGridIndex.fromAxes(new int[] {2, 1}, ascending, ascending, new double[] {0}, rowByCell));
+        assertNull(McsGridIndex.fromAxes(new int[] {1, 2}, new double[] {1, 0}, ascending, new double[] {0}, rowByCell));
+        assertNull(McsGridIndex.fromAxes(new int[] {1, 2}, ascending, new double[] {1, 1}, new double[] {0}, rowByCell));
+    }
+
+    @Test
+    void testRandomQueriesMatchLinearScan() {
+        List<McsEntry> entries = buildGrid(1500, 3);
+        McsLookupOptimized indexed = lookup(entries, true);
+        McsLookupOptimized scanned = lookup(entries, false);
+
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            assertSameMatch(indexed, scanned,
+                1 + random.nextInt(5),
+                random.nextDouble() * 20000,
+                random.nextDouble() * 10000,
+                random.nextDouble() * 50);
+        }
+    }
+
+    @Test
+    void testTiesOnGridMidpointsMatchLinearScan() {
+        List<McsEntry> entries = buildGrid(1500, 4);
+        McsLookupOptimized indexed = lookup(entries, true);
+        McsLookupOptimized scanned = lookup(entries, false);
+
+        // Values exactly on and exactly between grid points, where several rows score the same
+        for (int occupancy = 1; occupancy <= 5; occupancy++) {
+            for (double consumption = 1250; consumption <= 4250; consumption += 250) {
+                for (double pv = 1450; pv <= 3150; pv += 50) {
+                    for (double battery = 0; battery <= 6; battery += 0.5) {
+                        assertSameMatch(indexed, scanned, occupancy, consumption, pv, battery);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void testQueriesOutsideSimilarityRangeMatchLinearScan() {
+        // PV more than MAX_PV_GENERATION away from every row scores 0, so the index must defer to the scan
+        List<McsEntry> entries = buildGrid(15000, 5);
+        McsLookupOptimized indexed = lookup(entries, true);
+        McsLookupOptimized scanned = lookup(entries, false);
+
+        assertTrue(indexed.isGridIndexed());
+        assertSameMatch(indexed, scanned, 2, 3000, 0, 4);
+        assertSameMatch(indexed, scanned, 5, 20000, 1000, 50);
+        assertSameMatch(indexed, scanned, 1, 0, 10000, 0);
+    }
+
+    /**
+     * Builds a shuffled grid whose percentage is linear in every input, which multilinear
+     * interpolation reproduces exactly.
+     */
+    private static List<McsEntry> buildLinearGrid(long seed) {
+        List<McsEntry> entries = new ArrayList<>();
+        for (int occupancy = 1; occupancy <= 5; occupancy++) {
+            for (double consumption = 1500; consumption <= 4000; consumption += 500) {
+                for (double pv = 1500; pv < 3100; pv += 100) {
+                    for (double battery = 0; battery <= 5; battery += 1) {
+                        entries.add(new McsEntry(
+                            occupancy, occupancy / 5.0, consumption, pv, battery,
+                            linearPercentage(occupancy, consumption, pv, battery),
+                            pv / consumption, battery * 365 / consumption
+                        ));
+                    }
+                }
+            }
+        }
+        Collections.shuffle(entries, new Random(seed));
+        return entries;
+    }
+
+    private static double linearPercentage(double occupancy, double consumption, double pv, double battery) {
+        return 10 + occupancy * 3 + consumption * 0.004 - pv * 0.002 + battery * 1.5;
+    }
+
+    @Test
+    void testInterpolationReproducesLinearData() {
+        McsLookupOptimized lookup = lookup(buildLinearGrid(6), true);
+
+        Random random = new Random(11);
+        for (int i = 0; i < 1000; i++) {
+            int occupancy = 1 + random.nextInt(5);
+            double consumption = 1500 + random.nextDouble() * 2500;
+            double pv = 1500 + random.nextDouble() * 1500;
+            double battery = random.nextDouble() * 5;
+            assertEquals(linearPercentage(occupancy, consumption, pv, battery),
+                lookup.lookupInterpolated(occupancy, consumption, pv, battery), 1e-9);
+        }
+    }
+
+    @Test
+    void testInterpolationMatchesRowsOnGridPoints() {
+        List<McsEntry> entries = buildGrid(1500, 7);
+        McsLookupOptimized lookup = lookup(entries, true);
+        for (McsEntry entry : entries.subList(0, 200)) {
+            assertEquals(entry.predictedSelfConsumptionPercentage, lookup.lookupInterpolated(
+                entry.occupancyDays, entry.annualConsumptionKwh, entry.pvGenerationKwh, entry.batterySizeKwh), 1e-9);
+        }
+    }
+
+    @Test
+    void testInterpolationClampsToGridEdges() {
+        McsLookupOptimized lookup = lookup(buildLinearGrid(8), true);
+
+        // Below the lowest and above the highest grid values read the edge cells
+        assertEquals(linearPercentage(2, 1500, 1500, 0), lookup.lookupInterpolated(2, 0, 0, 0), 1e-9);
+        assertEquals(linearPercentage(4, 4000, 3000, 5), lookup.lookupInterpolated(4, 20000, 10000, 50), 1e-9);
+    }
+
+    @Test
+    void testInterpolationIsContinuous() {
+        McsLookupOptimized lookup = lookup(buildGrid(1500, 9), true);
+
+        // The nearest-row lookup jumps at cell midpoints; the interpolated one must not
+        double previous = lookup.lookupInterpolated(3, 2250, 1500, 2);
+        for (double pv = 1500; pv <= 3000; pv += 1) {
+            double current = lookup.lookupInterpolated(3, 2250, pv, 2);
+            assertTrue(Math.abs(current - previous) < 0.05, "jump at pv " + pv);
+            previous = current;
+        }
+    }
+
+    @Test
+    void testInterpolationValidatesAndFallsBackWithoutGrid() {
+        List<McsEntry> entries = buildGrid(1500, 10);
+        assertThrows(InvalidParameterException.class, () -> lookup(entries, true).lookupInterpolated(6, 2000, 2000, 2));
+        assertThrows(InvalidParameterException.class, () -> lookup(entries, true).lookupInterpolated(3, 2000, 10001, 2));
+
+        McsLookupOptimized scanned = lookup(entries, false);
+        assertEquals(scanned.lookup(3, 2100, 1900, 2.4), scanned.lookupInterpolated(3, 2100, 1900, 2.4));
+    }
+}
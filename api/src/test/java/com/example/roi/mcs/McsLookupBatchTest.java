@@ -0,0 +1,81 @@
+package com.example.roi.mcs;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+class McsLookupBatchTest {
+
+    private static final int QUERY_COUNT = 5000;
+
+    private final int[] occupancy = new int[QUERY_COUNT];
+    private final double[] consumption = new double[QUERY_COUNT];
+    private final double[] pv = new double[QUERY_COUNT];
+    private final double[] battery = new double[QUERY_COUNT];
+
+    McsLookupBatchTest() {
+        Random random = new Random(5);
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            occupancy[i] = 1 + random.nextInt(5);
+            consumption[i] = random.nextDouble() * 20000;
+            // Include PV far from every row so some queries fall back to the scan
+            pv[i] = i % 10 == 0 ? random.nextDouble() * 500 : random.nextDouble() * 10000;
+            battery[i] = random.nextDouble() * 50;
+        }
+    }
+
+    private static double[] expected(McsLookupOptimized lookup, int[] occupancy, double[] consumption,
+                                     double[] pv, double[] battery) {
+        double[] expected = new double[occupancy.length];
+        for (int i = 0; i < occupancy.length; i++) {
+            expected[i] = lookup.lookup(occupancy[i], consumption[i], pv[i], battery[i]);
+        }
+        return expected;
+    }
+
+    @Test
+    void testGridBatchMatchesSingleLookups() {
+        List<McsEntry> entries = McsGridIndexTest.buildGrid(12000, 1);
+        McsLookupOptimized lookup = new McsLookupOptimized(McsColumnStore.fromEntries(entries, false), true);
+
+        double[] out = new double[QUERY_COUNT];
+        lookup.lookupBatch(occupancy, consumption, pv, battery, out);
+        assertArrayEquals(expected(lookup, occupancy, consumption, pv, battery), out);
+    }
+
+    @Test
+    void testScanBatchMatchesSingleLookups() {
+        List<McsEntry> entries = McsGridIndexTest.buildGrid(1500, 2);
+        entries.remove(entries.size() - 1);
+        McsLookupOptimized lookup = new McsLookupOptimized(McsColumnStore.fromEntries(entries, false), true);
+
+        double[] out = new double[QUERY_COUNT];
+        lookup.lookupBatch(occupancy, consumption, pv, battery, out);
+        assertArrayEquals(expected(lookup, occupancy, consumption, pv, battery), out);
+    }
+
+    @Test
+    void testEmptyBatch() {
+        McsLookupOptimized lookup = new McsLookupOptimized(
+            McsColumnStore.fromEntries(McsGridIndexTest.buildGrid(1500, 3), false), true);
+        lookup.lookupBatch(new int[0], new double[0], new double[0], new double[0], new double[0]);
+    }
+
+    @Test
+    void testRejectsMismatchedLengthsAndInvalidQueries() {
+        McsLookupOptimized lookup = new McsLookupOptimized(
+            McsColumnStore.fromEntries(McsGridIndexTest.buildGrid(1500, 4), false), true);
+
+        assertThrows(IllegalArgumentException.class, () -> lookup.lookupBatch(
+            new int[2], new double[2], new double[2], new double[1], new double[2]));
+
+        double[] out = {-1, -1};
+        assertThrows(InvalidParameterException.class, () -> lookup.lookupBatch(
+            new int[] {3, 3}, new double[] {2000, 2000}, new double[] {2000, 20000}, new double[] {1, 1}, out));
+        assertEquals(-1, out[0]);
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.roi.mcs;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import com.opencsv.exceptions.CsvException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class McsParallelCsvReaderTest {
+
+    private static final String HEADER = "occupancy_days,occupancy_days_normalized,annual_consumption_kwh,pv_generation_kwh,"
+        + "battery_size_kwh,predicted_self_consumption_percentage,pv_to_consumption_ratio,battery_to_consumption_ratio";
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Writes a CSV large enough to be split into several ranges, with a few rows in awkward formats.
+     */
+    private Path writeCsv(int rows, long seed) throws IOException {
+        Random random = new Random(seed);
+        StringBuilder csv = new StringBuilder(HEADER).append('\n');
+        for (int i = 0; i < rows; i++) {
+            int occupancy = 1 + random.nextInt(5);
+            double consumption = 1500 + 500 * random.nextInt(38);
+            double pv = 1500 + 100 * random.nextInt(186);
+            double battery = random.nextInt(21);
+            double percentage = random.nextDouble() * 100;
+            String line = occupancy + "," + (occupancy / 5.0) + "," + consumption + "," + pv + "," + battery + ","
+                + percentage + "," + (pv / consumption) + "," + (battery * 365 / consumption);
+            switch (i % 500) {
+                case 7 -> line = line.replace(",", " , ");                       // padded fields
+                case 11 -> line = "\"" + occupancy + "\"" + line.substring(1);  // quoted field
+                case 13 -> line = line + "\r";                                  // CRLF line ending
+                case 17 -> line = line.substring(0, line.lastIndexOf(','));      // incomplete row
+                case 19 -> line = line.replaceFirst(",", ",abc,");               // unparseable value
+                case 23 -> line = line + ",extra";                               // extra column
+                default -> { }
+            }
+            csv.append(line).append('\n');
+        }
+        Path file = tempDir.resolve("data-" + seed + ".csv");
+        Files.writeString(file, csv);
+        return file;
+    }
+
+    @Test
+    void testMatchesOpenCsvLoader() throws IOException, CsvException {
+        Path csv = writeCsv(6000, 1);
+        List<McsEntry> expected = new McsCacheConverter().loadFromCsv(csv.toString());
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            McsColumnStore columns = McsParallelCsvReader.read(csv, true, pool);
+            assertEquals(expected.size(), columns.getRowCount());
+            for (int row = 0; row < expected.size(); row++) {
+                McsEntry entry = expected.get(row);
+                assertEquals(entry.occupancyDays, columns.occupancyDays(row), "row " + row);
+                assertEquals(entry.occupancyDaysNormalized, columns.occupancyDaysNormalized(row), "row " + row);
+                assertEquals(entry.annualConsumptionKwh, columns.annualConsumptionKwh(row), "row " + row);
+                assertEquals(entry.pvGenerationKwh, columns.pvGenerationKwh(row), "row " + row);
+                assertEquals(entry.batterySizeKwh, columns.batterySizeKwh(row), "row " + row);
+                assertEquals(entry.predictedSelfConsumptionPercentage, columns.predictedSelfConsumptionPercentage(row), "row " + row);
+                assertEquals(entry.pvToConsumptionRatio, columns.pvToConsumptionRatio(row), "row " + row);
+                assertEquals(entry.batteryToConsumptionRatio, columns.batteryToConsumptionRatio(row), "row " + row);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testDerivedColumnsDroppedByDefault() throws IOException {
+        Path csv = writeCsv(100, 2);
+        McsColumnStore columns = McsParallelCsvReader.read(csv, false);
+        assertEquals(false, columns.hasDerivedColumns());
+        assertThrows(IllegalStateException.class, () -> columns.pvToConsumptionRatio(0));
+    }
+
+    @Test
+    void testHeaderOnlyAndEmptyFiles() throws IOException {
+        Path headerOnly = tempDir.resolve("header.csv");
+        Files.writeString(headerOnly, HEADER + "\n");
+        assertEquals(0, McsParallelCsvReader.read(headerOnly, false).getRowCount());
+
+        Path empty = tempDir.resolve("empty.csv");
+        Files.writeString(empty, "");
+        assertEquals(0, McsParallelCsvReader.read(empty, false).getRowCount());
+    }
+
+    @Test
+    void testParseDoubleMatchesJdk() {
+        Random random = new Random(3);
+        String[] samples = {
+            "0", "-0", "0.0", "-0.0", "1.", ".5", "+2.5", "1500.0", "97.43617821094563", "1e5", "1.25E-3",
+            "123456789012345678", "0.1234567890123456789", "4.9E-324", "1.7976931348623157E308", "1e23",
+            "NaN", "-Infinity", "10d", "0x1p3"
+        };
+        for (String sample : samples) {
+            assertEquals(Double.parseDouble(sample), parseDouble(sample), sample);
+        }
+        for (int i = 0; i < 100000; i++) {
+            String sample = switch (i % 3) {
+                case 0 -> Double.toString(random.nextDouble() * 20000);
+                case 1 -> Double.toString(random.nextInt(200000) / 10.0);
+                default -> String.format("%.6f", random.nextGaussian() * 1000);
+            };
+            assertEquals(Double.parseDouble(sample), parseDouble(sample), sample);
+        }
+        assertThrows(NumberFormatException.class, () -> parseDouble("abc"));
+        assertThrows(NumberFormatException.class, () -> parseDouble("."));
+        assertThrows(NumberFormatException.class, () -> parseDouble(""));
+    }
+
+    @Test
+    void testParseIntMatchesJdk() {
+        for (String sample : new String[] {"0", "5", "-3", "+7", "123456789", "2147483647", "-2147483648"}) {
+            assertEquals(Integer.parseInt(sample), parseInt(sample), sample);
+        }
+        for (String sample : new String[] {"", "-", "5.0", "2147483648", "x"}) {
+            assertThrows(NumberFormatException.class, () -> parseInt(sample), sample);
+        }
+    }
+
+    private static double parseDouble(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        return McsParallelCsvReader.parseDouble(ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+
+    private static int parseInt(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        return McsParallelCsvReader.parseInt(ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+}
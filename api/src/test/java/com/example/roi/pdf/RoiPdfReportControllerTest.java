@@ -42,12 +42,13 @@ class RoiPdfReportControllerTest {
         RoiCalculationResponse response = roiService.calculate(request);
         String responseJson = objectMapper.writeValueAsString(response);
 
-        // POST the valid RoiCalculationResponse to /report
+        // POST the valid RoiCalculationResponse to /report; it is queued for rendering
         mockMvc.perform(post("/api/roi/report")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(responseJson))
-                .andExpect(status().isOk())
+                .andExpect(status().isAccepted())
                 .andExpect(jsonPath("$.pdfUrl").exists())
-                .andExpect(jsonPath("$.pdfUrl", containsString("/api/roi/reports/roi-report-")));
+                .andExpect(jsonPath("$.pdfUrl", containsString("/api/roi/reports/roi-report-")))
+                .andExpect(jsonPath("$.statusUrl", containsString("/status")));
     }
 } 
\ No newline at end of file
@@ -0,0 +1,164 @@
+package com.example.roi.pdf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.example.roi.controller.RoiApiController;
+import com.example.roi.model.MonthlySavings;
+import com.example.roi.model.PaybackPeriod;
+import com.example.roi.model.RoiCalculationResponse;
+import com.example.roi.model.RoiChartData;
+import com.example.roi.model.RoiChartDataPoint;
+import com.example.roi.model.RoiPercentage;
+import com.example.roi.model.RoiYearlyBreakdown;
+import com.example.roi.model.TotalCost;
+import com.example.roi.model.YearlySavings;
+import com.example.roi.service.CalculationConstantsService;
+import com.example.roi.service.RoiPdfReportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.pdf.PdfDictionary;
+import com.lowagie.text.pdf.PdfName;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.parser.PdfTextExtractor;
+
+class RoiPdfReportStreamTest {
+
+    private final RoiPdfReportService reportService = new RoiPdfReportService(new CalculationConstantsService(new DefaultResourceLoader()));
+
+    static RoiCalculationResponse sampleResponse() {
+        List<RoiChartDataPoint> points = new ArrayList<>();
+        List<RoiYearlyBreakdown> breakdown = new ArrayList<>();
+        double cumulative = -8500;
+        for (int year = 1; year <= 15; year++) {
+            double savings = 1100 - year * 20;
+            cumulative += savings;
+            points.add(new RoiChartDataPoint(year, cumulative));
+            breakdown.add(new RoiYearlyBreakdown(year, 4.5, 1.0 - year * 0.03, 1400, 250, 1800, 1600,
+                savings - 450, 200, savings, cumulative));
+        }
+        return new RoiCalculationResponse(new TotalCost(8500), new YearlySavings(960), new MonthlySavings(80),
+            new PaybackPeriod(9), new RoiChartData(points, 9), new RoiPercentage(69, 15), breakdown);
+    }
+
+    /**
+     * Records whether the report writer closed the stream it was given.
+     */
+    private static class TrackingOutputStream extends ByteArrayOutputStream {
+        boolean closed;
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            super.close();
+        }
+    }
+
+    @Test
+    void testWritesCompletePdfWithoutClosingStream() throws IOException, DocumentException {
+        TrackingOutputStream out = new TrackingOutputStream();
+        reportService.writeRoiReport(sampleResponse(), out);
+
+        String pdf = out.toString(StandardCharsets.ISO_8859_1);
+        assertTrue(pdf.startsWith("%PDF-"));
+        assertTrue(pdf.stripTrailing().endsWith("%%EOF"));
+        assertFalse(out.closed, "The caller owns the stream");
+    }
+
+    @Test
+    void testChartsAreVectorGraphicsUnlessDisabled() throws IOException, DocumentException {
+        String vector = new String(reportService.generateRoiReport(sampleResponse()), StandardCharsets.ISO_8859_1);
+        assertTrue(vector.contains("/Subtype/Form"), "Chart should be drawn into a form XObject");
+        assertFalse(vector.contains("/Subtype/Image"), "Chart should not be rasterised");
+
+        RoiPdfReportService pngService = new RoiPdfReportService(new CalculationConstantsService(new DefaultResourceLoader()));
+        ReflectionTestUtils.setField(pngService, "vectorCharts", false);
+        String png = new String(pngService.generateRoiReport(sampleResponse()), StandardCharsets.ISO_8859_1);
+        assertTrue(png.contains("/Subtype/Image"));
+        assertTrue(vector.length() < png.length(), "Vector chart should make a smaller file");
+    }
+
+    @Test
+    void testStaticSectionsAreImportedAsFormXObjects() throws IOException, DocumentException {
+        PdfReader reader = new PdfReader(reportService.generateRoiReport(sampleResponse()));
+        PdfDictionary resources = reader.getPageN(1).getAsDict(PdfName.RESOURCES);
+        // Cover title and assumptions
+        assertEquals(2, resources.getAsDict(PdfName.XOBJECT).size());
+        String text = new PdfTextExtractor(reader).getTextFromPage(1);
+        assertTrue(text.contains("The Big Green Energy Company"));
+        assertTrue(text.contains("Assumptions & Constants"));
+        assertTrue(text.contains("Installation Cost Assumptions"));
+    }
+
+    @Test
+    void testAssumptionsFollowReloadedConstants(@TempDir Path tempDir) throws Exception {
+        Path file = tempDir.resolve("constants.properties");
+        Files.writeString(file, "battery.efficiency=0.85\n");
+        CalculationConstantsService constantsService = new CalculationConstantsService(new DefaultResourceLoader());
+        ReflectionTestUtils.setField(constantsService, "location", file.toUri().toString());
+        constantsService.start();
+        RoiPdfReportService service = new RoiPdfReportService(constantsService);
+
+        String before = new PdfTextExtractor(new PdfReader(service.generateRoiReport(sampleResponse())))
+            .getTextFromPage(1);
+        assertTrue(before.contains("Battery efficiency: 85%"));
+        assertTrue(before.contains("70% capacity after 10 years"));
+
+        Files.writeString(file, "battery.efficiency=0.9\nbattery.degradation.knee-capacity=0.8\n"
+            + "battery.degradation.end-of-life-years=20\n");
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(10)));
+        constantsService.reloadIfChanged();
+
+        String after = new PdfTextExtractor(new PdfReader(service.generateRoiReport(sampleResponse())))
+            .getTextFromPage(1);
+        assertTrue(after.contains("Battery efficiency: 90%"));
+        assertTrue(after.contains("80% capacity after 10 years, linear decline to 0% at 20 years"));
+        assertFalse(after.contains("85%"));
+    }
+
+    @Test
+    void testStreamEndpointReturnsInlinePdf() throws Exception {
+        RoiApiController controller = new RoiApiController();
+        ReflectionTestUtils.setField(controller, "roiPdfReportService", reportService);
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+        MvcResult started = mockMvc.perform(post("/api/roi/report/stream")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(sampleResponse())))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        byte[] body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_PDF))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"roi-report.pdf\""))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertEquals("%PDF-", new String(body, 0, 5, StandardCharsets.ISO_8859_1));
+    }
+}
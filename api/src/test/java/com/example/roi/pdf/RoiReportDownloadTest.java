@@ -0,0 +1,185 @@
+package com.example.roi.pdf;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.FileSystemUtils;
+
+import com.example.roi.controller.RoiApiController;
+import com.example.roi.service.RoiBatchService;
+import com.example.roi.service.RoiOptimiserService;
+import com.example.roi.service.RoiPdfReportService;
+import com.example.roi.service.RoiReportQueueService;
+import com.example.roi.service.RoiReportStore;
+import com.example.roi.service.RoiService;
+
+/**
+ * Downloads stored reports from a real embedded Tomcat, which sends them with sendfile.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        classes = {RoiApiController.class, RoiReportStore.class})
+@ImportAutoConfiguration({ServletWebServerFactoryAutoConfiguration.class, DispatcherServletAutoConfiguration.class,
+        WebMvcAutoConfiguration.class, HttpMessageConvertersAutoConfiguration.class, JacksonAutoConfiguration.class})
+class RoiReportDownloadTest {
+
+    private static final Path DIRECTORY = createDirectory();
+    private static final String FILE_NAME = RoiReportStore.fileName("ab".repeat(32));
+    private static final byte[] REPORT = new byte[100_000];
+
+    static {
+        for (int i = 0; i < REPORT.length; i++) {
+            REPORT[i] = (byte) (i * 31);
+        }
+    }
+
+    @MockBean
+    private RoiService roiService;
+    @MockBean
+    private RoiBatchService roiBatchService;
+    @MockBean
+    private RoiOptimiserService roiOptimiserService;
+    @MockBean
+    private RoiPdfReportService roiPdfReportService;
+    @MockBean
+    private RoiReportQueueService roiReportQueueService;
+
+    @Autowired
+    private RoiApiController controller;
+
+    @LocalServerPort
+    private int port;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    private static Path createDirectory() {
+        try {
+            return Files.createTempDirectory("roi-reports");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void reportDirectory(DynamicPropertyRegistry registry) {
+        registry.add("roi.reports.directory", DIRECTORY::toString);
+    }
+
+    @AfterAll
+    static void deleteDirectory() throws IOException {
+        FileSystemUtils.deleteRecursively(DIRECTORY);
+    }
+
+    @BeforeEach
+    void writeReport() throws IOException {
+        Files.write(DIRECTORY.resolve(FILE_NAME), REPORT);
+    }
+
+    private HttpResponse<byte[]> download(String... headers) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(
+                URI.create("http://localhost:" + port + "/api/roi/reports/" + FILE_NAME));
+        if (headers.length > 0) {
+            request.headers(headers);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    @Test
+    void testFullDownloadCarriesValidators() throws Exception {
+        HttpResponse<byte[]> response = download();
+        assertEquals(200, response.statusCode());
+        assertArrayEquals(REPORT, response.body());
+        assertEquals("application/pdf", response.headers().firstValue("Content-Type").orElseThrow());
+        assertEquals("bytes", response.headers().firstValue("Accept-Ranges").orElseThrow());
+        assertNotNull(response.headers().firstValue("ETag").orElse(null));
+        assertNotNull(response.headers().firstValue("Last-Modified").orElse(null));
+    }
+
+    @Test
+    void testConditionalGetIsNotModified() throws Exception {
+        HttpResponse<byte[]> first = download();
+        String etag = first.headers().firstValue("ETag").orElseThrow();
+        String lastModified = first.headers().firstValue("Last-Modified").orElseThrow();
+
+        HttpResponse<byte[]> byEtag = download("If-None-Match", etag);
+        assertEquals(304, byEtag.statusCode());
+        assertEquals(0, byEtag.body().length);
+        assertEquals(304, download("If-Modified-Since", lastModified).statusCode());
+        assertEquals(200, download("If-None-Match", "\"stale\"").statusCode());
+    }
+
+    @Test
+    void testByteRanges() throws Exception {
+        HttpResponse<byte[]> middle = download("Range", "bytes=1000-1999");
+        assertEquals(206, middle.statusCode());
+        assertEquals("bytes 1000-1999/100000", middle.headers().firstValue("Content-Range").orElseThrow());
+        assertArrayEquals(Arrays.copyOfRange(REPORT, 1000, 2000), middle.body());
+
+        // Resume from an offset, and fetch the last bytes
+        assertArrayEquals(Arrays.copyOfRange(REPORT, 99_000, 100_000), download("Range", "bytes=99000-").body());
+        HttpResponse<byte[]> suffix = download("Range", "bytes=-10");
+        assertEquals("bytes 99990-99999/100000", suffix.headers().firstValue("Content-Range").orElseThrow());
+        assertArrayEquals(Arrays.copyOfRange(REPORT, 99_990, 100_000), suffix.body());
+
+        HttpResponse<byte[]> unsatisfiable = download("Range", "bytes=100000-");
+        assertEquals(416, unsatisfiable.statusCode());
+        assertEquals("bytes */100000", unsatisfiable.headers().firstValue("Content-Range").orElseThrow());
+    }
+
+    @Test
+    void testIfRangeFallsBackToWholeFileWhenChanged() throws Exception {
+        String etag = download().headers().firstValue("ETag").orElseThrow();
+        assertEquals(206, download("Range", "bytes=0-9", "If-Range", etag).statusCode());
+
+        HttpResponse<byte[]> changed = download("Range", "bytes=0-9", "If-Range", "\"stale\"");
+        assertEquals(200, changed.statusCode());
+        assertArrayEquals(REPORT, changed.body());
+    }
+
+    @Test
+    void testMissingReportIsNotFound() throws Exception {
+        Files.delete(DIRECTORY.resolve(FILE_NAME));
+        assertEquals(404, download().statusCode());
+    }
+
+    @Test
+    void testTransfersFromChannelWithoutSendfile() throws Exception {
+        // MockMvc has no sendfile support, so the body is written through FileChannel.transferTo
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+        mockMvc.perform(get("/api/roi/reports/" + FILE_NAME).header("Range", "bytes=10-19"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 10-19/100000"))
+                .andExpect(content().bytes(Arrays.copyOfRange(REPORT, 10, 20)));
+        assertTrue(Files.exists(DIRECTORY.resolve(FILE_NAME)));
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.roi.service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.roi.mcs.McsLookupOptimized;
+import com.example.roi.model.RoiCalculationResponse;
+import com.example.roi.model.RoiRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CalculationConstantsServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path file;
+    private CalculationConstantsService constantsService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        file = tempDir.resolve("constants.properties");
+        Files.writeString(file, "battery.efficiency=0.85\n");
+        constantsService = new CalculationConstantsService(new DefaultResourceLoader());
+        ReflectionTestUtils.setField(constantsService, "location", file.toUri().toString());
+        constantsService.start();
+    }
+
+    private void rewrite(String content, int secondsLater) throws Exception {
+        Files.writeString(file, content);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(secondsLater)));
+    }
+
+    @Test
+    void testTablesMatchTheDegradationModelAndDirections() {
+        CalculationConstants constants = CalculationConstants.defaults();
+        assertEquals(1.0, constants.degradationFactor(0));
+        assertEquals(0.97, constants.degradationFactor(1), 1e-12);
+        assertEquals(0.70, constants.degradationFactor(10), 1e-12);
+        assertEquals(0.56, constants.degradationFactor(11), 1e-12);
+        assertEquals(0.0, constants.degradationFactor(15), 1e-12);
+        assertEquals(1.0, constants.directionMultiplier(null));
+        assertEquals(0.83, constants.directionMultiplier(RoiRequest.CardinalDirection.WEST));
+        assertEquals(0.73, constants.directionMultiplier(RoiRequest.CardinalDirection.NORTH_EAST));
+
+        Properties longer = new Properties();
+        longer.setProperty("battery.degradation.end-of-life-years", "20");
+        CalculationConstants longLife = CalculationConstants.fromProperties(1, longer);
+        assertEquals(0.70, longLife.degradationFactor(10), 1e-12);
+        assertEquals(0.70 - 0.70 * 5 / 10, longLife.degradationFactor(15), 1e-12);
+    }
+
+    @Test
+    void testShippedFileHoldsTheBuiltInValues() throws Exception {
+        CalculationConstantsService shipped = new CalculationConstantsService(new DefaultResourceLoader());
+        ReflectionTestUtils.setField(shipped, "location", "classpath:calculation-constants.properties");
+        shipped.start();
+        CalculationConstants loaded = shipped.getConstants();
+        CalculationConstants defaults = CalculationConstants.defaults();
+        for (int year = 0; year <= CalculationConstants.TABLE_YEARS; year++) {
+            assertEquals(defaults.degradationFactor(year), loaded.degradationFactor(year));
+        }
+        for (RoiRequest.CardinalDirection direction : RoiRequest.CardinalDirection.values()) {
+            assertEquals(defaults.directionMultiplier(direction), loaded.directionMultiplier(direction));
+        }
+        assertEquals(defaults.getBatteryEfficiency(), loaded.getBatteryEfficiency());
+    }
+
+    @Test
+    void testChangedFileIsSwappedInAndInvalidFileIsIgnored() throws Exception {
+        CalculationConstants first = constantsService.getConstants();
+        constantsService.reloadIfChanged();
+        assertSame(first, constantsService.getConstants());
+
+        rewrite("battery.efficiency=0.9\ndirection.east=0.8\n", 10);
+        constantsService.reloadIfChanged();
+        CalculationConstants second = constantsService.getConstants();
+        assertEquals(0.9, second.getBatteryEfficiency());
+        assertEquals(0.8, second.directionMultiplier(RoiRequest.CardinalDirection.EAST));
+        assertEquals(first.getVersion() + 1, second.getVersion());
+
+        rewrite("battery.degradation.knee-year=20\n", 20);
+        constantsService.reloadIfChanged();
+        assertSame(second, constantsService.getConstants());
+        rewrite("battery.efficiency=lots\n", 30);
+        constantsService.reloadIfChanged();
+        assertSame(second, constantsService.getConstants());
+    }
+
+    @Test
+    void testInvalidFileStopsStartup() throws Exception {
+        rewrite("direction.north=-1\n", 10);
+        CalculationConstantsService invalid = new CalculationConstantsService(new DefaultResourceLoader());
+        ReflectionTestUtils.setField(invalid, "location", file.toUri().toString());
+        assertThrows(IllegalStateException.class, invalid::start);
+    }
+
+    @Test
+    void testCalculationsUseTheReloadedConstants() throws Exception {
+        Path csv = tempDir.resolve("data.csv");
+        Files.writeString(csv, String.join("\n",
+            "occupancy_days,occupancy_days_normalized,annual_consumption_kwh,pv_generation_kwh,battery_size_kwh,"
+                + "predicted_self_consumption_percentage,pv_to_consumption_ratio,battery_to_consumption_ratio",
+            "5,1.0,4000.0,3400.0,5.0,60.0,0.85,0.46",
+            ""));
+        McsLookupOptimized lookup = new McsLookupOptimized(tempDir.resolve("data.cache").toString(), csv.toString());
+        McsLookupService mcsLookupService = new McsLookupService(new DefaultResourceLoader(), new SimpleMeterRegistry()) {
+            @Override
+            public McsLookupOptimized getLookup() {
+                return lookup;
+            }
+        };
+        RoiService roiService = new RoiService(new TariffService(), mcsLookupService, constantsService, new ObjectMapper());
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(RoiService.CALCULATION_CACHE, Caffeine.newBuilder().build());
+        ReflectionTestUtils.setField(roiService, "cacheManager", cacheManager);
+
+        RoiRequest request = new RoiRequest();
+        request.setSolarPanelDirection(RoiRequest.CardinalDirection.SOUTH);
+        request.setUsage(4000);
+        request.setSolarSize(4.0);
+        request.setBatterySize(5.0);
+        RoiCalculationResponse before = roiService.calculate(request);
+        assertSame(before, roiService.calculate(request));
+
+        rewrite("battery.efficiency=0.95\n", 10);
+        constantsService.reloadIfChanged();
+        RoiCalculationResponse after = roiService.calculate(request);
+        // The cached result for the old constants is not served
+        assertNotEquals(before.getYearlySavings().getAmount(), after.getYearlySavings().getAmount());
+    }
+}
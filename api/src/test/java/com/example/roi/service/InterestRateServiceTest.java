@@ -0,0 +1,298 @@
+package com.example.roi.service;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.DoublePredicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class InterestRateServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final CountDownLatch entered = new CountDownLatch(1);
+    private volatile CountDownLatch release = new CountDownLatch(0);
+    private volatile String baseRatePercent = "4.75";
+    private volatile int status = 200;
+    // The first slowRequests requests are not answered until the test ends
+    private volatile int slowRequests = 0;
+    private final CountDownLatch hold = new CountDownLatch(1);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ExecutorService serverExecutor;
+    private HttpServer server;
+    private InterestRateService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/base-rate", this::respond);
+        // Slow answers must not hold up the retries behind them
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        service = new InterestRateService(meterRegistry);
+        ReflectionTestUtils.setField(service, "fallbackRate", 0.055);
+        ReflectionTestUtils.setField(service, "baseRateUrl",
+            "http://127.0.0.1:" + server.getAddress().getPort() + "/base-rate");
+        ReflectionTestUtils.setField(service, "refreshAfter", Duration.ofHours(1));
+        ReflectionTestUtils.setField(service, "retryBackoff", Duration.ofMillis(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        hold.countDown();
+        service.shutdown();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    /** Answers like the Bank of England CSV download */
+    private void respond(HttpExchange exchange) throws IOException {
+        int request = requests.incrementAndGet();
+        entered.countDown();
+        try {
+            release.await(10, TimeUnit.SECONDS);
+            if (request <= slowRequests) {
+                hold.await(30, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] body = ("DATE,IUDBEDR\n01 Aug 2024," + baseRatePercent + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+
+    private double breakerState() {
+        return meterRegistry.get("finance.rates.breaker.state").gauge().value();
+    }
+
+    private void awaitBaseRate(DoublePredicate condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.test(service.getCurrentRates().getBaseRate()) && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    /** Waits for the fetch in progress to finish, after it has installed its snapshot */
+    private void awaitIdle() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (ReflectionTestUtils.getField(service, "refreshing") instanceof AtomicReference<?> refreshing
+                && refreshing.get() != null && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void testReadsDoNotWaitForTheFetchAndShareOne() throws Exception {
+        release = new CountDownLatch(1);
+        service.start();
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+
+        // The upstream is holding the first fetch; reads get the researched rates straight away
+        ExecutorService readers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Double>> reads = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                reads.add(readers.submit(() -> service.getCurrentRates().getBaseRate()));
+            }
+            for (Future<Double> read : reads) {
+                assertEquals(0.0525, read.get(1, TimeUnit.SECONDS));
+            }
+        } finally {
+            readers.shutdownNow();
+        }
+        assertEquals(0.059, service.getBestRateForLoan(5, 5000));
+
+        release.countDown();
+        awaitBaseRate(rate -> rate != 0.0525);
+        assertEquals(0.0475, service.getCurrentRates().getBaseRate(), 1e-12);
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void testStaleRatesAreRefreshedInTheBackground() throws Exception {
+        service.start();
+        awaitBaseRate(rate -> rate != 0.0525);
+        awaitIdle();
+        assertEquals(0.0475, service.getCurrentRates().getBaseRate(), 1e-12);
+        assertEquals(1, requests.get());
+
+        // Fresh rates are served without fetching
+        service.getCurrentRates();
+        assertEquals(1, requests.get());
+
+        baseRatePercent = "4.50";
+        release = new CountDownLatch(1);
+        ReflectionTestUtils.setField(service, "refreshAfter", Duration.ZERO);
+        assertEquals(0.0475, service.getCurrentRates().getBaseRate(), 1e-12);
+        ReflectionTestUtils.setField(service, "refreshAfter", Duration.ofHours(1));
+        release.countDown();
+
+        awaitBaseRate(rate -> rate != 0.0475);
+        assertEquals(0.045, service.getCurrentRates().getBaseRate(), 1e-12);
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void testFailedFetchKeepsTheLastBaseRate() {
+        service.start();
+        assertEquals(0.0475, service.refreshRates().getBaseRate(), 1e-12);
+
+        status = 500;
+        InterestRateService.InterestRateData afterFailure = service.refreshRates();
+        assertEquals(0.0475, afterFailure.getBaseRate(), 1e-12);
+        assertEquals(0.042, afterFailure.getGreenEnergyLoanRate());
+    }
+
+    @Test
+    void testReadsDoNotRetryAFailedFirstFetchStraightAway() throws Exception {
+        status = 503;
+        ReflectionTestUtils.setField(service, "breakerFailureThreshold", 10);
+        service.start();
+        awaitIdle();
+        int afterStartup = requests.get();
+
+        // The researched rates are served, and reads do not hit the failing upstream again
+        for (int i = 0; i < 20; i++) {
+            assertEquals(0.0525, service.getCurrentRates().getBaseRate());
+        }
+        awaitIdle();
+        assertEquals(afterStartup, requests.get());
+        assertEquals(0.0, breakerState());
+
+        // Once the wait is over, a read tries again
+        ReflectionTestUtils.setField(service, "retryAfterFailure", Duration.ZERO);
+        service.refreshRates();
+        status = 200;
+        awaitBaseRate(rate -> rate != 0.0525);
+        assertEquals(0.0475, service.getCurrentRates().getBaseRate(), 1e-12);
+    }
+
+    @Test
+    void testSlowAnswersTimeOutAndAreRetried() {
+        // The first two requests are never answered, so only the read timeout ends them
+        ReflectionTestUtils.setField(service, "readTimeout", Duration.ofSeconds(1));
+        slowRequests = 2;
+        service.start();
+
+        assertEquals(0.0475, service.refreshRates().getBaseRate(), 1e-12);
+        assertEquals(3, requests.get());
+        assertEquals(0.0, breakerState());
+    }
+
+    @Test
+    void testOpenBreakerServesTheLastGoodRatesWithoutCalling() throws Exception {
+        ReflectionTestUtils.setField(service, "breakerFailureThreshold", 3);
+        ReflectionTestUtils.setField(service, "breakerOpenDuration", Duration.ofSeconds(1));
+        service.start();
+        InterestRateService.InterestRateData good = service.refreshRates();
+        awaitIdle();
+        assertEquals(1, requests.get());
+
+        // Three failed attempts open the breaker
+        status = 503;
+        ReflectionTestUtils.setField(service, "refreshAfter", Duration.ZERO);
+        assertSame(good, service.refreshRates());
+        assertEquals(4, requests.get());
+        assertEquals(2.0, breakerState());
+
+        // While open, stale rates are served as they are and nothing is fetched
+        status = 500;
+        assertSame(good, service.getCurrentRates());
+        assertSame(good, service.refreshRates());
+        assertEquals(4, requests.get());
+
+        // After the open period one trial call goes through, and closes the breaker once the upstream recovers
+        Thread.sleep(1100);
+        assertSame(good, service.refreshRates());
+        assertEquals(5, requests.get());
+        assertEquals(2.0, breakerState());
+
+        status = 200;
+        baseRatePercent = "4.25";
+        Thread.sleep(1100);
+        assertEquals(0.0425, service.refreshRates().getBaseRate(), 1e-12);
+        assertEquals(6, requests.get());
+        assertEquals(0.0, breakerState());
+    }
+
+    @Test
+    void testStoredRatesAreServedAtStartupAndRevalidated() throws Exception {
+        Path file = tempDir.resolve("rates").resolve("interest-rates.json");
+        ReflectionTestUtils.setField(service, "snapshotFile", file.toString());
+        service.start();
+        InterestRateService.InterestRateData fetched = service.refreshRates();
+        assertTrue(Files.exists(file));
+        service.shutdown();
+
+        // A restarted instance answers from the file while the upstream holds its first fetch
+        baseRatePercent = "4.50";
+        release = new CountDownLatch(1);
+        service = new InterestRateService(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "fallbackRate", 0.055);
+        ReflectionTestUtils.setField(service, "baseRateUrl",
+            "http://127.0.0.1:" + server.getAddress().getPort() + "/base-rate");
+        ReflectionTestUtils.setField(service, "refreshAfter", Duration.ofHours(1));
+        ReflectionTestUtils.setField(service, "snapshotFile", file.toString());
+        service.start();
+        InterestRateService.InterestRateData restored = service.getCurrentRates();
+        assertEquals(0.0475, restored.getBaseRate(), 1e-12);
+        assertEquals(fetched.getLastUpdated(), restored.getLastUpdated());
+        assertEquals(fetched.getGreenEnergyLoanRate(), restored.getGreenEnergyLoanRate());
+
+        release.countDown();
+        awaitBaseRate(rate -> rate != 0.0475);
+        assertEquals(0.045, service.getCurrentRates().getBaseRate(), 1e-12);
+        awaitIdle();
+        assertTrue(Files.readString(file).contains("0.045"));
+        try (var files = Files.list(file.getParent())) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void testUnreadableStoredRatesAreIgnored() throws Exception {
+        Path file = tempDir.resolve("interest-rates.json");
+        Files.writeString(file, "{\"baseRate\": ");
+        ReflectionTestUtils.setField(service, "snapshotFile", file.toString());
+        status = 503;
+        service.start();
+
+        assertEquals(0.0525, service.getCurrentRates().getBaseRate());
+        awaitIdle();
+        // Nothing good was fetched, so the file is left alone
+        assertFalse(Files.readString(file).contains("0.0525"));
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.roi.service;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.roi.mcs.McsBinaryFormat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class McsLookupServiceTest {
+
+    private static final String CSV = String.join("\n",
+        "occupancy_days,occupancy_days_normalized,annual_consumption_kwh,pv_generation_kwh,battery_size_kwh,"
+            + "predicted_self_consumption_percentage,pv_to_consumption_ratio,battery_to_consumption_ratio",
+        "5,1.0,1750.0,400.0,2.0,65.0,0.23,0.42",
+        "3,0.6,3000.0,2500.0,0.0,30.0,0.83,0.0",
+        "");
+
+    @TempDir
+    Path tempDir;
+
+    private McsLookupService service(DefaultResourceLoader resourceLoader, SimpleMeterRegistry registry,
+                                     String cacheLocation, String csvLocation) {
+        McsLookupService service = new McsLookupService(resourceLoader, registry);
+        ReflectionTestUtils.setField(service, "cacheLocation", cacheLocation);
+        ReflectionTestUtils.setField(service, "csvLocation", csvLocation);
+        ReflectionTestUtils.setField(service, "workDir", tempDir.resolve("work").toString());
+        ReflectionTestUtils.setField(service, "warmupLookups", 100);
+        ReflectionTestUtils.setField(service, "awaitTimeoutSeconds", 30L);
+        return service;
+    }
+
+    @Test
+    void testLoadsFromFilesAndReportsReadiness() throws IOException {
+        Files.writeString(tempDir.resolve("data.csv"), CSV);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        McsLookupService service = service(new DefaultResourceLoader(), registry,
+            "file:" + tempDir.resolve("data.cache"), "file:" + tempDir.resolve("data.csv"));
+
+        service.startLoading();
+        assertEquals(65.0, service.getLookup().lookup(5, 1750, 400, 2));
+        assertTrue(service.isReady());
+        assertEquals(Status.UP, service.health().getStatus());
+        assertEquals(2, service.health().getDetails().get("entries"));
+        assertNotNull(registry.find("mcs.lookup.load").timer());
+        assertEquals(1, registry.find("mcs.lookup.warmup").timer().count());
+
+        // The CSV fallback leaves a binary cache beside it for the next start
+        assertTrue(McsBinaryFormat.isBinaryFile(tempDir.resolve("data.cache")));
+    }
+
+    @Test
+    void testDamagedBinaryCacheIsRebuiltWhenVerifying() throws IOException {
+        Path cache = tempDir.resolve("data.cache");
+        Files.writeString(tempDir.resolve("data.csv"), CSV);
+        McsLookupService first = service(new DefaultResourceLoader(), new SimpleMeterRegistry(),
+            "file:" + cache, "file:" + tempDir.resolve("data.csv"));
+        first.startLoading();
+        first.getLookup();
+
+        // Flip a bit in the row data, which opening the file does not check
+        byte[] bytes = Files.readAllBytes(cache);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(cache, bytes);
+        assertFalse(McsBinaryFormat.open(cache).verifyChecksum());
+
+        McsLookupService second = service(new DefaultResourceLoader(), new SimpleMeterRegistry(),
+            "file:" + cache, "file:" + tempDir.resolve("data.csv"));
+        ReflectionTestUtils.setField(second, "verifyChecksum", true);
+        second.startLoading();
+        assertEquals(65.0, second.getLookup().lookup(5, 1750, 400, 2));
+        assertTrue(McsBinaryFormat.open(cache).verifyChecksum());
+    }
+
+    @Test
+    void testCopiesResourcesOutOfJar() throws IOException {
+        Path jar = tempDir.resolve("dataset.jar");
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+            out.putNextEntry(new JarEntry("mcs/data.csv"));
+            out.write(CSV.getBytes());
+            out.closeEntry();
+        }
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[] {jar.toUri().toURL()}, null)) {
+            McsLookupService service = service(new DefaultResourceLoader(classLoader), new SimpleMeterRegistry(),
+                "classpath:mcs/data.cache", "classpath:mcs/data.csv");
+
+            service.startLoading();
+            assertEquals(30.0, service.getLookup().lookup(3, 3000, 2500, 0));
+            assertTrue(McsBinaryFormat.isBinaryFile(tempDir.resolve("work").resolve("data.cache")));
+        }
+    }
+
+    @Test
+    void testCacheInJarIsOnlyCopiedWhenChanged() throws IOException {
+        Path jar = tempDir.resolve("dataset.jar");
+        Path copy = tempDir.resolve("work").resolve("data.cache");
+        writeJar(jar, buildCache(CSV));
+
+        assertEquals(65.0, loadFromJar(jar));
+        assertTrue(McsBinaryFormat.isBinaryFile(copy));
+        FileTime copiedAt = FileTime.from(Instant.now().minus(Duration.ofHours(1)));
+        Files.setLastModifiedTime(copy, copiedAt);
+
+        // Same cache in the jar: the working copy is used as it is
+        assertEquals(65.0, loadFromJar(jar));
+        assertEquals(copiedAt, Files.getLastModifiedTime(copy));
+
+        // A cache built from different data replaces it
+        writeJar(jar, buildCache(CSV.replace(",65.0,", ",70.0,")));
+        assertEquals(70.0, loadFromJar(jar));
+        assertNotEquals(copiedAt, Files.getLastModifiedTime(copy));
+    }
+
+    private byte[] buildCache(String csv) throws IOException {
+        Path csvPath = Files.writeString(tempDir.resolve("build.csv"), csv);
+        Path cachePath = tempDir.resolve("build.cache");
+        Files.deleteIfExists(cachePath);
+        McsLookupService builder = service(new DefaultResourceLoader(), new SimpleMeterRegistry(),
+            "file:" + cachePath, "file:" + csvPath);
+        builder.startLoading();
+        builder.getLookup();
+        return Files.readAllBytes(cachePath);
+    }
+
+    private static void writeJar(Path jar, byte[] cache) throws IOException {
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+            out.putNextEntry(new JarEntry("mcs/data.cache"));
+            out.write(cache);
+            out.closeEntry();
+        }
+    }
+
+    private double loadFromJar(Path jar) throws IOException {
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[] {jar.toUri().toURL()}, null)) {
+            McsLookupService service = service(new DefaultResourceLoader(classLoader), new SimpleMeterRegistry(),
+                "classpath:mcs/data.cache", "classpath:mcs/data.csv");
+            service.startLoading();
+            return service.getLookup().lookup(5, 1750, 400, 2);
+        }
+    }
+
+    @Test
+    void testMissingDatasetReportsDown() {
+        McsLookupService service = service(new DefaultResourceLoader(), new SimpleMeterRegistry(),
+            "file:" + tempDir.resolve("missing.cache"), "file:" + tempDir.resolve("missing.csv"));
+
+        service.startLoading();
+        assertThrows(IllegalStateException.class, service::getLookup);
+        assertEquals(Status.DOWN, service.health().getStatus());
+        assertTrue(!service.isReady());
+    }
+}
@@ -0,0 +1,347 @@
+package com.example.roi.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.example.roi.controller.RoiApiController;
+import com.example.roi.mcs.McsLookupOptimized;
+import com.example.roi.model.RoiBatchItemResponse;
+import com.example.roi.model.RoiCalculationResponse;
+import com.example.roi.model.RoiRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RoiBatchServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final AtomicInteger lookups = new AtomicInteger();
+    private final AtomicInteger singleMcsLookups = new AtomicInteger();
+    private final List<Integer> mcsBatchSizes = new ArrayList<>();
+    private final Set<String> calculatingThreads = ConcurrentHashMap.newKeySet();
+    private volatile boolean mcsReady = true;
+    // Calculations wait for this before starting
+    private volatile CountDownLatch gate = new CountDownLatch(0);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private RoiService roiService;
+    private RoiBatchService batchService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Path csv = tempDir.resolve("data.csv");
+        Files.writeString(csv, String.join("\n",
+            "occupancy_days,occupancy_days_normalized,annual_consumption_kwh,pv_generation_kwh,battery_size_kwh,"
+                + "predicted_self_consumption_percentage,pv_to_consumption_ratio,battery_to_consumption_ratio",
+            "5,1.0,4000.0,3400.0,5.0,60.0,0.85,0.46",
+            "3,0.6,3000.0,3400.0,5.0,40.0,1.13,0.46",
+            ""));
+        McsLookupOptimized lookup = new McsLookupOptimized(tempDir.resolve("data.cache").toString(), csv.toString()) {
+            @Override
+            public double lookup(int occupancyDays, double annualConsumption, double pvGenKwh, double batteryKwh) {
+                singleMcsLookups.incrementAndGet();
+                return super.lookup(occupancyDays, annualConsumption, pvGenKwh, batteryKwh);
+            }
+
+            @Override
+            public void lookupBatch(int[] occupancy, double[] consumption, double[] pv, double[] battery, double[] out) {
+                mcsBatchSizes.add(occupancy.length);
+                super.lookupBatch(occupancy, consumption, pv, battery, out);
+            }
+        };
+        McsLookupService mcsLookupService = new McsLookupService(new DefaultResourceLoader(), new SimpleMeterRegistry()) {
+            @Override
+            public McsLookupOptimized getLookup() {
+                lookups.incrementAndGet();
+                if (!mcsReady) {
+                    throw new IllegalStateException("MCS lookup data is still loading");
+                }
+                return lookup;
+            }
+        };
+
+        // Negative usage stands in for a request the calculation rejects
+        roiService = new RoiService(new TariffService(), mcsLookupService,
+                new CalculationConstantsService(new DefaultResourceLoader()), new ObjectMapper()) {
+            @Override
+            RoiCalculationResponse calculate(RoiRequest request, McsLookupOptimized mcsLookup,
+                    Map<McsQuery, Double> selfConsumption) {
+                calculatingThreads.add(Thread.currentThread().getName());
+                try {
+                    gate.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (request.getUsage() < 0) {
+                    throw new IllegalStateException("Usage must not be negative");
+                }
+                return super.calculate(request, mcsLookup, selfConsumption);
+            }
+        };
+
+        batchService = new RoiBatchService(roiService, mcsLookupService, objectMapper);
+        ReflectionTestUtils.setField(batchService, "workers", 2);
+        ReflectionTestUtils.setField(batchService, "queueCapacity", 2);
+        ReflectionTestUtils.setField(batchService, "maxSize", 50);
+        ReflectionTestUtils.setField(batchService, "maxInFlight", 3);
+        batchService.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        gate.countDown();
+        batchService.shutdown();
+    }
+
+    private static RoiRequest request(double usage) {
+        RoiRequest request = new RoiRequest();
+        request.setSolarPanelDirection(RoiRequest.CardinalDirection.SOUTH);
+        request.setUsage(usage);
+        request.setSolarSize(4.0);
+        request.setBatterySize(5.0);
+        return request;
+    }
+
+    @Test
+    void testResultsKeepRequestOrderWithErrorEntries() {
+        List<RoiRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            requests.add(request(2000 + i * 100));
+        }
+        requests.set(3, null);
+        requests.set(7, request(-1));
+
+        List<RoiBatchItemResponse> results = batchService.calculateAll(requests);
+
+        assertEquals(20, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            RoiBatchItemResponse item = results.get(i);
+            assertEquals(i, item.getIndex());
+            if (i == 3) {
+                assertEquals("Missing request", item.getError());
+            } else if (i == 7) {
+                assertEquals("Usage must not be negative", item.getError());
+                assertNull(item.getResult());
+            } else {
+                assertNull(item.getError());
+                RoiCalculationResponse expected = roiService.calculate(requests.get(i));
+                assertEquals(expected.getYearlySavings().getAmount(), item.getResult().getYearlySavings().getAmount());
+            }
+        }
+        // Workers did the work, with the caller helping out once the small queue filled
+        assertTrue(calculatingThreads.stream().anyMatch(name -> name.startsWith("roi-batch-")));
+    }
+
+    @Test
+    void testMcsLookupIsFetchedOncePerBatch() {
+        lookups.set(0);
+        batchService.calculateAll(List.of(request(2000), request(3000), request(4000), request(5000)));
+        assertEquals(1, lookups.get());
+    }
+
+    @Test
+    void testDistinctMcsLookupsAreMadeTogether() {
+        List<RoiRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            requests.add(request(2000 + (i % 3) * 1000));
+        }
+        // Out of range for the MCS table, so it must not fail the others' lookups
+        requests.add(request(50000));
+
+        List<RoiBatchItemResponse> results = batchService.calculateAll(requests);
+        assertEquals(List.of(3), mcsBatchSizes);
+        assertEquals(1, singleMcsLookups.get());
+        assertEquals("The data is not in range for the MCS lookup", results.get(12).getError());
+
+        for (int i = 0; i < 12; i++) {
+            RoiCalculationResponse expected = roiService.calculate(requests.get(i));
+            assertEquals(expected.getYearlySavings().getAmount(), results.get(i).getResult().getYearlySavings().getAmount());
+        }
+    }
+
+    @Test
+    void testEveryItemFailsWhileMcsDataIsLoading() {
+        mcsReady = false;
+        List<RoiBatchItemResponse> results = batchService.calculateAll(List.of(request(2000), request(3000)));
+        assertEquals(2, results.size());
+        assertTrue(results.stream().allMatch(item -> "MCS lookup data is still loading".equals(item.getError())));
+    }
+
+    @Test
+    void testShutdownFailsQueuedItemsInsteadOfHanging() throws Exception {
+        gate = new CountDownLatch(1);
+        CompletableFuture<List<RoiBatchItemResponse>> batch = CompletableFuture.supplyAsync(
+            () -> batchService.calculateAll(List.of(request(2000), request(3000), request(4000), request(5000))));
+
+        // Both workers are busy with the first two items and the other two are queued
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(batchService, "executor");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (executor.getQueue().size() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        batchService.shutdown();
+
+        List<RoiBatchItemResponse> results = batch.get(10, TimeUnit.SECONDS);
+        assertEquals(4, results.size());
+        assertNull(results.get(0).getError());
+        assertNull(results.get(1).getError());
+        assertEquals("Batch calculations are shutting down", results.get(2).getError());
+        assertEquals("Batch calculations are shutting down", results.get(3).getError());
+
+        // Later batches are refused straight away
+        results = batchService.calculateAll(List.of(request(2000)));
+        assertEquals("Batch calculations are shutting down", results.get(0).getError());
+    }
+
+    @Test
+    void testSlowItemsTimeOut() {
+        gate = new CountDownLatch(1);
+        ReflectionTestUtils.setField(batchService, "timeout", Duration.ofMillis(50));
+        List<RoiBatchItemResponse> results = batchService.calculateAll(List.of(request(2000)));
+        assertEquals("Calculation timed out", results.get(0).getError());
+    }
+
+    @Test
+    void testOversizedBatchIsRefused() throws Exception {
+        RoiRequest[] requests = new RoiRequest[51];
+        Arrays.fill(requests, request(2000));
+        assertThrows(IllegalArgumentException.class, () -> batchService.calculateAll(Arrays.asList(requests)));
+
+        RoiApiController controller = new RoiApiController();
+        ReflectionTestUtils.setField(controller, "roiBatchService", batchService);
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+        mockMvc.perform(post("/api/roi/calculate/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(requests)))
+                .andExpect(status().isPayloadTooLarge());
+
+        mockMvc.perform(post("/api/roi/calculate/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(request(2000), request(-1)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].index").value(0))
+                .andExpect(jsonPath("$[0].result.totalCost").exists())
+                .andExpect(jsonPath("$[0].error").doesNotExist())
+                .andExpect(jsonPath("$[1].index").value(1))
+                .andExpect(jsonPath("$[1].error").value("Usage must not be negative"))
+                .andExpect(jsonPath("$[1].result").doesNotExist());
+    }
+
+    private String ndjson(RoiRequest... requests) throws Exception {
+        StringBuilder lines = new StringBuilder();
+        for (RoiRequest request : requests) {
+            lines.append(objectMapper.writeValueAsString(request)).append('\n');
+        }
+        return lines.toString();
+    }
+
+    private List<JsonNode> parseLines(String body) throws Exception {
+        assertTrue(body.endsWith("\n"));
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        return lines;
+    }
+
+    @Test
+    void testStreamsOneLinePerRequestWithBoundedInFlight() throws Exception {
+        RoiRequest[] requests = new RoiRequest[200];
+        for (int i = 0; i < requests.length; i++) {
+            requests[i] = request(2000 + (i % 40) * 100);
+        }
+        requests[50] = request(-1);
+        String input = ndjson(requests).replace(objectMapper.writeValueAsString(requests[60]), "\"not a request\"");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        batchService.calculateStream(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), out);
+
+        List<JsonNode> lines = parseLines(out.toString(StandardCharsets.UTF_8));
+        assertEquals(200, lines.size());
+        Map<Integer, JsonNode> byIndex = new HashMap<>();
+        for (JsonNode line : lines) {
+            byIndex.put(line.get("index").asInt(), line);
+        }
+        assertEquals(200, byIndex.size());
+        assertEquals("Usage must not be negative", byIndex.get(50).get("error").asText());
+        assertTrue(byIndex.get(60).get("error").asText().startsWith("Invalid request"));
+        assertEquals(1, lookups.get());
+        RoiCalculationResponse expected = roiService.calculate(requests[199]);
+        assertEquals(expected.getYearlySavings().getAmount(),
+            byIndex.get(199).get("result").get("yearlySavings").get("amount").asDouble());
+    }
+
+    @Test
+    void testMalformedJsonEndsTheStream() throws Exception {
+        String input = ndjson(request(2000), request(3000)) + "{\"usage\": \n" + ndjson(request(4000));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        batchService.calculateStream(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), out);
+
+        List<JsonNode> lines = parseLines(out.toString(StandardCharsets.UTF_8));
+        assertEquals(3, lines.size());
+        JsonNode malformed = lines.stream().filter(line -> line.get("index").asInt() == 2).findFirst().orElseThrow();
+        assertTrue(malformed.get("error").asText().startsWith("Malformed JSON"));
+    }
+
+    @Test
+    void testStreamEndpointSpeaksNdjson() throws Exception {
+        RoiApiController controller = new RoiApiController();
+        ReflectionTestUtils.setField(controller, "roiBatchService", batchService);
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+        MvcResult started = mockMvc.perform(post("/api/roi/calculate/stream")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(ndjson(request(2000), request(-1))))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        List<JsonNode> lines = parseLines(body);
+        assertEquals(2, lines.size());
+        assertTrue(lines.stream().anyMatch(line -> line.get("index").asInt() == 0 && line.has("result")));
+        assertTrue(lines.stream().anyMatch(line -> line.get("index").asInt() == 1 && line.has("error")));
+    }
+}
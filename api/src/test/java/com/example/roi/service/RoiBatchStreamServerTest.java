@@ -0,0 +1,82 @@
+package com.example.roi.service;
+
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import com.example.roi.config.WebConfig;
+import com.example.roi.controller.RoiApiController;
+
+/**
+ * Streams NDJSON batch results from a real embedded Tomcat for longer than the MVC async
+ * timeout Spring Boot is configured with, which stands in for the container's default.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        classes = {RoiApiController.class, WebConfig.class},
+        properties = "spring.mvc.async.request-timeout=500ms")
+@ImportAutoConfiguration({ServletWebServerFactoryAutoConfiguration.class, DispatcherServletAutoConfiguration.class,
+        WebMvcAutoConfiguration.class, HttpMessageConvertersAutoConfiguration.class, JacksonAutoConfiguration.class})
+class RoiBatchStreamServerTest {
+
+    @MockBean
+    private RoiService roiService;
+    @MockBean
+    private RoiBatchService roiBatchService;
+    @MockBean
+    private RoiOptimiserService roiOptimiserService;
+    @MockBean
+    private RoiPdfReportService roiPdfReportService;
+    @MockBean
+    private RoiReportQueueService roiReportQueueService;
+    @MockBean
+    private RoiReportStore roiReportStore;
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void testStreamOutlivesDefaultAsyncTimeout() throws Exception {
+        AtomicReference<String> streamingThread = new AtomicReference<>();
+        doAnswer(invocation -> {
+            streamingThread.set(Thread.currentThread().getName());
+            OutputStream out = invocation.getArgument(1);
+            for (int i = 0; i < 3; i++) {
+                out.write(("{\"index\":" + i + "}\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                Thread.sleep(600);
+            }
+            return null;
+        }).when(roiBatchService).calculateStream(any(), any());
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/roi/calculate/stream"))
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString("{}\n{}\n{}\n"))
+                .build();
+        HttpResponse<String> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertEquals(List.of("{\"index\":0}", "{\"index\":1}", "{\"index\":2}"), response.body().lines().toList());
+        // Written on the streaming pool, not the shared application task executor
+        assertTrue(streamingThread.get().startsWith("roi-stream-"), streamingThread.get());
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.roi.service;
+
+import java.util.Properties;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the closed form against the year-by-year projection over randomly generated inputs
+ * and degradation curves, including the edges: no battery, no solar, no usage, a battery
+ * that covers all usage for some or all years, and free systems.
+ */
+class RoiClosedFormTest {
+
+    private static final int CASES = 20_000;
+    private static final double PENNY = 0.005;
+
+    private static CalculationConstants randomConstants(Random random) {
+        if (random.nextInt(4) == 0) {
+            return CalculationConstants.defaults();
+        }
+        int kneeYear = 1 + random.nextInt(14);
+        Properties properties = new Properties();
+        properties.setProperty("battery.degradation.knee-year", Integer.toString(kneeYear));
+        properties.setProperty("battery.degradation.end-of-life-years", Integer.toString(kneeYear + 1 + random.nextInt(15)));
+        properties.setProperty("battery.degradation.knee-capacity", Double.toString(random.nextDouble()));
+        properties.setProperty("battery.efficiency", Double.toString(0.5 + random.nextDouble() * 0.5));
+        return CalculationConstants.fromProperties(1, properties);
+    }
+
+    /** Mostly realistic values, sometimes exactly zero */
+    private static double sometimesZero(Random random, double max) {
+        return random.nextInt(8) == 0 ? 0.0 : random.nextDouble() * max;
+    }
+
+    @Test
+    void testMatchesTheYearlyLoopToThePenny() {
+        Random random = new Random(20240601);
+        for (int i = 0; i < CASES; i++) {
+            CalculationConstants constants = randomConstants(random);
+            double initialCost = random.nextInt(20) == 0 ? 0.0 : 100 + random.nextDouble() * 30000;
+            // Large batteries against small usage cover all of it in the early years
+            double batteryCapacity = sometimesZero(random, 30);
+            double usage = sometimesZero(random, 20000);
+            double peakRate = 0.1 + random.nextDouble() * 0.3;
+            double offpeakRate = random.nextDouble() * peakRate;
+            double exportRate = sometimesZero(random, 0.3);
+            double solarUsed = sometimesZero(random, 5000);
+            double solarExport = sometimesZero(random, 5000);
+
+            assertMatches(constants, initialCost, batteryCapacity, usage, peakRate, offpeakRate, exportRate,
+                solarUsed, solarExport);
+        }
+    }
+
+    @Test
+    void testFallsBackWhenSavingsCanBeNegative() {
+        Random random = new Random(7);
+        for (int i = 0; i < 1000; i++) {
+            // Off-peak dearer than peak: battery arbitrage loses money every year
+            double peakRate = 0.1 + random.nextDouble() * 0.1;
+            assertMatches(randomConstants(random), 5000, random.nextDouble() * 20, random.nextDouble() * 10000,
+                peakRate, peakRate + random.nextDouble() * 0.2, 0.15, random.nextDouble() * 3000, 500);
+        }
+    }
+
+    private static void assertMatches(CalculationConstants constants, double initialCost, double batteryCapacity,
+            double usage, double peakRate, double offpeakRate, double exportRate, double solarUsed, double solarExport) {
+        RoiProjection projection = RoiProjection.scratch().project(constants, initialCost, batteryCapacity, usage,
+            peakRate, offpeakRate, exportRate, solarUsed, solarExport);
+        RoiClosedForm.Summary summary = RoiClosedForm.summarise(constants, initialCost, batteryCapacity, usage,
+            peakRate, offpeakRate, exportRate, solarUsed, solarExport);
+
+        String inputs = String.format("cost=%s battery=%s usage=%s rates=%s/%s/%s solar=%s/%s knee=%d@%s life=%d",
+            initialCost, batteryCapacity, usage, peakRate, offpeakRate, exportRate, solarUsed, solarExport,
+            constants.getKneeYear(), constants.getKneeCapacity(), constants.getEndOfLifeYears());
+        double cumulativeSavings = projection.cumulativeSavings[RoiProjection.YEARS - 1];
+        assertEquals(projection.paybackYear, summary.paybackYear(), inputs);
+        assertEquals(cumulativeSavings, summary.cumulativeSavings(), PENNY, inputs);
+        assertEquals(projection.averageYearlySavings, summary.averageYearlySavings(), PENNY, inputs);
+        assertEquals(initialCost, summary.totalCost(), inputs);
+        if (initialCost > 0) {
+            // A penny of savings, as a percentage of the cost
+            double expectedRoi = (cumulativeSavings + initialCost) / initialCost * 100;
+            assertEquals(expectedRoi, summary.roiPercentage(), PENNY / initialCost * 100, inputs);
+        } else {
+            assertEquals(0.0, summary.roiPercentage(), inputs);
+        }
+    }
+}
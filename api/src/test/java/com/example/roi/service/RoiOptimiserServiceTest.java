@@ -0,0 +1,187 @@
+package com.example.roi.service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.example.roi.controller.RoiApiController;
+import com.example.roi.mcs.McsLookupOptimized;
+import com.example.roi.model.RoiCalculationResponse;
+import com.example.roi.model.RoiOptimiseCandidate;
+import com.example.roi.model.RoiOptimiseRequest;
+import com.example.roi.model.RoiOptimiseResponse;
+import com.example.roi.model.RoiRequest;
+import com.example.roi.model.SizeRange;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RoiOptimiserServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final AtomicInteger households = new AtomicInteger();
+    private final Set<String> calculatingThreads = ConcurrentHashMap.newKeySet();
+    private RoiService roiService;
+    private RoiOptimiserService optimiserService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Path csv = tempDir.resolve("data.csv");
+        Files.writeString(csv, String.join("\n",
+            "occupancy_days,occupancy_days_normalized,annual_consumption_kwh,pv_generation_kwh,battery_size_kwh,"
+                + "predicted_self_consumption_percentage,pv_to_consumption_ratio,battery_to_consumption_ratio",
+            "5,1.0,4000.0,3400.0,5.0,60.0,0.85,0.46",
+            "5,1.0,4000.0,6800.0,10.0,75.0,1.7,0.92",
+            "3,0.6,3000.0,3400.0,5.0,40.0,1.13,0.46",
+            ""));
+        McsLookupOptimized lookup = new McsLookupOptimized(tempDir.resolve("data.cache").toString(), csv.toString());
+        McsLookupService mcsLookupService = new McsLookupService(new DefaultResourceLoader(), new SimpleMeterRegistry()) {
+            @Override
+            public McsLookupOptimized getLookup() {
+                return lookup;
+            }
+        };
+
+        roiService = new RoiService(new TariffService(), mcsLookupService,
+                new CalculationConstantsService(new DefaultResourceLoader()), new ObjectMapper()) {
+            @Override
+            Household household(RoiRequest request, McsLookupOptimized mcsLookup) {
+                households.incrementAndGet();
+                return super.household(request, mcsLookup);
+            }
+
+            @Override
+            RoiClosedForm.Summary summariseForHousehold(RoiRequest request, Household household) {
+                calculatingThreads.add(Thread.currentThread().getName());
+                return super.summariseForHousehold(request, household);
+            }
+        };
+
+        optimiserService = new RoiOptimiserService(roiService);
+        ReflectionTestUtils.setField(optimiserService, "maxCells", 500);
+        ReflectionTestUtils.setField(optimiserService, "parallelism", 2);
+        optimiserService.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        optimiserService.shutdown();
+    }
+
+    private static RoiRequest household() {
+        RoiRequest household = new RoiRequest();
+        household.setSolarPanelDirection(RoiRequest.CardinalDirection.SOUTH);
+        household.setUsage(4000);
+        return household;
+    }
+
+    @Test
+    void testFrontIsNonDominatedAndMatchesSingleCalculations() {
+        RoiOptimiseRequest request = new RoiOptimiseRequest(household(),
+            new SizeRange(0, 20, 2.5), new SizeRange(0, 8, 1));
+
+        RoiOptimiseResponse response = optimiserService.optimise(request);
+
+        // 9 battery sizes by 9 solar sizes, less the empty system
+        assertEquals(80, response.getEvaluated());
+        assertEquals(1, households.get());
+        assertTrue(calculatingThreads.stream().allMatch(name -> name.startsWith("roi-optimise-")));
+
+        List<RoiOptimiseCandidate> front = response.getParetoFront();
+        assertFalse(front.isEmpty());
+        for (int i = 0; i < front.size(); i++) {
+            if (i > 0) {
+                assertTrue(front.get(i - 1).getTotalCost() <= front.get(i).getTotalCost());
+            }
+            for (int j = 0; j < front.size(); j++) {
+                assertTrue(i == j || !RoiOptimiserService.dominates(front.get(j), front.get(i)));
+            }
+        }
+
+        // Each point is what a plain year-by-year calculation of the same sizes gives
+        RoiOptimiseCandidate point = front.get(front.size() - 1);
+        RoiRequest single = household();
+        single.setBatterySize(point.getBatterySize());
+        single.setSolarSize(point.getSolarSize());
+        RoiCalculationResponse expected = roiService.calculate(single);
+        assertEquals(expected.getTotalCost().getAmount(), point.getTotalCost());
+        assertEquals(expected.getRoiPercentage().getPercentage(), point.getRoiPercentage(), 1e-9);
+        assertEquals(expected.getYearlySavings().getAmount(), point.getYearlySavings(), 0.005);
+        assertEquals(expected.getPaybackPeriod().getYears(), point.getPaybackYears() != null ? point.getPaybackYears() : -1);
+    }
+
+    @Test
+    void testDominatedAndDuplicateCandidatesAreDropped() {
+        RoiOptimiseCandidate cheap = new RoiOptimiseCandidate(5, 0, 3000, 8, 40, 400);
+        RoiOptimiseCandidate same = new RoiOptimiseCandidate(5, 0.5, 3000, 8, 40, 400);
+        RoiOptimiseCandidate worse = new RoiOptimiseCandidate(10, 0, 5000, 9, 30, 500);
+        RoiOptimiseCandidate better = new RoiOptimiseCandidate(10, 4, 8000, 7, 90, 1200);
+        RoiOptimiseCandidate never = new RoiOptimiseCandidate(20, 0, 9000, null, 10, 200);
+
+        List<RoiOptimiseCandidate> front = RoiOptimiserService.paretoFront(List.of(never, worse, better, same, cheap));
+
+        assertEquals(2, front.size());
+        assertEquals(3000, front.get(0).getTotalCost());
+        assertEquals(better, front.get(1));
+        assertNull(never.getPaybackYears());
+    }
+
+    @Test
+    void testInvalidRangesAreRefused() throws Exception {
+        assertThrows(IllegalArgumentException.class, () -> optimiserService.optimise(
+            new RoiOptimiseRequest(household(), new SizeRange(0, 10, 0), new SizeRange(0, 4, 1))));
+        assertThrows(IllegalArgumentException.class, () -> optimiserService.optimise(
+            new RoiOptimiseRequest(household(), new SizeRange(10, 5, 1), new SizeRange(0, 4, 1))));
+        assertThrows(IllegalArgumentException.class, () -> optimiserService.optimise(
+            new RoiOptimiseRequest(household(), new SizeRange(0, 10, 1), null)));
+        // 101 by 101 is over the limit of 500
+        assertThrows(IllegalArgumentException.class, () -> optimiserService.optimise(
+            new RoiOptimiseRequest(household(), new SizeRange(0, 10, 0.1), new SizeRange(0, 10, 0.1))));
+
+        RoiApiController controller = new RoiApiController();
+        ReflectionTestUtils.setField(controller, "roiOptimiserService", optimiserService);
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+        ObjectMapper objectMapper = new ObjectMapper();
+        mockMvc.perform(post("/api/roi/optimise")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                    new RoiOptimiseRequest(household(), new SizeRange(0, 10, -1), new SizeRange(0, 4, 1)))))
+                .andExpect(status().isBadRequest());
+        // Two billion battery sizes are refused before any of them is listed
+        mockMvc.perform(post("/api/roi/optimise")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                    new RoiOptimiseRequest(household(), new SizeRange(0, 2e9, 1), new SizeRange(0, 0, 1)))))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/roi/optimise")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                    new RoiOptimiseRequest(household(), new SizeRange(5, 10, 5), new SizeRange(0, 4, 2)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.evaluated").value(6))
+                .andExpect(jsonPath("$.paretoFront[0].totalCost").exists());
+    }
+}
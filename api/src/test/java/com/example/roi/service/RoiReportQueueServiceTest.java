@@ -0,0 +1,172 @@
+package com.example.roi.service;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.roi.model.RoiCalculationResponse;
+import com.example.roi.model.TotalCost;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lowagie.text.DocumentException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RoiReportQueueServiceTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final Set<String> rendered = ConcurrentHashMap.newKeySet();
+    private RoiReportQueueService queue;
+
+    @BeforeEach
+    void setUp() {
+        // Renders block until released, and fail for responses without a total cost
+        RoiPdfReportService reportService = new RoiPdfReportService(new CalculationConstantsService(new DefaultResourceLoader()));
+        RoiReportStore blockingStore = new RoiReportStore(reportService, new ObjectMapper()) {
+            @Override
+            public Path getOrRender(String key, RoiCalculationResponse response) throws DocumentException {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (response.getTotalCost() == null) {
+                    throw new DocumentException("no cost");
+                }
+                rendered.add(key);
+                return Path.of(fileName(key));
+            }
+
+            @Override
+            public Optional<Path> find(String key) {
+                return rendered.contains(key) ? Optional.of(Path.of(fileName(key))) : Optional.empty();
+            }
+        };
+        queue = new RoiReportQueueService(blockingStore, registry);
+        ReflectionTestUtils.setField(queue, "workers", 1);
+        ReflectionTestUtils.setField(queue, "queueCapacity", 2);
+        ReflectionTestUtils.setField(queue, "retention", Duration.ZERO);
+        queue.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        queue.shutdown();
+    }
+
+    private static RoiCalculationResponse sampleResponse(double cost) {
+        return new RoiCalculationResponse(new TotalCost(cost), null, null, null, null, null);
+    }
+
+    private static void awaitState(RoiReportQueueService.ReportJob job, RoiReportQueueService.State state) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (job.getState() != state && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(state, job.getState());
+    }
+
+    @Test
+    void testQueuesRendersAndRejectsWhenFull() throws InterruptedException {
+        RoiReportQueueService.ReportJob rendering = queue.submit(sampleResponse(8500));
+        awaitState(rendering, RoiReportQueueService.State.RENDERING);
+
+        RoiReportQueueService.ReportJob first = queue.submit(sampleResponse(9000));
+        RoiReportQueueService.ReportJob second = queue.submit(new RoiCalculationResponse());
+        assertEquals(RoiReportQueueService.State.QUEUED, second.getState());
+        assertEquals(0, queue.getQueuePosition(first));
+        assertEquals(1, queue.getQueuePosition(second));
+        assertEquals(2.0, registry.get("roi.reports.queue.depth").gauge().value());
+
+        // One rendering and two queued: the next submission is pushed back
+        assertThrows(RejectedExecutionException.class, () -> queue.submit(sampleResponse(9500)));
+        assertEquals(1.0, registry.get("roi.reports.rejected").counter().count());
+
+        release.countDown();
+        awaitState(rendering, RoiReportQueueService.State.DONE);
+        awaitState(first, RoiReportQueueService.State.DONE);
+        awaitState(second, RoiReportQueueService.State.FAILED);
+        assertEquals("no cost", second.getError());
+        assertEquals(-1, queue.getQueuePosition(second));
+        assertTrue(!second.getFinishedAt().isBefore(second.getStartedAt()));
+
+        assertEquals(3, registry.get("roi.reports.wait").timer().count());
+        assertEquals(3, registry.get("roi.reports.render").timer().count());
+    }
+
+    @Test
+    void testIdenticalReportsAreNotQueuedTwice() throws InterruptedException {
+        RoiReportQueueService.ReportJob job = queue.submit(sampleResponse(8500));
+        assertSame(job, queue.submit(sampleResponse(8500)));
+        assertEquals(64, job.getReportId().length());
+
+        release.countDown();
+        awaitState(job, RoiReportQueueService.State.DONE);
+        // Already stored: finished straight away without rendering again
+        RoiReportQueueService.ReportJob again = queue.submit(sampleResponse(8500));
+        assertEquals(job.getReportId(), again.getReportId());
+        assertEquals(RoiReportQueueService.State.DONE, again.getState());
+        assertEquals(1, registry.get("roi.reports.render").timer().count());
+    }
+
+    @Test
+    void testConcurrentSubmissionsShareOneJob() throws Exception {
+        RoiReportQueueService.ReportJob rendering = queue.submit(sampleResponse(8500));
+        awaitState(rendering, RoiReportQueueService.State.RENDERING);
+
+        CountDownLatch go = new CountDownLatch(1);
+        ExecutorService submitters = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<RoiReportQueueService.ReportJob>> jobs = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                jobs.add(submitters.submit(() -> {
+                    go.await();
+                    return queue.submit(sampleResponse(9000));
+                }));
+            }
+            go.countDown();
+            RoiReportQueueService.ReportJob job = jobs.get(0).get(10, TimeUnit.SECONDS);
+            for (Future<RoiReportQueueService.ReportJob> other : jobs) {
+                assertSame(job, other.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            submitters.shutdownNow();
+        }
+        // One queue slot taken, none rejected
+        assertEquals(1.0, registry.get("roi.reports.queue.depth").gauge().value());
+        assertEquals(0.0, registry.get("roi.reports.rejected").counter().count());
+    }
+
+    @Test
+    void testFinishedJobsExpire() throws InterruptedException {
+        release.countDown();
+        RoiReportQueueService.ReportJob job = queue.submit(sampleResponse(8500));
+        awaitState(job, RoiReportQueueService.State.DONE);
+        assertTrue(queue.getJob(job.getReportId()).isPresent());
+
+        Thread.sleep(5);
+        queue.evictExpiredJobs();
+        assertTrue(queue.getJob(job.getReportId()).isEmpty());
+    }
+}
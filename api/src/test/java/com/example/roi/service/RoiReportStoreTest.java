@@ -0,0 +1,128 @@
+package com.example.roi.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import com.example.roi.model.RoiCalculationResponse;
+import com.example.roi.model.TotalCost;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lowagie.text.DocumentException;
+
+class RoiReportStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private RoiReportStore store;
+
+    @BeforeEach
+    void setUp() {
+        RoiPdfReportService reportService = new RoiPdfReportService(new CalculationConstantsService(new DefaultResourceLoader()));
+        store = new RoiReportStore(reportService, new ObjectMapper());
+        ReflectionTestUtils.setField(store, "directory", directory);
+        ReflectionTestUtils.setField(store, "maxSize", DataSize.ofMegabytes(10));
+        ReflectionTestUtils.setField(store, "maxAge", Duration.ofHours(1));
+    }
+
+    private static RoiCalculationResponse sampleResponse(double cost) {
+        return new RoiCalculationResponse(new TotalCost(cost), null, null, null, null, null);
+    }
+
+    private List<String> storedFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    @Test
+    void testIdenticalResponsesShareOneFile() throws IOException, DocumentException {
+        String key = store.keyOf(sampleResponse(8500));
+        assertEquals(key, store.keyOf(sampleResponse(8500)));
+        assertNotEquals(key, store.keyOf(sampleResponse(9000)));
+
+        Path file = store.getOrRender(key, sampleResponse(8500));
+        FileTime written = Files.getLastModifiedTime(file);
+        assertEquals(file, store.getOrRender(key, sampleResponse(8500)));
+        assertEquals(written, Files.getLastModifiedTime(file));
+
+        // No temporary files are left behind
+        assertEquals(List.of(RoiReportStore.fileName(key)), storedFiles());
+        assertEquals("%PDF-", new String(Files.readAllBytes(file), 0, 5));
+    }
+
+    @Test
+    void testOnlyReportNamesAreLookedUp() throws IOException, DocumentException {
+        String key = store.keyOf(sampleResponse(8500));
+        store.getOrRender(key, sampleResponse(8500));
+
+        assertTrue(store.findByFileName(RoiReportStore.fileName(key)).isPresent());
+        assertTrue(store.findByFileName(RoiReportStore.fileName(store.keyOf(sampleResponse(9000)))).isEmpty());
+        assertTrue(store.findByFileName("../" + RoiReportStore.fileName(key)).isEmpty());
+        assertTrue(store.findByFileName("roi-report-.pdf").isEmpty());
+    }
+
+    @Test
+    void testEvictsByAgeThenOldestBeyondMaxSize() throws IOException, DocumentException {
+        Instant now = Instant.now();
+        Path expired = store.getOrRender(store.keyOf(sampleResponse(1000)), sampleResponse(1000));
+        Path oldest = store.getOrRender(store.keyOf(sampleResponse(2000)), sampleResponse(2000));
+        Path newest = store.getOrRender(store.keyOf(sampleResponse(3000)), sampleResponse(3000));
+        Path abandoned = Files.createFile(directory.resolve("roi-report-abc.tmp"));
+        Path unrelated = Files.createFile(directory.resolve("notes.txt"));
+        Files.setLastModifiedTime(expired, FileTime.from(now.minus(Duration.ofHours(2))));
+        Files.setLastModifiedTime(abandoned, FileTime.from(now.minus(Duration.ofHours(2))));
+        Files.setLastModifiedTime(unrelated, FileTime.from(now.minus(Duration.ofHours(2))));
+        Files.setLastModifiedTime(oldest, FileTime.from(now.minus(Duration.ofMinutes(2))));
+        Files.setLastModifiedTime(newest, FileTime.from(now.minus(Duration.ofMinutes(1))));
+
+        store.evictExpiredReports();
+        assertFalse(Files.exists(expired));
+        assertFalse(Files.exists(abandoned));
+        assertTrue(Files.exists(oldest));
+        assertTrue(Files.exists(unrelated));
+
+        // Room for one report only: the oldest goes
+        ReflectionTestUtils.setField(store, "maxSize", DataSize.ofBytes(Files.size(newest)));
+        store.evictExpiredReports();
+        assertFalse(Files.exists(oldest));
+        assertTrue(Files.exists(newest));
+    }
+
+    @Test
+    void testReuseNearMaxAgeKeepsReport() throws IOException, DocumentException {
+        String key = store.keyOf(sampleResponse(8500));
+        Path file = store.getOrRender(key, sampleResponse(8500));
+        FileTime written = FileTime.from(Instant.now().minus(Duration.ofMinutes(59)));
+        Files.setLastModifiedTime(file, written);
+
+        // Handed out again for an identical calculation just before it would have expired
+        assertEquals(file, store.getOrRender(key, sampleResponse(8500)));
+        ReflectionTestUtils.setField(store, "maxAge", Duration.ofMinutes(30));
+        store.evictExpiredReports();
+        assertTrue(Files.exists(file));
+        // The file itself is untouched, so download validators stay the same
+        assertEquals(written, Files.getLastModifiedTime(file));
+
+        Path other = store.getOrRender(store.keyOf(sampleResponse(9000)), sampleResponse(9000));
+        Files.setLastModifiedTime(other, written);
+        store.evictExpiredReports();
+        assertFalse(Files.exists(other));
+    }
+}
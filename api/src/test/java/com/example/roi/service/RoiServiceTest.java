@@ -0,0 +1,236 @@
+package com.example.roi.service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.example.roi.mcs.McsLookupOptimized;
+import com.example.roi.model.RoiCalculationResponse;
+import com.example.roi.model.RoiRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RoiServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private RoiService roiService;
+    private TariffService tariffService;
+    private CaffeineCacheManager cacheManager;
+    private final AtomicInteger lookups = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Path csv = tempDir.resolve("data.csv");
+        Files.writeString(csv, String.join("\n",
+            "occupancy_days,occupancy_days_normalized,annual_consumption_kwh,pv_generation_kwh,battery_size_kwh,"
+                + "predicted_self_consumption_percentage,pv_to_consumption_ratio,battery_to_consumption_ratio",
+            "5,1.0,4000.0,3400.0,5.0,60.0,0.85,0.46",
+            "3,0.6,4000.0,3400.0,5.0,40.0,0.85,0.46",
+            ""));
+        McsLookupOptimized lookup = new McsLookupOptimized(tempDir.resolve("data.cache").toString(), csv.toString());
+        McsLookupService mcsLookupService = new McsLookupService(new DefaultResourceLoader(), new SimpleMeterRegistry()) {
+            @Override
+            public McsLookupOptimized getLookup() {
+                lookups.incrementAndGet();
+                return lookup;
+            }
+        };
+
+        cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(RoiService.CALCULATION_CACHE,
+            Caffeine.newBuilder().maximumSize(100).recordStats().build());
+        tariffService = new TariffService();
+
+        roiService = new RoiService(tariffService, mcsLookupService,
+            new CalculationConstantsService(new DefaultResourceLoader()), new ObjectMapper());
+        ReflectionTestUtils.setField(roiService, "cacheManager", cacheManager);
+        ReflectionTestUtils.setField(roiService, "usageDecimals", 0);
+        ReflectionTestUtils.setField(roiService, "sizeDecimals", 2);
+    }
+
+    private static RoiRequest request(double usage, double solarSize, double batterySize) {
+        RoiRequest request = new RoiRequest();
+        request.setSolarPanelDirection(RoiRequest.CardinalDirection.SOUTH);
+        request.setUsage(usage);
+        request.setSolarSize(solarSize);
+        request.setBatterySize(batterySize);
+        return request;
+    }
+
+    private CacheStats stats() {
+        return ((CaffeineCache) cacheManager.getCache(RoiService.CALCULATION_CACHE)).getNativeCache().stats();
+    }
+
+    @Test
+    void testRepeatedRequestsAreServedFromCache() {
+        RoiCalculationResponse first = roiService.calculate(request(4000, 4.0, 5.0));
+        RoiCalculationResponse second = roiService.calculate(request(4000, 4.0, 5.0));
+
+        assertSame(first, second);
+        assertEquals(1, lookups.get());
+        assertEquals(1, stats().hitCount());
+        assertEquals(1, stats().missCount());
+    }
+
+    @Test
+    void testCachedResponsesCannotBeModified() {
+        RoiRequest request = request(4000, 4.0, 5.0);
+        request.setIncludePdfBreakdown(true);
+        RoiCalculationResponse shared = roiService.calculate(request);
+        assertSame(shared, roiService.calculate(request));
+
+        // A caller changing the shared response would change it for every later caller
+        assertThrows(UnsupportedOperationException.class, () -> shared.getYearlyBreakdown().clear());
+        assertThrows(UnsupportedOperationException.class, () -> shared.getRoiChartData().getDataPoints().remove(0));
+    }
+
+    @Test
+    void testNearIdenticalRequestsShareQuantisedResult() {
+        RoiCalculationResponse exact = roiService.calculate(request(4000, 4.0, 5.0));
+        RoiCalculationResponse nudged = roiService.calculate(request(4000.3, 4.001, 4.999));
+        assertSame(exact, nudged);
+
+        // The cached result is the one the rounded request produces, whichever request came first
+        cacheManager.getCache(RoiService.CALCULATION_CACHE).clear();
+        RoiCalculationResponse fromNudged = roiService.calculate(request(4000.3, 4.001, 4.999));
+        assertEquals(exact.getTotalCost().getAmount(), fromNudged.getTotalCost().getAmount());
+        assertEquals(exact.getYearlySavings().getAmount(), fromNudged.getYearlySavings().getAmount());
+
+        assertNotSame(exact, roiService.calculate(request(4001, 4.0, 5.0)));
+    }
+
+    @Test
+    void testUncachedCalculationsUseInputsAsSent() {
+        double roundedCost = roiService.calculate(request(4000, 4.0, 5.0)).getTotalCost().getAmount();
+
+        // Audited requests skip the cache, so they are not rounded either
+        RoiRequest audited = request(4000, 4.004, 5.0);
+        audited.setAudit(true);
+        assertEquals(roundedCost + 0.004 * 1500, roiService.calculate(audited).getTotalCost().getAmount(), 1e-9);
+
+        ReflectionTestUtils.setField(roiService, "cacheManager", null);
+        assertEquals(roundedCost + 0.004 * 1500,
+            roiService.calculate(request(4000, 4.004, 5.0)).getTotalCost().getAmount(), 1e-9);
+    }
+
+    @Test
+    void testTariffVersionChangeMissesCache() {
+        RoiCalculationResponse before = roiService.calculate(request(4000, 4.0, 5.0));
+        tariffService.clearTariffCache();
+        RoiCalculationResponse after = roiService.calculate(request(4000, 4.0, 5.0));
+
+        assertNotSame(before, after);
+        assertEquals(2, lookups.get());
+        assertEquals(2, stats().missCount());
+    }
+
+    @Test
+    void testCalculationErrorsAreNotWrappedOrCached() {
+        RoiRequest outOfRange = request(50000, 4.0, 5.0);
+        assertThrows(IllegalStateException.class, () -> roiService.calculate(outOfRange));
+        assertThrows(IllegalStateException.class, () -> roiService.calculate(outOfRange));
+        assertEquals(0, ((CaffeineCache) cacheManager.getCache(RoiService.CALCULATION_CACHE)).getNativeCache().estimatedSize());
+    }
+
+    @Test
+    void testAuditedRequestWritesStructuredEvent() throws Exception {
+        Logger auditLogger = (Logger) LoggerFactory.getLogger("roi.audit");
+        ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        appender.start();
+        auditLogger.addAppender(appender);
+        try {
+            RoiCalculationResponse cached = roiService.calculate(request(4000, 4.0, 5.0));
+            RoiRequest audited = request(4000, 4.0, 5.0);
+            audited.setAudit(true);
+            RoiCalculationResponse response = roiService.calculate(audited);
+
+            // Audited requests are calculated afresh so the trace is real, with the same result
+            assertNotSame(cached, response);
+            assertEquals(cached.getYearlySavings().getAmount(), response.getYearlySavings().getAmount());
+            assertEquals(1, appender.list.size());
+
+            JsonNode event = new ObjectMapper().readTree(appender.list.get(0).getFormattedMessage());
+            assertEquals("request", event.get("trigger").asText());
+            assertEquals(15, event.get("years").size());
+            assertEquals(response.getPaybackPeriod().getYears(), event.get("paybackYear").asInt());
+            assertEquals(response.getRoiChartData().getDataPoints().get(14).getCumulativeSavings(),
+                event.get("years").get(14).get("cumulativeSavings").asDouble());
+
+            // Sampling audits requests that did not ask for it
+            ReflectionTestUtils.setField(roiService, "auditSampleRate", 1.0);
+            roiService.calculate(request(4000, 4.0, 5.0));
+            assertEquals(2, appender.list.size());
+            assertTrue(appender.list.get(1).getFormattedMessage().contains("\"trigger\":\"sampled\""));
+        } finally {
+            auditLogger.detachAppender(appender);
+        }
+    }
+
+    @Test
+    void testProjectionMatchesYearByYearFormulas() {
+        // 5 kWh battery (4.5 usable), 1000 kWh/year solar used, 500 exported
+        CalculationConstants constants = CalculationConstants.defaults();
+        RoiProjection projection = RoiProjection.scratch().project(constants, 4000, 4.5, 4000, 0.30, 0.10, 0.15, 1000, 500);
+
+        double runningTotal = -4000;
+        int paybackYear = 0;
+        for (int year = 1; year <= RoiProjection.YEARS; year++) {
+            int i = year - 1;
+            double degradation = constants.degradationFactor(year);
+            double shiftable = Math.min(4.5 * degradation * 365, 4000);
+            double total = shiftable * (0.30 - 0.10) * 0.85 + 1000 * 0.30 + 500 * 0.15;
+            runningTotal += total;
+            if (paybackYear == 0 && runningTotal > 0) {
+                paybackYear = year;
+            }
+            assertEquals(degradation, projection.degradationFactor[i]);
+            assertEquals(shiftable, projection.shiftable[i]);
+            assertEquals(total, projection.yearTotalSavings[i], 1e-9);
+            assertEquals(runningTotal, projection.cumulativeSavings[i], 1e-9);
+        }
+        assertEquals(paybackYear, projection.paybackYear);
+        assertEquals(0.7, projection.degradationFactor[9], 1e-12);
+        assertEquals(0.0, projection.degradationFactor[14], 1e-12);
+
+        // No battery: savings are the same every year and the degradation factor stays at 1
+        projection.project(constants, 1500, 0, 4000, 0.30, 0.10, 0.15, 1000, 500);
+        assertEquals(1.0, projection.degradationFactor[14]);
+        assertEquals(375.0, projection.averageYearlySavings, 1e-9);
+        assertEquals(5, projection.paybackYear);
+    }
+
+    @Test
+    void testResponsesDoNotShareTheReusedProjection() {
+        ReflectionTestUtils.setField(roiService, "cacheManager", null);
+        RoiCalculationResponse first = roiService.calculate(request(4000, 4.0, 5.0));
+        double firstFinal = first.getRoiChartData().getDataPoints().get(14).getCumulativeSavings();
+        roiService.calculate(request(4000, 2.0, 0));
+
+        assertEquals(firstFinal, first.getRoiChartData().getDataPoints().get(14).getCumulativeSavings());
+        assertEquals(firstFinal, roiService.calculate(request(4000, 4.0, 5.0))
+            .getRoiChartData().getDataPoints().get(14).getCumulativeSavings());
+    }
+}